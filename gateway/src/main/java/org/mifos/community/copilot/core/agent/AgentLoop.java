@@ -7,27 +7,40 @@
  */
 package org.mifos.community.copilot.core.agent;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
 import org.mifos.community.copilot.core.approval.ApprovalStore;
 import org.mifos.community.copilot.core.approval.PendingApproval;
 import org.mifos.community.copilot.core.auth.CallContext;
 import org.mifos.community.copilot.core.contract.ErrorCode;
 import org.mifos.community.copilot.core.contract.StreamEvent;
 import org.mifos.community.copilot.core.convo.ConversationStore;
+import org.mifos.community.copilot.core.convo.HistoryWindow;
 import org.mifos.community.copilot.core.llm.LlmClient;
 import org.mifos.community.copilot.core.llm.LlmException;
 import org.mifos.community.copilot.core.llm.LlmResult;
 import org.mifos.community.copilot.core.llm.LlmToolCall;
+import org.mifos.community.copilot.core.metrics.Metrics;
 import org.mifos.community.copilot.core.tools.Display;
 import org.mifos.community.copilot.core.tools.ToolDefinition;
 import org.mifos.community.copilot.core.tools.ToolExecutionException;
 import org.mifos.community.copilot.core.tools.ToolExecutor;
 import org.mifos.community.copilot.core.tools.ToolManifest;
 
+import java.time.Duration;
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 /**
  * The Copilot brain: LLM turn -> tool calls -> feed results back, until the model answers in
@@ -40,49 +53,158 @@ import java.util.Optional;
  *       ending the turn WITHOUT a done event; execution happens only via {@link #resume};</li>
  *   <li>the approval card is built from the PARSED function call, never from model prose;</li>
  *   <li>at most {@link #MAX_TOOL_ROUNDS} tool rounds per turn, so no runaway loops;</li>
+ *   <li>reads in one batch may run side by side ({@link ToolFanOut}), but their results are
+ *       recorded in the model's tool_call order and a write still pauses where it stands;</li>
  *   <li>tool results feed the model, but rule custody stays in the system prompt.</li>
  * </ul>
+ *
+ * <p>The loop is written once, as a chain of futures over {@link LlmClient#completeAsync} and
+ * {@link ToolExecutor#executeAsync}. {@link #runTurnAsync} hands that chain back, so with
+ * clients that do not block no thread waits on the model or on Fineract. {@link #runTurn} runs
+ * the same chain over the clients' blocking calls instead, every step on the calling thread,
+ * which is what a blocking host (the plugin, the tests, a gateway giving each turn a thread)
+ * expects of it.
  */
 public final class AgentLoop {
 
     private static final int MAX_TOOL_ROUNDS = 6;
+    /** Thread-safe once configured, and costly to build, so one serves every turn. */
+    private static final ObjectMapper JSON = new ObjectMapper();
 
     private final LlmClient llm;
     private final ToolManifest manifest;
     private final ToolExecutor executor;
     private final ApprovalStore approvals;
     private final ConversationStore conversations;
+    private final ToolFanOut fanOut;
+    private final int historyTokens;
+    private final Metrics metrics;
+    private final TurnTiming timing;
+    /** The reads the manifest marks for prefetch from the officer's screen. */
+    private final List<ToolDefinition> prefetchable;
+    /**
+     * Where prefetched reads go: the executor as given, even for a blocking turn, since the turn
+     * only waits on one once the model asks for it.
+     */
+    private final ToolExecutor prefetchExecutor;
+    /** This loop over the clients' blocking calls, for {@link #runTurn} and {@link #resume}. */
+    private final AgentLoop blocking;
+    /** Whether this is that loop, which waits for every step on the turn's own thread. */
+    private final boolean waits;
 
     public AgentLoop(LlmClient llm, ToolManifest manifest, ToolExecutor executor, ApprovalStore approvals,
             ConversationStore conversations) {
+        this(llm, manifest, executor, approvals, conversations, ToolFanOut.sequential());
+    }
+
+    /**
+     * @param fanOut how the reads of one model batch are spread across threads; the host owns
+     *     its lifecycle, which is why the shorter constructor owns no threads at all
+     */
+    public AgentLoop(LlmClient llm, ToolManifest manifest, ToolExecutor executor, ApprovalStore approvals,
+            ConversationStore conversations, ToolFanOut fanOut) {
+        this(llm, manifest, executor, approvals, conversations, fanOut, 0);
+    }
+
+    /**
+     * @param historyTokens how much of the conversation, in estimated tokens, is sent to the
+     *     model each round; zero sends all the store keeps
+     */
+    public AgentLoop(LlmClient llm, ToolManifest manifest, ToolExecutor executor, ApprovalStore approvals,
+            ConversationStore conversations, ToolFanOut fanOut, int historyTokens) {
+        this(llm, manifest, executor, approvals, conversations, fanOut, historyTokens, Metrics.NOOP, false);
+    }
+
+    /**
+     * @param metrics receives where each turn's time went and what became of each approval card
+     * @param timingEvents whether the web-app is also sent each turn's timings, as a {@code timing} event
+     */
+    public AgentLoop(LlmClient llm, ToolManifest manifest, ToolExecutor executor, ApprovalStore approvals,
+            ConversationStore conversations, ToolFanOut fanOut, int historyTokens, Metrics metrics,
+            boolean timingEvents) {
         this.llm = llm;
         this.manifest = manifest;
         this.executor = executor;
         this.approvals = approvals;
         this.conversations = conversations;
+        this.fanOut = fanOut;
+        this.historyTokens = historyTokens;
+        this.metrics = metrics;
+        this.timing = new TurnTiming(metrics, timingEvents);
+        this.prefetchable = manifest.all().stream().filter(ToolDefinition::prefetch).toList();
+        this.prefetchExecutor = executor;
+        this.waits = false;
+        this.blocking = new AgentLoop(this);
+    }
+
+    /** The blocking twin of {@code async}: same stores, same fan-out, same timings. */
+    private AgentLoop(AgentLoop async) {
+        this.llm = blockingLlm(async.llm);
+        this.manifest = async.manifest;
+        this.executor = blockingExecutor(async.executor);
+        this.approvals = async.approvals;
+        this.conversations = async.conversations;
+        this.fanOut = async.fanOut;
+        this.historyTokens = async.historyTokens;
+        this.metrics = async.metrics;
+        this.timing = async.timing;
+        this.prefetchable = async.prefetchable;
+        this.prefetchExecutor = async.executor;
+        this.waits = true;
+        this.blocking = this;
     }
 
     /** Run one chat turn. Emits contract events into {@code sink} until done/paused/error. */
     public void runTurn(String requestedConversationId, String userMessage, Map<String, Object> screenContext,
             CallContext context, EventSink sink) {
+        await(blocking.runTurnAsync(requestedConversationId, userMessage, screenContext, context, sink));
+    }
+
+    /**
+     * {@link #runTurn} without waiting: the future completes once the turn has emitted its last
+     * event, and fails only for a fault the loop itself could not turn into an event.
+     */
+    public CompletableFuture<Void> runTurnAsync(String requestedConversationId, String userMessage,
+            Map<String, Object> screenContext, CallContext context, EventSink sink) {
         String fingerprint = context.fingerprint();
         String conversationId = conversations.resolve(fingerprint, requestedConversationId);
         conversations.append(fingerprint, conversationId, Map.of("role", "user", "content", userMessage));
-        drive(conversationId, screenContext, context, sink);
+        TurnTiming.Trace trace = timing.start("chat", context, llm.model(), sink);
+        // Started before the first round, so the record on screen is read while the model thinks.
+        Prefetch prefetch = Prefetch.start(prefetchable, screenContext, prefetchExecutor, fanOut, context, trace,
+                metrics);
+        return trace.finish(drive(conversationId, screenContext, context, trace, prefetch, 0))
+                .whenComplete((ignored, error) -> prefetch.finish());
     }
 
     /** Resume a paused turn after the officer's decision. */
     public void resume(String cardId, boolean approved, Map<String, Object> screenContext, CallContext context,
             EventSink sink) {
+        await(blocking.resumeAsync(cardId, approved, screenContext, context, sink));
+    }
+
+    /** {@link #resume} without waiting, as {@link #runTurnAsync} is to {@link #runTurn}. */
+    public CompletableFuture<Void> resumeAsync(String cardId, boolean approved, Map<String, Object> screenContext,
+            CallContext context, EventSink sink) {
+        TurnTiming.Trace trace = timing.start("decision", context, llm.model(), sink);
+        return trace.finish(resume(cardId, approved, screenContext, context, trace));
+    }
+
+    private CompletableFuture<Void> resume(String cardId, boolean approved, Map<String, Object> screenContext,
+            CallContext context, TurnTiming.Trace sink) {
         Optional<PendingApproval> taken = approvals.take(cardId, context);
         if (taken.isEmpty()) {
             // Unknown, expired, already decided, or a different identity: all read the same.
             sink.emit(StreamEvent.error(ErrorCode.PERMISSION_DENIED,
                     "This confirmation is no longer valid. Please ask again.", false));
             sink.emit(StreamEvent.done(""));
-            return;
+            return ended();
         }
         PendingApproval approval = taken.get();
+        metrics.increment("copilot.approvals", "outcome", approved ? "approved" : "rejected");
+        if (approval.createdAt() != null) {
+            sink.add("approval_pause", Duration.between(approval.createdAt(), Instant.now()).toNanos());
+        }
         String fingerprint = context.fingerprint();
         String conversationId = approval.conversationId();
         LlmToolCall call = approval.toolCall();
@@ -90,39 +212,111 @@ public final class AgentLoop {
         if (!approved) {
             conversations.append(fingerprint, conversationId, toolResultMessage(call,
                     "{\"status\":\"cancelled\",\"detail\":\"The officer rejected this action. Nothing was executed.\"}"));
-            drive(conversationId, screenContext, context, sink);
-            return;
+            return drive(conversationId, screenContext, context, sink, Prefetch.NONE, 0);
         }
 
         ToolDefinition tool = manifest.find(call.name()).orElse(null);
         if (tool == null) {
             sink.emit(StreamEvent.error(ErrorCode.TOOL_FAILED, "Tool is no longer available.", false));
             sink.emit(StreamEvent.done(conversationId));
-            return;
+            return ended();
         }
         // The server-minted key from card creation goes to Fineract as Idempotency-Key:
         // a retry of this approval can never execute twice.
-        ExecStatus status = executeAndRecord(tool, call, context, approval.idempotencyKey(), conversationId,
-                fingerprint, sink);
-        if (status == ExecStatus.AUTH_FAILED) {
-            // Auth expired mid-decision: put the card back (same id, same idempotency key) so
-            // the officer's retry after re-login succeeds instead of dead-ending.
-            approvals.restore(approval);
-            return;
-        }
-        // Status line BEFORE the summary turn: if the LLM is unavailable or rate-limited for
-        // the summary, the officer must still see what happened. It must never say "Executed"
-        // for an action the core banking system rejected, which misleads on a money path.
-        if (status == ExecStatus.OK) {
-            sink.emit(StreamEvent.token("✔ Executed: " + approval.humanSummary() + "\n\n"));
-        } else {
-            sink.emit(StreamEvent.token("✖ Not completed: " + approval.humanSummary()
-                    + ". The banking system rejected it. Details follow.\n\n"));
+        return executeAndRecord(tool, call, context, approval.idempotencyKey(), conversationId, fingerprint, sink)
+                .thenCompose((status) -> {
+                    if (status == ExecStatus.AUTH_FAILED) {
+                        // Auth expired mid-decision: put the card back (same id, same idempotency
+                        // key) so the officer's retry after re-login succeeds instead of dead-ending.
+                        approvals.restore(approval);
+                        return ended();
+                    }
+                    // Status line BEFORE the summary turn: if the LLM is unavailable or rate-limited
+                    // for the summary, the officer must still see what happened. It must never say
+                    // "Executed" for an action the core banking system rejected, which misleads on a
+                    // money path.
+                    if (status == ExecStatus.OK) {
+                        sink.emit(StreamEvent.token("✔ Executed: " + approval.humanSummary() + "\n\n"));
+                    } else {
+                        sink.emit(StreamEvent.token("✖ Not completed: " + approval.humanSummary()
+                                + ". The banking system rejected it. Details follow.\n\n"));
+                    }
+                    if (sink.isCancelled()) {
+                        return ended();
+                    }
+                    return drive(conversationId, screenContext, context, sink, Prefetch.NONE, 0);
+                });
+    }
+
+    /** The blocking entry points wait here, and rethrow a fault as the loop raised it. */
+    private static void await(CompletableFuture<Void> turn) {
+        try {
+            turn.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            } else if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
         }
-        if (sink.isCancelled()) {
-            return;
+    }
+
+    /** In the blocking loop, waits for {@code step} here, so what follows it runs on this thread too. */
+    private <T> CompletableFuture<T> settled(CompletableFuture<T> step) {
+        if (waits && step != null) {
+            try {
+                step.join();
+            } catch (CompletionException | CancellationException e) {
+                // Not ours to handle: the step's failure reaches whatever is chained to it.
+            }
         }
-        drive(conversationId, screenContext, context, sink);
+        return step;
+    }
+
+    /** {@code llm} with its async call left at the default, which answers on the calling thread. */
+    private static LlmClient blockingLlm(LlmClient llm) {
+        return new LlmClient() {
+            @Override
+            public LlmResult complete(List<Map<String, Object>> messages, List<Map<String, Object>> tools,
+                    Consumer<String> onToken, BooleanSupplier cancelled) throws LlmException {
+                return llm.complete(messages, tools, onToken, cancelled);
+            }
+
+            @Override
+            public String model() {
+                return llm.model();
+            }
+        };
+    }
+
+    /** As {@link #blockingLlm}, for Fineract. */
+    private static ToolExecutor blockingExecutor(ToolExecutor executor) {
+        return new ToolExecutor() {
+            @Override
+            public String execute(ToolDefinition tool, Map<String, Object> args, CallContext context,
+                    String idempotencyKey) throws ToolExecutionException {
+                return executor.execute(tool, args, context, idempotencyKey);
+            }
+
+            @Override
+            public String businessDate(CallContext context) {
+                return executor.businessDate(context);
+            }
+
+            @Override
+            public Map<String, String> enrich(ToolDefinition tool, Map<String, Object> args, CallContext context) {
+                return executor.enrich(tool, args, context);
+            }
+        };
+    }
+
+    private static CompletableFuture<Void> ended() {
+        return CompletableFuture.completedFuture(null);
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
     }
 
     /** Outcome of one tool execution, as far as the officer is concerned. */
@@ -135,142 +329,289 @@ public final class AgentLoop {
         AUTH_FAILED
     }
 
-    /** The shared LLM<->tools cycle; ends with done, an action_card pause, or an error. */
-    private void drive(String conversationId, Map<String, Object> screenContext, CallContext context, EventSink sink) {
+    /**
+     * The shared LLM<->tools cycle from {@code round} on; ends with done, an action_card pause,
+     * or an error.
+     */
+    private CompletableFuture<Void> drive(String conversationId, Map<String, Object> screenContext,
+            CallContext context, TurnTiming.Trace sink, Prefetch prefetch, int round) {
+        if (round == MAX_TOOL_ROUNDS) {
+            sink.emit(StreamEvent.error(ErrorCode.TOOL_FAILED,
+                    "I could not finish this request within the allowed number of steps. Please rephrase it.", false));
+            sink.emit(StreamEvent.done(conversationId));
+            return ended();
+        }
         String fingerprint = context.fingerprint();
-        for (int round = 0; round < MAX_TOOL_ROUNDS; round++) {
-            LlmResult result;
-            try {
-                result = llm.complete(
-                        withSystemPrompt(screenContext, conversations.messages(fingerprint, conversationId), context),
-                        manifest.openAiSchemas(),
-                        (delta) -> sink.emit(StreamEvent.token(delta)),
-                        sink::isCancelled);
-            } catch (LlmException e) {
-                sink.emit(StreamEvent.error(
-                        e.isRateLimited() ? ErrorCode.RATE_LIMITED : ErrorCode.LLM_UNAVAILABLE,
-                        "The AI model is unavailable right now. Please try again shortly.", true));
-                sink.emit(StreamEvent.done(conversationId));
-                return;
+        sink.nextRound();
+        TurnTiming.Span lookup = sink.start("business_date", null);
+        return executor.businessDateAsync(context).thenCompose((today) -> {
+            lookup.end();
+            TurnTiming.Span model = sink.start("llm", null);
+            TurnTiming.Span firstToken = model.child("llm_first_token", null);
+            return llm.completeAsync(
+                            withSystemPrompt(screenContext, conversations.messages(fingerprint, conversationId), today),
+                            manifest.openAiSchemas(),
+                            (delta) -> {
+                                firstToken.end();
+                                sink.emit(StreamEvent.token(delta));
+                            },
+                            sink::isCancelled)
+                    .whenComplete((result, error) -> model.end())
+                    .handle((result, error) -> {
+                        if (error == null) {
+                            return answered(result, conversationId, screenContext, context, sink, prefetch, today,
+                                    round);
+                        }
+                        if (!(unwrap(error) instanceof LlmException e)) {
+                            return CompletableFuture.<Void>failedFuture(unwrap(error));
+                        }
+                        sink.emit(StreamEvent.error(
+                                e.isRateLimited() ? ErrorCode.RATE_LIMITED : ErrorCode.LLM_UNAVAILABLE,
+                                "The AI model is unavailable right now. Please try again shortly.", true));
+                        sink.emit(StreamEvent.done(conversationId));
+                        return ended();
+                    })
+                    .thenCompose((next) -> next);
+        });
+    }
+
+    /**
+     * One round's model answer: prose ends the turn, a tool batch runs and leads to the next round.
+     * {@code today} is the business date the round was asked with.
+     */
+    private CompletableFuture<Void> answered(LlmResult result, String conversationId,
+            Map<String, Object> screenContext, CallContext context, TurnTiming.Trace sink, Prefetch prefetch,
+            String today, int round) {
+        if (sink.isCancelled()) {
+            return ended(); // Stop is silent: nothing else may run after a cancel.
+        }
+        String fingerprint = context.fingerprint();
+        if (!result.text().isBlank()) {
+            conversations.append(fingerprint, conversationId,
+                    Map.of("role", "assistant", "content", result.text()));
+        }
+        if (!result.wantsTools()) {
+            sink.emit(StreamEvent.done(conversationId));
+            return ended();
+        }
+
+        conversations.append(fingerprint, conversationId, assistantToolCallMessage(result.toolCalls()));
+        return runBatch(result.toolCalls(), 0, conversationId, context, sink, prefetch, today)
+                .thenCompose((more) -> more
+                        ? drive(conversationId, screenContext, context, sink, prefetch, round + 1) : ended());
+    }
+
+    /**
+     * The calls of one batch from {@code from} on.
+     *
+     * @return true when every call has a result and the model should see them; false when the
+     *     turn has ended or paused on a write
+     */
+    private CompletableFuture<Boolean> runBatch(List<LlmToolCall> batch, int from, String conversationId,
+            CallContext context, TurnTiming.Trace sink, Prefetch prefetch, String today) {
+        String fingerprint = context.fingerprint();
+        int i = from;
+        while (i < batch.size()) {
+            // Consecutive reads run together; a write still stops the batch where it stands.
+            int end = i;
+            while (end < batch.size() && !isWrite(batch.get(end))) {
+                end++;
             }
-            if (sink.isCancelled()) {
-                return; // Stop is silent: nothing else may run after a cancel.
+            if (end > i) {
+                int next = end;
+                return executeReads(batch.subList(i, end), context, conversationId, fingerprint, sink, prefetch)
+                        .thenCompose((live) -> {
+                            if (live) {
+                                return runBatch(batch, next, conversationId, context, sink, prefetch, today);
+                            }
+                            // Auth expired or cancelled. The calls after these never run, but the
+                            // history still needs a result for each of them.
+                            for (LlmToolCall skipped : batch.subList(next, batch.size())) {
+                                conversations.append(fingerprint, conversationId, toolResultMessage(skipped,
+                                        "{\"status\":\"not_executed\",\"detail\":\"The turn ended before this"
+                                                + " call ran. Ask again if still needed.\"}"));
+                            }
+                            return CompletableFuture.completedFuture(false);
+                        });
             }
-
-            if (!result.text().isBlank()) {
-                conversations.append(fingerprint, conversationId,
-                        Map.of("role", "assistant", "content", result.text()));
+            LlmToolCall call = batch.get(i);
+            ToolDefinition tool = manifest.find(call.name()).orElseThrow();
+            // Card/execution fidelity: an arg the model invented beyond the declared
+            // params would show on the card yet never reach the request body. Refuse
+            // the call so the model retries with only declared arguments, because what the
+            // officer approves must be exactly what executes.
+            List<String> undeclared = undeclaredArguments(tool, call);
+            if (!undeclared.isEmpty()) {
+                conversations.append(fingerprint, conversationId, toolResultMessage(call,
+                        "{\"error\":\"Unknown argument(s) " + undeclared
+                                + " for this tool. Retry using only the declared parameters.\"}"));
+                i++;
+                continue;
             }
-            if (!result.wantsTools()) {
-                sink.emit(StreamEvent.done(conversationId));
-                return;
+            int paused = i;
+            // Read the account, product and client first, so the officer confirms
+            // against names rather than identifiers.
+            TurnTiming.Span lookups = sink.start("enrich", tool.name());
+            return executor.enrichAsync(tool, call.arguments(), context).thenApply((enriched) -> {
+                lookups.end();
+                PendingApproval approval = approvals.create(conversationId, call,
+                        summaryFor(tool, call, enriched), context);
+                metrics.increment("copilot.approvals", "outcome", "created");
+                // OpenAI-style history requires a tool result for EVERY id in the assistant's
+                // tool_calls message. The paused call gets its result on resume; any siblings
+                // after it are marked not-executed NOW so the next LLM turn stays valid.
+                for (int j = paused + 1; j < batch.size(); j++) {
+                    conversations.append(fingerprint, conversationId, toolResultMessage(batch.get(j),
+                            "{\"status\":\"not_executed\",\"detail\":\"Deferred: an earlier action in this"
+                                    + " turn required officer confirmation. Ask again if still needed.\"}"));
+                }
+                sink.emit(StreamEvent.actionCard(
+                        approval.cardId(), tool.name(), call.arguments(), approval.humanSummary(),
+                        approval.idempotencyKey(), approval.expiresAt().toString(),
+                        cardRows(tool, call, enriched, today)));
+                return false; // Paused: no done event; the decision endpoint continues this turn.
+            });
+        }
+        return CompletableFuture.completedFuture(true);
+    }
+
+    private boolean isWrite(LlmToolCall call) {
+        return manifest.find(call.name()).map(ToolDefinition::write).orElse(false);
+    }
+
+    /**
+     * A run of reads from one batch, executed side by side and recorded in the model's own
+     * tool_call order, so the history stays valid however the calls finish.
+     *
+     * @return false when the turn has ended (session expired or the officer cancelled)
+     */
+    private CompletableFuture<Boolean> executeReads(List<LlmToolCall> calls, CallContext context,
+            String conversationId, String fingerprint, TurnTiming.Trace sink, Prefetch prefetch) {
+        List<Supplier<CompletableFuture<Executed>>> tasks = new ArrayList<>(calls.size());
+        for (LlmToolCall call : calls) {
+            ToolDefinition tool = manifest.find(call.name()).orElse(null);
+            if (tool == null) {
+                tasks.add(() -> CompletableFuture.completedFuture(null));
+                continue;
             }
+            sink.emit(StreamEvent.toolCall(tool.name(), "started", true, -1));
+            tasks.add(() -> execute(tool, call, context, null, sink, prefetch));
+        }
+        return settled(fanOut.invokeAllAsync(fingerprint, tasks))
+                .thenApply((results) -> recordReads(calls, results, conversationId, fingerprint, sink));
+    }
 
-            conversations.append(fingerprint, conversationId, assistantToolCallMessage(result.toolCalls()));
-            List<LlmToolCall> batch = result.toolCalls();
-            for (int i = 0; i < batch.size(); i++) {
-                LlmToolCall call = batch.get(i);
-                ToolDefinition tool = manifest.find(call.name()).orElse(null);
-                if (tool == null) {
-                    // Default-deny: the model asked for something outside the manifest.
-                    conversations.append(fingerprint, conversationId, toolResultMessage(call,
-                            "{\"error\":\"Tool '" + call.name() + "' is not available.\"}"));
-                    continue;
-                }
-                if (tool.write()) {
-                    // Card/execution fidelity: an arg the model invented beyond the declared
-                    // params would show on the card yet never reach the request body. Refuse
-                    // the call so the model retries with only declared arguments, because what the
-                    // officer approves must be exactly what executes.
-                    List<String> undeclared = undeclaredArguments(tool, call);
-                    if (!undeclared.isEmpty()) {
-                        conversations.append(fingerprint, conversationId, toolResultMessage(call,
-                                "{\"error\":\"Unknown argument(s) " + undeclared
-                                        + " for this tool. Retry using only the declared parameters.\"}"));
-                        continue;
-                    }
-                    // Read the account, product and client first, so the officer confirms
-                    // against names rather than identifiers.
-                    Map<String, String> enriched = executor.enrich(tool, call.arguments(), context);
-                    PendingApproval approval = approvals.create(conversationId, call,
-                            summaryFor(tool, call, enriched), context);
-                    // OpenAI-style history requires a tool result for EVERY id in the assistant's
-                    // tool_calls message. The paused call gets its result on resume; any siblings
-                    // after it are marked not-executed NOW so the next LLM turn stays valid.
-                    for (int j = i + 1; j < batch.size(); j++) {
-                        conversations.append(fingerprint, conversationId, toolResultMessage(batch.get(j),
-                                "{\"status\":\"not_executed\",\"detail\":\"Deferred: an earlier action in this"
-                                        + " turn required officer confirmation. Ask again if still needed.\"}"));
-                    }
-                    sink.emit(StreamEvent.actionCard(
-                            approval.cardId(), tool.name(), call.arguments(), approval.humanSummary(),
-                            approval.idempotencyKey(), approval.expiresAt().toString(),
-                            cardRows(tool, call, enriched, context)));
-                    return; // Paused: no done event; the decision endpoint continues this turn.
-                }
-                if (executeAndRecord(tool, call, context, null, conversationId, fingerprint, sink)
-                        == ExecStatus.AUTH_FAILED) {
-                    return; // Auth expired, so the turn already ended with AUTH_EXPIRED + done.
-                }
-                if (sink.isCancelled()) {
-                    return;
-                }
+    /**
+     * Every read gets its result and its {@code finished} event, the ones whose session had
+     * expired included, before a turn that lost its session ends with AUTH_EXPIRED.
+     */
+    private boolean recordReads(List<LlmToolCall> calls, List<Executed> results, String conversationId,
+            String fingerprint, EventSink sink) {
+        boolean authFailed = false;
+        for (int i = 0; i < calls.size(); i++) {
+            LlmToolCall call = calls.get(i);
+            Executed executed = results.get(i);
+            if (executed == null) {
+                // Default-deny: the model asked for something outside the manifest.
+                conversations.append(fingerprint, conversationId, toolResultMessage(call,
+                        "{\"error\":\"Tool '" + call.name() + "' is not available.\"}"));
+            } else if (executed.authFailed()) {
+                authFailed = true;
+                sink.emit(StreamEvent.toolCall(executed.tool().name(), "finished", true, executed.durationMs()));
+                conversations.append(fingerprint, conversationId, toolResultMessage(call,
+                        "{\"status\":\"not_executed\",\"detail\":\"The officer's session expired before this"
+                                + " call ran. Ask again if still needed.\"}"));
+            } else {
+                record(executed, call, conversationId, fingerprint, sink);
             }
         }
-        sink.emit(StreamEvent.error(ErrorCode.TOOL_FAILED,
-                "I could not finish this request within the allowed number of steps. Please rephrase it.", false));
-        sink.emit(StreamEvent.done(conversationId));
+        if (authFailed) {
+            sessionExpired(conversationId, sink);
+            return false;
+        }
+        return !sink.isCancelled();
     }
 
-    private ExecStatus executeAndRecord(ToolDefinition tool, LlmToolCall call, CallContext context,
-            String idempotencyKey, String conversationId, String fingerprint, EventSink sink) {
+    /** One finished Fineract call: its parsed outcome, or the fact that the session expired. */
+    private record Executed(ToolDefinition tool, ToolOutcome outcome, boolean authFailed, long durationMs) {}
+
+    private CompletableFuture<ExecStatus> executeAndRecord(ToolDefinition tool, LlmToolCall call,
+            CallContext context, String idempotencyKey, String conversationId, String fingerprint,
+            TurnTiming.Trace sink) {
         sink.emit(StreamEvent.toolCall(tool.name(), "started", !tool.write(), -1));
+        return execute(tool, call, context, idempotencyKey, sink, Prefetch.NONE)
+                .thenApply((executed) -> record(executed, call, conversationId, fingerprint, sink));
+    }
+
+    /**
+     * Runs the call only; touches neither the sink nor the conversation, so it may finish on any thread.
+     * A read the turn already prefetched is taken from there; if that one failed, the call is made
+     * afresh rather than reporting a failure the model's own call might not have met.
+     */
+    private CompletableFuture<Executed> execute(ToolDefinition tool, LlmToolCall call, CallContext context,
+            String idempotencyKey, TurnTiming.Trace trace, Prefetch prefetch) {
         long startedAt = System.currentTimeMillis();
-        String outcome;
-        try {
-            outcome = executor.execute(tool, call.arguments(), context, idempotencyKey);
-        } catch (ToolExecutionException e) {
+        TurnTiming.Span span = trace.start("tool", tool.name());
+        CompletableFuture<String> prefetched = settled(prefetch.take(tool, call.arguments()));
+        CompletableFuture<String> answer = prefetched == null
+                ? executor.executeAsync(tool, call.arguments(), context, idempotencyKey)
+                : prefetched.exceptionallyCompose(
+                        (error) -> executor.executeAsync(tool, call.arguments(), context, idempotencyKey));
+        return answer.handle((body, error) -> {
+            span.end();
+            long elapsed = System.currentTimeMillis() - startedAt;
+            if (error == null) {
+                // Parsed here, once, so the finishing thread pays for it and the recorder only reads.
+                return new Executed(tool, ToolOutcome.of(body), false, elapsed);
+            }
+            if (!(unwrap(error) instanceof ToolExecutionException e)) {
+                throw error instanceof CompletionException completion ? completion : new CompletionException(error);
+            }
             if (e.isAuthFailure()) {
-                sink.emit(StreamEvent.error(ErrorCode.AUTH_EXPIRED,
-                        "Your session expired. Please sign in again and retry.", true));
-                sink.emit(StreamEvent.done(conversationId));
-                return ExecStatus.AUTH_FAILED;
+                return new Executed(tool, null, true, elapsed);
             } else if (e.isPermissionFailure()) {
-                outcome = "{\"error\":\"Your Mifos X role does not permit this operation.\"}";
-            } else {
-                outcome = "{\"error\":" + jsonQuote(e.getMessage()) + "}";
+                return new Executed(tool, ToolOutcome.failure("Your Mifos X role does not permit this operation."),
+                        false, elapsed);
             }
+            return new Executed(tool, ToolOutcome.failure(e.getMessage()), false, elapsed);
+        });
+    }
+
+    private ExecStatus record(Executed executed, LlmToolCall call, String conversationId, String fingerprint,
+            EventSink sink) {
+        ToolDefinition tool = executed.tool();
+        if (executed.authFailed()) {
+            sessionExpired(conversationId, sink);
+            return ExecStatus.AUTH_FAILED;
         }
-        sink.emit(StreamEvent.toolCall(tool.name(), "finished", !tool.write(), System.currentTimeMillis() - startedAt));
-        conversations.append(fingerprint, conversationId, toolResultMessage(call, outcome));
+        ToolOutcome outcome = executed.outcome();
+        sink.emit(StreamEvent.toolCall(tool.name(), "finished", !tool.write(), executed.durationMs()));
+        conversations.append(fingerprint, conversationId, toolResultMessage(call, outcome.body()));
         emitNavigationCard(tool, call, outcome, sink);
-        return isErrorOutcome(outcome) ? ExecStatus.APP_ERROR : ExecStatus.OK;
+        // Non-JSON tool output counts as success; the model interprets it.
+        return outcome.isError() ? ExecStatus.APP_ERROR : ExecStatus.OK;
     }
 
-    private boolean isErrorOutcome(String outcome) {
-        try {
-            return new com.fasterxml.jackson.databind.ObjectMapper().readTree(outcome).has("error");
-        } catch (Exception e) {
-            return false; // Non-JSON tool output counts as success; the model interprets it.
-        }
+    private static void sessionExpired(String conversationId, EventSink sink) {
+        sink.emit(StreamEvent.error(ErrorCode.AUTH_EXPIRED,
+                "Your session expired. Please sign in again and retry.", true));
+        sink.emit(StreamEvent.done(conversationId));
     }
 
     /**
      * After a successful create, give the officer a one-click path to the new record:
      * a display card with a route button into the web-app (never an approval card).
      */
-    private void emitNavigationCard(ToolDefinition tool, LlmToolCall call, String outcome, EventSink sink) {
+    private void emitNavigationCard(ToolDefinition tool, LlmToolCall call, ToolOutcome result, EventSink sink) {
         try {
-            com.fasterxml.jackson.databind.JsonNode result = new com.fasterxml.jackson.databind.ObjectMapper()
-                    .readTree(outcome);
-            boolean failed = result.has("error");
+            boolean failed = result.isError();
             // Ids come from the Fineract response when it succeeded, from the call's own
             // arguments otherwise, so even a FAILED action offers a "go check directly" link.
-            long clientId = result.path("clientId").asLong(argAsLong(call, "clientId"));
-            long loanId = result.path("loanId").asLong(argAsLong(call, "loanId"));
+            long clientId = result.clientId(argAsLong(call, "clientId"));
+            long loanId = result.loanId(argAsLong(call, "loanId"));
             switch (tool.name()) {
                 case "mifos_client_create" -> {
-                    long id = result.path("clientId").asLong(result.path("resourceId").asLong(0));
+                    long id = result.clientId(result.resourceId(0));
                     if (!failed && id > 0) {
                         sink.emit(StreamEvent.displayCard("client", "Client created",
                                 Map.of("Client ID", String.valueOf(id)),
@@ -327,7 +668,7 @@ public final class AgentLoop {
      * Identifiers are left out, since the enrichment already names the account and product.
      */
     private Map<String, String> cardRows(ToolDefinition tool, LlmToolCall call, Map<String, String> enriched,
-            CallContext context) {
+            String today) {
         Map<String, String> rows = new LinkedHashMap<>(enriched);
         // The enrichment reports the currency of the record being changed, so the amount the
         // officer approves is denominated the same way as the account it lands on.
@@ -349,7 +690,7 @@ public final class AgentLoop {
                     // Leave it as the model supplied it rather than hiding the value.
                 }
             } else if (param.isDate()) {
-                value = Display.date(value, executor.businessDate(context));
+                value = Display.date(value, today);
             }
             rows.put(param.displayLabel(), value);
         }
@@ -435,15 +776,18 @@ public final class AgentLoop {
     }
 
     private List<Map<String, Object>> withSystemPrompt(Map<String, Object> screenContext,
-            List<Map<String, Object>> history, CallContext context) {
+            List<Map<String, Object>> history, String today) {
         List<Map<String, Object>> messages = new ArrayList<>();
+        // Providers cache the longest prefix they have seen before. The rules go first and are
+        // always the same instance; the history only ever grows at its end; the date and screen
+        // come last, so the one part that changes between rounds never breaks that prefix. A
+        // client for a chat template that takes one system message folds the two back together.
+        messages.add(SystemPrompt.RULES_MESSAGE);
+        messages.addAll(HistoryWindow.fit(history, historyTokens));
         // The model must date commands from the CORE BANKING business date, which can differ
         // from this host's clock; Fineract rejects anything dated in its future.
         messages.add(Map.of("role", "system",
-                "content", SystemPrompt.build(screenContext, executor.businessDate(context))));
-        synchronized (history) {
-            messages.addAll(history);
-        }
+                "content", SystemPrompt.turnContext(screenContext, today)));
         return messages;
     }
 
@@ -469,17 +813,9 @@ public final class AgentLoop {
 
     private String encodeArguments(Map<String, Object> arguments) {
         try {
-            return new com.fasterxml.jackson.databind.ObjectMapper().writeValueAsString(arguments);
-        } catch (com.fasterxml.jackson.core.JsonProcessingException e) {
+            return JSON.writeValueAsString(arguments);
+        } catch (JsonProcessingException e) {
             return "{}";
         }
     }
-
-    private String jsonQuote(String value) {
-        try {
-            return new com.fasterxml.jackson.databind.ObjectMapper().writeValueAsString(value == null ? "" : value);
-        } catch (com.fasterxml.jackson.core.JsonProcessingException e) {
-            return "\"tool failed\"";
-        }
-    }
 }
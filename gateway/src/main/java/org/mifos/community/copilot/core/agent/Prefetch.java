@@ -0,0 +1,154 @@
+/**
+ * Copyright since 2026 Mifos Initiative
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file, You can obtain one at
+ * http://mozilla.org/MPL/2.0/.
+ */
+package org.mifos.community.copilot.core.agent;
+
+import org.mifos.community.copilot.core.auth.CallContext;
+import org.mifos.community.copilot.core.metrics.Metrics;
+import org.mifos.community.copilot.core.tools.ToolDefinition;
+import org.mifos.community.copilot.core.tools.ToolExecutor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * One turn's speculative reads. An officer asking about the client or loan on their screen is
+ * almost always answered by the model first reading that record, so the reads the manifest marks
+ * {@code prefetch} are started from the screen's ids while the first round is still with the
+ * model, with the officer's own credential like any other call. They go through the same
+ * {@link ToolFanOut} as the model's reads, so they count against the same caps.
+ *
+ * <p>When the model asks for exactly one of those calls, same tool and same arguments, it is
+ * handed the read already under way instead of a new one; each is handed out once. Whatever the
+ * model never asked for is dropped with the turn. Both count as {@code copilot.prefetch}, tagged
+ * by tool and by result, {@code hit} or {@code unused}, which is whether speculation pays.
+ */
+final class Prefetch {
+
+    /** A turn with nothing prefetched. */
+    static final Prefetch NONE = new Prefetch(Map.of(), Metrics.NOOP);
+
+    private record Started(String tool, CompletableFuture<String> result) {}
+
+    /** call key -> the read started for it */
+    private final Map<String, Started> started;
+    private final Metrics metrics;
+
+    private Prefetch(Map<String, Started> started, Metrics metrics) {
+        this.started = started;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Starts every read in {@code tools} whose required parameters the screen names; a turn
+     * whose screen names none of them starts nothing. A read the fan-out holds back for a slot
+     * is handed out all the same, and answers once it has run.
+     */
+    static Prefetch start(List<ToolDefinition> tools, Map<String, Object> screenContext, ToolExecutor executor,
+            ToolFanOut fanOut, CallContext context, TurnTiming.Trace trace, Metrics metrics) {
+        if (tools.isEmpty() || screenContext == null || screenContext.isEmpty()) {
+            return NONE;
+        }
+        Map<String, Started> started = new ConcurrentHashMap<>();
+        List<Supplier<CompletableFuture<String>>> reads = new ArrayList<>();
+        for (ToolDefinition tool : tools) {
+            Map<String, Object> args = argumentsFrom(tool, screenContext);
+            if (args == null) {
+                continue;
+            }
+            CompletableFuture<String> result = new CompletableFuture<>();
+            TurnTiming.Span span = trace.start("prefetch", tool.name());
+            reads.add(() -> executor.executeAsync(tool, args, context, null).whenComplete((body, error) -> {
+                span.end();
+                if (error == null) {
+                    result.complete(body);
+                } else {
+                    result.completeExceptionally(error);
+                }
+            }));
+            started.put(key(tool.name(), args), new Started(tool.name(), result));
+        }
+        if (started.isEmpty()) {
+            return NONE;
+        }
+        fanOut.invokeAllAsync(context.fingerprint(), reads);
+        return new Prefetch(started, metrics);
+    }
+
+    /** The read started for this very call, handed out once; null when there is none. */
+    CompletableFuture<String> take(ToolDefinition tool, Map<String, Object> args) {
+        if (started.isEmpty()) {
+            return null;
+        }
+        Started hit = started.remove(key(tool.name(), args));
+        if (hit == null) {
+            return null;
+        }
+        metrics.increment("copilot.prefetch", "tool", hit.tool(), "result", "hit");
+        return hit.result();
+    }
+
+    /** Counts the reads the model never asked for; called once the turn is over. */
+    void finish() {
+        for (String key : started.keySet()) {
+            Started unused = started.remove(key);
+            if (unused != null) {
+                metrics.increment("copilot.prefetch", "tool", unused.tool(), "result", "unused");
+            }
+        }
+    }
+
+    /**
+     * The call the screen implies: every required parameter taken from the screen context, or
+     * null when one is missing. An integer parameter must be all digits, so a malformed id from
+     * the web-app never reaches Fineract on the officer's behalf.
+     */
+    private static Map<String, Object> argumentsFrom(ToolDefinition tool, Map<String, Object> screenContext) {
+        Map<String, Object> args = new TreeMap<>();
+        for (ToolDefinition.Param param : tool.params() == null ? List.<ToolDefinition.Param>of() : tool.params()) {
+            if (!param.required()) {
+                continue;
+            }
+            String value = normalized(screenContext.get(param.name()));
+            if (value == null) {
+                return null;
+            }
+            if ("integer".equals(param.type())) {
+                if (!value.matches("\\d{1,18}")) {
+                    return null;
+                }
+                args.put(param.name(), Long.parseLong(value));
+            } else {
+                args.put(param.name(), value);
+            }
+        }
+        return args.isEmpty() ? null : args;
+    }
+
+    /** Tool and arguments, with {@code 42}, {@code 42.0} and {@code "42"} all alike. */
+    private static String key(String tool, Map<String, Object> args) {
+        StringBuilder key = new StringBuilder(tool);
+        if (args != null) {
+            new TreeMap<>(args).forEach((name, value) -> key.append('\n').append(name).append('=')
+                    .append(normalized(value)));
+        }
+        return key.toString();
+    }
+
+    private static String normalized(Object value) {
+        if (value instanceof Number number && number.doubleValue() == number.longValue()) {
+            return String.valueOf(number.longValue());
+        }
+        String text = value == null ? "" : String.valueOf(value).trim();
+        return text.isEmpty() ? null : text;
+    }
+}
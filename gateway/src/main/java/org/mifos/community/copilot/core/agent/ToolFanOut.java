@@ -0,0 +1,139 @@
+/**
+ * Copyright since 2026 Mifos Initiative
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file, You can obtain one at
+ * http://mozilla.org/MPL/2.0/.
+ */
+package org.mifos.community.copilot.core.agent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Runs the read calls of one model batch side by side, so a turn that asks for a client, their
+ * accounts and a loan waits for the slowest Fineract round-trip rather than for the sum of all
+ * three.
+ *
+ * <p>Bounded twice: gateway-wide, so a busy branch cannot open unbounded connections to
+ * Fineract, and per officer, so one officer's wide batch cannot take every slot. A call that
+ * finds no free slot is not queued behind strangers: the overflow runs one call after another,
+ * the first on the thread that asked and each later one on whichever thread finished the one
+ * before it, such as the HTTP client's. Results always come back in the order the tasks were
+ * given.
+ */
+public final class ToolFanOut implements AutoCloseable {
+
+    private final ExecutorService workers;
+    private final boolean ownsWorkers;
+    private final Semaphore global;
+    private final int perOfficer;
+    /** fingerprint -> calls in flight; entries are removed again when they reach zero. */
+    private final Map<String, AtomicInteger> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * @param maxConcurrent gateway-wide cap on reads in flight; zero or less means no fan-out
+     * @param maxConcurrentPerOfficer cap on one officer's reads in flight, across their turns
+     */
+    public ToolFanOut(int maxConcurrent, int maxConcurrentPerOfficer) {
+        this(maxConcurrent, maxConcurrentPerOfficer, maxConcurrent > 0 ? Executors.newCachedThreadPool(
+                Thread.ofPlatform().name("copilot-tools-", 0).daemon(true).factory()) : null, true);
+    }
+
+    /** As above, but on a caller-supplied executor which the caller keeps ownership of. */
+    public ToolFanOut(int maxConcurrent, int maxConcurrentPerOfficer, ExecutorService workers) {
+        this(maxConcurrent, maxConcurrentPerOfficer, workers, false);
+    }
+
+    private ToolFanOut(int maxConcurrent, int maxConcurrentPerOfficer, ExecutorService workers, boolean ownsWorkers) {
+        this.workers = workers;
+        this.ownsWorkers = ownsWorkers;
+        this.global = new Semaphore(Math.max(0, maxConcurrent));
+        this.perOfficer = Math.max(0, maxConcurrentPerOfficer);
+    }
+
+    /** As the first constructor, but each read gets a virtual thread of its own. */
+    public static ToolFanOut onVirtualThreads(int maxConcurrent, int maxConcurrentPerOfficer) {
+        return new ToolFanOut(maxConcurrent, maxConcurrentPerOfficer, maxConcurrent > 0
+                ? Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("copilot-tools-", 0).factory())
+                : null, true);
+    }
+
+    /** Every call one after another, with no worker threads: the behaviour before fan-out. */
+    public static ToolFanOut sequential() {
+        return new ToolFanOut(0, 0, null, false);
+    }
+
+    /**
+     * Run every task and complete with their results in the order given. Tasks start work and
+     * return without waiting for it, and must not throw; the agent loop captures failures into
+     * the result it hands back. A task granted a slot is started on a worker, which is held
+     * only as long as the task takes to return, and keeps the slot until its future completes.
+     * The rest are started one after another, the first on this thread and each later one once
+     * the previous has finished, so the caps hold for non-blocking calls too.
+     */
+    public <T> CompletableFuture<List<T>> invokeAllAsync(String fingerprint, List<Supplier<CompletableFuture<T>>> tasks) {
+        List<CompletableFuture<T>> results = new ArrayList<>(tasks.size());
+        List<Integer> inline = new ArrayList<>();
+        for (int i = 0; i < tasks.size(); i++) {
+            // A lone call gains nothing from a hand-off to another thread.
+            if (tasks.size() > 1 && workers != null && acquire(fingerprint)) {
+                results.add(CompletableFuture.supplyAsync(tasks.get(i), workers)
+                        .thenCompose((started) -> started)
+                        .whenComplete((value, error) -> release(fingerprint)));
+            } else {
+                results.add(null);
+                inline.add(i);
+            }
+        }
+        // Overflow runs here while the hand-offs are in flight, so it still overlaps with them.
+        CompletableFuture<?> previous = CompletableFuture.completedFuture(null);
+        for (int i : inline) {
+            Supplier<CompletableFuture<T>> task = tasks.get(i);
+            CompletableFuture<T> result = previous.handle((value, error) -> task.get()).thenCompose((started) -> started);
+            results.set(i, result);
+            previous = result;
+        }
+        return CompletableFuture.allOf(results.toArray(CompletableFuture[]::new))
+                .thenApply((done) -> results.stream().map(CompletableFuture::join).toList());
+    }
+
+    private boolean acquire(String fingerprint) {
+        if (!global.tryAcquire()) {
+            return false;
+        }
+        boolean[] granted = { false };
+        inFlight.compute(fingerprint, (key, count) -> {
+            AtomicInteger current = count == null ? new AtomicInteger() : count;
+            if (current.get() < perOfficer) {
+                current.incrementAndGet();
+                granted[0] = true;
+            }
+            return current.get() == 0 ? null : current;
+        });
+        if (!granted[0]) {
+            global.release();
+        }
+        return granted[0];
+    }
+
+    private void release(String fingerprint) {
+        inFlight.computeIfPresent(fingerprint, (key, count) -> count.decrementAndGet() == 0 ? null : count);
+        global.release();
+    }
+
+    @Override
+    public void close() {
+        if (ownsWorkers && workers != null) {
+            workers.shutdown();
+        }
+    }
+}
@@ -0,0 +1,120 @@
+/**
+ * Copyright since 2026 Mifos Initiative
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file, You can obtain one at
+ * http://mozilla.org/MPL/2.0/.
+ */
+package org.mifos.community.copilot.core.agent;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+
+import java.io.IOException;
+
+/**
+ * One tool result, read once. The body goes to the model verbatim; the few top-level facts
+ * the loop acts on (did Fineract refuse it, which client and loan it names) are picked out in a
+ * single streaming pass that never builds a tree, so an 8 KB loan schedule costs one scan rather
+ * than two full parses.
+ *
+ * <p>Non-JSON bodies are successes with no ids, exactly as before: the model interprets them.
+ */
+public final class ToolOutcome {
+
+    private static final JsonFactory JSON = new JsonFactory();
+
+    private final String body;
+    private final boolean error;
+    private final Long clientId;
+    private final Long loanId;
+    private final Long resourceId;
+
+    private ToolOutcome(String body, boolean error, Long clientId, Long loanId, Long resourceId) {
+        this.body = body;
+        this.error = error;
+        this.clientId = clientId;
+        this.loanId = loanId;
+        this.resourceId = resourceId;
+    }
+
+    /** Reads the top level of {@code body}; nested objects and arrays are skipped unread. */
+    public static ToolOutcome of(String body) {
+        boolean error = false;
+        Long clientId = null;
+        Long loanId = null;
+        Long resourceId = null;
+        try (JsonParser parser = JSON.createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return new ToolOutcome(body, false, null, null, null);
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                parser.nextToken();
+                switch (field) {
+                    case "error" -> error = true;
+                    case "clientId" -> clientId = asLong(parser);
+                    case "loanId" -> loanId = asLong(parser);
+                    case "resourceId" -> resourceId = asLong(parser);
+                    default -> {
+                        // Not needed by the loop.
+                    }
+                }
+                parser.skipChildren();
+            }
+        } catch (IOException e) {
+            return new ToolOutcome(body, false, null, null, null);
+        }
+        return new ToolOutcome(body, error, clientId, loanId, resourceId);
+    }
+
+    /** A failure the loop reports to the model itself, as {@code {"error":"..."}}. */
+    public static ToolOutcome failure(String message) {
+        String quoted = new String(JsonStringEncoder.getInstance().quoteAsString(message == null ? "" : message));
+        return new ToolOutcome("{\"error\":\"" + quoted + "\"}", true, null, null, null);
+    }
+
+    /** What the model reads. */
+    public String body() {
+        return body;
+    }
+
+    /** True when the body is a JSON object with a top-level {@code error}. */
+    public boolean isError() {
+        return error;
+    }
+
+    public long clientId(long fallback) {
+        return clientId == null ? fallback : clientId;
+    }
+
+    public long loanId(long fallback) {
+        return loanId == null ? fallback : loanId;
+    }
+
+    public long resourceId(long fallback) {
+        return resourceId == null ? fallback : resourceId;
+    }
+
+    /**
+     * The same leniency {@code JsonNode.asLong} had: numbers and numeric strings count, null is
+     * zero, and anything else (a nested object, a word) falls back to the caller's value.
+     */
+    private static Long asLong(JsonParser parser) throws IOException {
+        return switch (parser.currentToken()) {
+            case VALUE_NUMBER_INT, VALUE_NUMBER_FLOAT -> parser.getValueAsLong();
+            case VALUE_NULL, VALUE_FALSE -> 0L;
+            case VALUE_TRUE -> 1L;
+            case VALUE_STRING -> {
+                try {
+                    yield Long.parseLong(parser.getText().trim());
+                } catch (NumberFormatException e) {
+                    yield null;
+                }
+            }
+            default -> null;
+        };
+    }
+}
@@ -0,0 +1,194 @@
+/**
+ * Copyright since 2026 Mifos Initiative
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file, You can obtain one at
+ * http://mozilla.org/MPL/2.0/.
+ */
+package org.mifos.community.copilot.core.agent;
+
+import org.mifos.community.copilot.core.auth.CallContext;
+import org.mifos.community.copilot.core.contract.StreamEvent;
+import org.mifos.community.copilot.core.metrics.Metrics;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Where a turn's time goes, as a tree: the turn, its rounds, and in each round the business-date
+ * lookup, the model call (with its first token) and every tool call and card lookup. Approval
+ * pauses and the time spent handing events to the stream are added on top.
+ *
+ * <p>When a turn ends each part is reported as {@code copilot.turn.phase}, tagged by phase, tool,
+ * tenant and model, and the whole as {@code copilot.turn.duration}, tagged by tenant, model and
+ * kind ({@code chat} or {@code decision}). With {@code emitEvents} the tree also goes to the
+ * web-app as a {@code timing} event just before {@code done}, or as the last event of a turn that
+ * paused on a card.
+ */
+final class TurnTiming {
+
+    private final Metrics metrics;
+    private final boolean emitEvents;
+
+    /**
+     * @param emitEvents whether the web-app is sent a {@code timing} event per turn
+     */
+    TurnTiming(Metrics metrics, boolean emitEvents) {
+        this.metrics = metrics;
+        this.emitEvents = emitEvents;
+    }
+
+    /** Starts timing one turn; {@code sink} is where the turn's events go. */
+    Trace start(String kind, CallContext context, String model, EventSink sink) {
+        return new Trace(kind, context.tenantId() == null ? "default" : context.tenantId(),
+                model == null ? "unknown" : model, sink);
+    }
+
+    /** One timed part of a turn; parts of one round may run side by side, so children are concurrent. */
+    static final class Span {
+        final String phase;
+        final String tool;
+        final long startedAt;
+        final Queue<Span> children = new ConcurrentLinkedQueue<>();
+        volatile long nanos = -1;
+
+        Span(String phase, String tool, long startedAt) {
+            this.phase = phase;
+            this.tool = tool;
+            this.startedAt = startedAt;
+        }
+
+        /** A part of this one, started now. */
+        Span child(String phase, String tool) {
+            Span child = new Span(phase, tool, System.nanoTime());
+            children.add(child);
+            return child;
+        }
+
+        /** Ends this part now; the first end counts. */
+        void end() {
+            if (nanos < 0) {
+                nanos = System.nanoTime() - startedAt;
+            }
+        }
+
+        /** This part and the ones under it that ended; a first token that never came is left out. */
+        Map<String, Object> toEvent() {
+            Map<String, Object> data = new LinkedHashMap<>();
+            data.put("phase", phase);
+            if (tool != null) {
+                data.put("tool", tool);
+            }
+            data.put("ms", nanos / 1_000_000.0);
+            List<Map<String, Object>> parts = new ArrayList<>();
+            for (Span child : children) {
+                if (child.nanos >= 0) {
+                    parts.add(child.toEvent());
+                }
+            }
+            if (!parts.isEmpty()) {
+                data.put("parts", parts);
+            }
+            return data;
+        }
+    }
+
+    /**
+     * One turn's timings, and the sink its events go through: the stream's own time is counted
+     * here, and the {@code timing} event slotted in ahead of {@code done}.
+     */
+    final class Trace implements EventSink {
+        private final String kind;
+        private final String tenant;
+        private final String model;
+        private final EventSink sink;
+        private final Span turn;
+        private final AtomicLong emitNanos = new AtomicLong();
+        private final AtomicBoolean reported = new AtomicBoolean();
+        private volatile Span round;
+
+        Trace(String kind, String tenant, String model, EventSink sink) {
+            this.kind = kind;
+            this.tenant = tenant;
+            this.model = model;
+            this.sink = sink;
+            this.turn = new Span("turn", null, System.nanoTime());
+            this.round = turn;
+        }
+
+        /** Ends the round before, if any, and starts the next; later parts belong to it. */
+        void nextRound() {
+            if (round != turn) {
+                round.end();
+            }
+            round = turn.child("round", null);
+        }
+
+        /** A part of the current round, started now. */
+        Span start(String phase, String tool) {
+            return round.child(phase, tool);
+        }
+
+        /** A part of the turn measured elsewhere, such as the wait for an officer's decision. */
+        void add(String phase, long nanos) {
+            Span span = new Span(phase, null, System.nanoTime() - nanos);
+            span.nanos = nanos;
+            turn.children.add(span);
+        }
+
+        @Override
+        public void emit(StreamEvent event) {
+            if ("done".equals(event.name())) {
+                report();
+            }
+            long started = System.nanoTime();
+            sink.emit(event);
+            emitNanos.addAndGet(System.nanoTime() - started);
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return sink.isCancelled();
+        }
+
+        /** Reports once {@code work} is over, before whatever the caller chains on it. */
+        CompletableFuture<Void> finish(CompletableFuture<Void> work) {
+            return work.whenComplete((value, error) -> report());
+        }
+
+        /** Records every part and, when asked for, emits the tree; only the first call counts. */
+        private void report() {
+            if (!reported.compareAndSet(false, true)) {
+                return;
+            }
+            round.end();
+            turn.end();
+            record(turn);
+            metrics.record("copilot.turn.phase", emitNanos.get(), "phase", "emit", "tool", "none",
+                    "tenant", tenant, "model", model);
+            metrics.record("copilot.turn.duration", turn.nanos, "tenant", tenant, "model", model, "kind", kind);
+            if (emitEvents && !sink.isCancelled()) {
+                Map<String, Object> data = turn.toEvent();
+                data.put("emit_ms", emitNanos.get() / 1_000_000.0);
+                sink.emit(StreamEvent.timing(data));
+            }
+        }
+
+        private void record(Span span) {
+            for (Span child : span.children) {
+                if (child.nanos >= 0) {
+                    metrics.record("copilot.turn.phase", child.nanos, "phase", child.phase,
+                            "tool", child.tool == null ? "none" : child.tool, "tenant", tenant, "model", model);
+                }
+                record(child);
+            }
+        }
+    }
+}
@@ -10,53 +10,28 @@ package org.mifos.community.copilot.core.approval;
 import org.mifos.community.copilot.core.auth.CallContext;
 import org.mifos.community.copilot.core.llm.LlmToolCall;
 
-import java.time.Duration;
-import java.time.Instant;
-import java.util.Map;
 import java.util.Optional;
-import java.util.UUID;
-import java.util.concurrent.ConcurrentHashMap;
 
 /**
- * In-memory, single-use store of write actions awaiting confirmation.
+ * Single-use store of write actions awaiting confirmation.
  *
- * <p>Take-semantics make double-approval impossible: the first decision consumes the card, a
- * second click finds nothing. Cards expire after {@link #ttl} and are swept lazily.
+ * <p>Every backend keeps the same contract: a card is taken at most once however many decisions
+ * race for it, on however many replicas; only the identity that asked can take it; and an
+ * expired card reads as unknown. {@link InMemoryApprovalStore} holds cards in this JVM;
+ * {@link FileApprovalStore} holds them in a directory every replica mounts, so a decision may
+ * land on any of them.
  */
-public final class ApprovalStore {
-
-    private final Map<String, PendingApproval> pending = new ConcurrentHashMap<>();
-    private final Duration ttl;
-
-    public ApprovalStore(Duration ttl) {
-        this.ttl = ttl;
-    }
+public interface ApprovalStore {
 
     /** Create and register a card for this tool call, bound to the asking identity. */
-    public PendingApproval create(String conversationId, LlmToolCall call, String humanSummary, CallContext context) {
-        sweep();
-        PendingApproval approval = new PendingApproval(
-                "card-" + UUID.randomUUID(),
-                conversationId,
-                call,
-                humanSummary,
-                "cop-" + UUID.randomUUID(), // Server-minted idempotency key, the only authority.
-                context.fingerprint(),
-                Instant.now().plus(ttl));
-        pending.put(approval.cardId(), approval);
-        return approval;
-    }
+    PendingApproval create(String conversationId, LlmToolCall call, String humanSummary, CallContext context);
 
     /**
      * Put a consumed card back after a retryable execution failure (e.g. the officer's
      * session expired mid-decision). The server-minted idempotency key is preserved, so a
      * retried execution stays exactly-once even if the failed attempt partially ran.
      */
-    public void restore(PendingApproval approval) {
-        if (!approval.isExpired(Instant.now())) {
-            pending.put(approval.cardId(), approval);
-        }
-    }
+    void restore(PendingApproval approval);
 
     /**
      * Atomically consume the card. Returns empty when unknown, already decided, expired, or
@@ -64,24 +39,5 @@ public final class ApprovalStore {
      * SIDE-EFFECT-FREE: a stranger probing a card id must not be able to destroy the rightful
      * officer's pending approval.
      */
-    public Optional<PendingApproval> take(String cardId, CallContext context) {
-        PendingApproval approval = pending.get(cardId);
-        if (approval == null) {
-            return Optional.empty();
-        }
-        if (approval.isExpired(Instant.now())) {
-            pending.remove(cardId, approval);
-            return Optional.empty();
-        }
-        if (!approval.securityFingerprint().equals(context.fingerprint())) {
-            return Optional.empty(); // Different identity, so the card stays for its owner.
-        }
-        // Two-arg remove keeps consumption atomic against a concurrent take of the same card.
-        return pending.remove(cardId, approval) ? Optional.of(approval) : Optional.empty();
-    }
-
-    private void sweep() {
-        Instant now = Instant.now();
-        pending.values().removeIf((approval) -> approval.isExpired(now));
-    }
+    Optional<PendingApproval> take(String cardId, CallContext context);
 }
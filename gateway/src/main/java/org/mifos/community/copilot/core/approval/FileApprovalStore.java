@@ -0,0 +1,229 @@
+/**
+ * Copyright since 2026 Mifos Initiative
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file, You can obtain one at
+ * http://mozilla.org/MPL/2.0/.
+ */
+package org.mifos.community.copilot.core.approval;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.mifos.community.copilot.core.auth.CallContext;
+import org.mifos.community.copilot.core.llm.LlmToolCall;
+import org.mifos.community.copilot.core.metrics.Metrics;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+/**
+ * Cards as files in a directory every replica mounts, one {@code <cardId>.json} each, so the
+ * decision for a card may reach a different replica than the turn that paused on it.
+ *
+ * <p>Taking a card is an atomic rename of its file to a name only the taker knows: of any number
+ * of decisions racing on any number of replicas, exactly one rename succeeds and the rest find
+ * nothing. The fingerprint and expiry are checked on a read before that rename, so a stranger's
+ * probe leaves the file where it is. A card is written to a temporary file and renamed into
+ * place, so it is never seen half-written.
+ *
+ * <p>Each file's modification time is set to its card's expiry, which lets the sweep drop
+ * expired cards without opening them. The rename must be atomic, which holds on a local or block
+ * volume and on NFS, but not on every object-store mount.
+ *
+ * <p>Only the replica whose delete removes an expired card counts it, as {@code copilot.approvals}
+ * with outcome {@code expired}, so summed across replicas each card counts once.
+ */
+public final class FileApprovalStore implements ApprovalStore {
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+    private static final TypeReference<Map<String, Object>> CARD = new TypeReference<>() {};
+    private static final Pattern CARD_ID =
+            Pattern.compile("card-[0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12}");
+    private static final String SUFFIX = ".json";
+    private static final Duration SWEEP_EVERY = Duration.ofMinutes(1);
+    /** How long a temporary or claimed file left by a crash is kept before the sweep drops it. */
+    private static final Duration ORPHAN_AGE = Duration.ofHours(1);
+
+    private final Path dir;
+    private final Duration ttl;
+    private final Clock clock;
+    private final Metrics metrics;
+    private volatile Instant nextSweep = Instant.MIN;
+
+    public FileApprovalStore(Path dir, Duration ttl) {
+        this(dir, ttl, Metrics.NOOP);
+    }
+
+    public FileApprovalStore(Path dir, Duration ttl, Metrics metrics) {
+        this(dir, ttl, metrics, Clock.systemUTC());
+    }
+
+    FileApprovalStore(Path dir, Duration ttl, Metrics metrics, Clock clock) {
+        this.dir = dir;
+        this.ttl = ttl;
+        this.clock = clock;
+        this.metrics = metrics;
+        try {
+            Files.createDirectories(dir);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create approval directory " + dir, e);
+        }
+    }
+
+    @Override
+    public PendingApproval create(String conversationId, LlmToolCall call, String humanSummary, CallContext context) {
+        Instant now = clock.instant();
+        if (now.isAfter(nextSweep)) {
+            sweep(now);
+        }
+        PendingApproval approval = new PendingApproval(
+                "card-" + UUID.randomUUID(),
+                conversationId,
+                call,
+                humanSummary,
+                "cop-" + UUID.randomUUID(), // Server-minted idempotency key, the only authority.
+                context.fingerprint(),
+                now.plus(ttl),
+                now);
+        write(approval);
+        return approval;
+    }
+
+    @Override
+    public void restore(PendingApproval approval) {
+        if (!approval.isExpired(clock.instant())) {
+            write(approval);
+        }
+    }
+
+    @Override
+    public Optional<PendingApproval> take(String cardId, CallContext context) {
+        if (cardId == null || !CARD_ID.matcher(cardId).matches()) {
+            return Optional.empty();
+        }
+        Path file = dir.resolve(cardId + SUFFIX);
+        try {
+            PendingApproval approval;
+            try {
+                approval = read(file);
+            } catch (NoSuchFileException e) {
+                return Optional.empty();
+            }
+            if (approval.isExpired(clock.instant())) {
+                if (Files.deleteIfExists(file)) {
+                    metrics.increment("copilot.approvals", "outcome", "expired");
+                }
+                return Optional.empty();
+            }
+            if (!approval.securityFingerprint().equals(context.fingerprint())) {
+                return Optional.empty(); // Different identity, so the card stays for its owner.
+            }
+            // A card's content never changes once minted (restore writes the same card back), so
+            // whoever wins the rename has taken exactly what was read above.
+            Path claimed = dir.resolve(cardId + ".taken-" + UUID.randomUUID());
+            try {
+                Files.move(file, claimed, StandardCopyOption.ATOMIC_MOVE);
+            } catch (NoSuchFileException e) {
+                return Optional.empty(); // Another decision took it first.
+            }
+            Files.deleteIfExists(claimed);
+            return Optional.of(approval);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void write(PendingApproval approval) {
+        Path temp = dir.resolve(approval.cardId() + ".tmp-" + UUID.randomUUID());
+        try {
+            Files.write(temp, JSON.writeValueAsBytes(toMap(approval)));
+            Files.setLastModifiedTime(temp, FileTime.from(approval.expiresAt()));
+            Files.move(temp, dir.resolve(approval.cardId() + SUFFIX), StandardCopyOption.ATOMIC_MOVE,
+                    StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            try {
+                Files.deleteIfExists(temp);
+            } catch (IOException ignored) {
+                // The sweep removes it later.
+            }
+        }
+    }
+
+    private void sweep(Instant now) {
+        nextSweep = now.plus(SWEEP_EVERY);
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir)) {
+            for (Path file : files) {
+                FileTime modified = lastModified(file);
+                if (modified == null) {
+                    continue;
+                }
+                boolean card = file.getFileName().toString().endsWith(SUFFIX);
+                Instant cutoff = card ? now : now.minus(ORPHAN_AGE);
+                if (modified.toInstant().isBefore(cutoff) && Files.deleteIfExists(file) && card) {
+                    metrics.increment("copilot.approvals", "outcome", "expired");
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /** When {@code file} was last written; null once it was taken or swept between the listing and the look. */
+    private static FileTime lastModified(Path file) throws IOException {
+        try {
+            return Files.getLastModifiedTime(file);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    private static Map<String, Object> toMap(PendingApproval approval) {
+        Map<String, Object> toolCall = new LinkedHashMap<>();
+        toolCall.put("id", approval.toolCall().id());
+        toolCall.put("name", approval.toolCall().name());
+        toolCall.put("arguments", approval.toolCall().arguments());
+        Map<String, Object> card = new LinkedHashMap<>();
+        card.put("cardId", approval.cardId());
+        card.put("conversationId", approval.conversationId());
+        card.put("toolCall", toolCall);
+        card.put("humanSummary", approval.humanSummary());
+        card.put("idempotencyKey", approval.idempotencyKey());
+        card.put("securityFingerprint", approval.securityFingerprint());
+        card.put("expiresAt", approval.expiresAt().toString());
+        card.put("createdAt", approval.createdAt() == null ? null : approval.createdAt().toString());
+        return card;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static PendingApproval read(Path file) throws IOException {
+        Map<String, Object> card = JSON.readValue(Files.readAllBytes(file), CARD);
+        Map<String, Object> toolCall = (Map<String, Object>) card.get("toolCall");
+        return new PendingApproval(
+                (String) card.get("cardId"),
+                (String) card.get("conversationId"),
+                new LlmToolCall((String) toolCall.get("id"), (String) toolCall.get("name"),
+                        (Map<String, Object>) toolCall.get("arguments")),
+                (String) card.get("humanSummary"),
+                (String) card.get("idempotencyKey"),
+                (String) card.get("securityFingerprint"),
+                Instant.parse((String) card.get("expiresAt")),
+                card.get("createdAt") == null ? null : Instant.parse((String) card.get("createdAt")));
+    }
+}
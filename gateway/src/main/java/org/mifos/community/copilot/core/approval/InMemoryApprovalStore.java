@@ -0,0 +1,99 @@
+/**
+ * Copyright since 2026 Mifos Initiative
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file, You can obtain one at
+ * http://mozilla.org/MPL/2.0/.
+ */
+package org.mifos.community.copilot.core.approval;
+
+import org.mifos.community.copilot.core.auth.CallContext;
+import org.mifos.community.copilot.core.llm.LlmToolCall;
+import org.mifos.community.copilot.core.metrics.Metrics;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory, single-use store of write actions awaiting confirmation. The default: a decision
+ * must reach the replica that ran the turn.
+ *
+ * <p>Take-semantics make double-approval impossible: the first decision consumes the card, a
+ * second click finds nothing. Cards expire after {@link #ttl} and are swept lazily; each one
+ * dropped that way counts as {@code copilot.approvals} with outcome {@code expired}.
+ */
+public final class InMemoryApprovalStore implements ApprovalStore {
+
+    private final Map<String, PendingApproval> pending = new ConcurrentHashMap<>();
+    private final Duration ttl;
+    private final Metrics metrics;
+
+    public InMemoryApprovalStore(Duration ttl) {
+        this(ttl, Metrics.NOOP);
+    }
+
+    public InMemoryApprovalStore(Duration ttl, Metrics metrics) {
+        this.ttl = ttl;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public PendingApproval create(String conversationId, LlmToolCall call, String humanSummary, CallContext context) {
+        sweep();
+        Instant now = Instant.now();
+        PendingApproval approval = new PendingApproval(
+                "card-" + UUID.randomUUID(),
+                conversationId,
+                call,
+                humanSummary,
+                "cop-" + UUID.randomUUID(), // Server-minted idempotency key, the only authority.
+                context.fingerprint(),
+                now.plus(ttl),
+                now);
+        pending.put(approval.cardId(), approval);
+        return approval;
+    }
+
+    @Override
+    public void restore(PendingApproval approval) {
+        if (!approval.isExpired(Instant.now())) {
+            pending.put(approval.cardId(), approval);
+        }
+    }
+
+    @Override
+    public Optional<PendingApproval> take(String cardId, CallContext context) {
+        PendingApproval approval = cardId == null ? null : pending.get(cardId);
+        if (approval == null) {
+            return Optional.empty();
+        }
+        if (approval.isExpired(Instant.now())) {
+            if (pending.remove(cardId, approval)) {
+                metrics.increment("copilot.approvals", "outcome", "expired");
+            }
+            return Optional.empty();
+        }
+        if (!approval.securityFingerprint().equals(context.fingerprint())) {
+            return Optional.empty(); // Different identity, so the card stays for its owner.
+        }
+        // Two-arg remove keeps consumption atomic against a concurrent take of the same card.
+        return pending.remove(cardId, approval) ? Optional.of(approval) : Optional.empty();
+    }
+
+    private void sweep() {
+        Instant now = Instant.now();
+        int dropped = 0;
+        for (Map.Entry<String, PendingApproval> entry : pending.entrySet()) {
+            if (entry.getValue().isExpired(now) && pending.remove(entry.getKey(), entry.getValue())) {
+                dropped++;
+            }
+        }
+        if (dropped > 0) {
+            metrics.increment("copilot.approvals", dropped, "outcome", "expired");
+        }
+    }
+}
@@ -17,9 +17,12 @@ import java.time.Instant;
  * <p>{@code securityFingerprint} binds the card to the asking officer and tenant, so only the same
  * identity may decide it. {@code idempotencyKey} is minted HERE, server-side, at card creation;
  * client-supplied keys are ignored by design. No raw credential is ever stored.
+ *
+ * <p>{@code createdAt} times how long the officer took to decide; it is null for a card stored
+ * before it was recorded.
  */
 public record PendingApproval(String cardId, String conversationId, LlmToolCall toolCall, String humanSummary,
-        String idempotencyKey, String securityFingerprint, Instant expiresAt) {
+        String idempotencyKey, String securityFingerprint, Instant expiresAt, Instant createdAt) {
 
     public boolean isExpired(Instant now) {
         return now.isAfter(expiresAt);
@@ -72,6 +72,15 @@ public record StreamEvent(String name, Map<String, Object> data) {
         return new StreamEvent("suggest", Map.of("items", items));
     }
 
+    /**
+     * Where the turn's time went: a tree of {@code phase}, optional {@code tool}, {@code ms} and
+     * {@code parts}, plus {@code emit_ms} spent handing events to the stream. Diagnostic only;
+     * sent when the gateway is configured to.
+     */
+    public static StreamEvent timing(Map<String, Object> tree) {
+        return new StreamEvent("timing", tree);
+    }
+
     public static StreamEvent done(String conversationId) {
         return new StreamEvent("done", Map.of("conversation_id", conversationId));
     }
@@ -0,0 +1,220 @@
+/**
+ * Copyright since 2026 Mifos Initiative
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file, You can obtain one at
+ * http://mozilla.org/MPL/2.0/.
+ */
+package org.mifos.community.copilot.core.convo;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SequencedSet;
+
+/**
+ * What a run of older turns boils down to once their raw messages are dropped: the officer's
+ * questions, the clients, loans and savings accounts they touched, the amounts involved and how
+ * each tool call came out. It is one system message, so the model still knows that "the loan"
+ * means loan 42 long after the 8 KB loan record has gone.
+ *
+ * <p>Built by reading the messages, with no model call, so it costs nothing but CPU and cannot
+ * make anything up. Folding again starts from the previous digest, so it grows by what the newly
+ * folded turns add, and every list keeps only its newest entries.
+ */
+public final class ConversationDigest {
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+    private static final String PREFIX = "Digest of earlier turns in this conversation; their messages and tool "
+            + "results were dropped to save space. Ask the tools again for anything you need in full. ";
+    private static final int MAX_ENTRIES = 20;
+    private static final int MAX_QUESTION = 160;
+    /** How deep into a tool result to look for ids and amounts. */
+    private static final int MAX_DEPTH = 4;
+
+    private final SequencedSet<String> questions = new LinkedHashSet<>();
+    private final SequencedSet<String> clients = new LinkedHashSet<>();
+    private final SequencedSet<String> loans = new LinkedHashSet<>();
+    private final SequencedSet<String> savings = new LinkedHashSet<>();
+    private final SequencedSet<String> amounts = new LinkedHashSet<>();
+    private final SequencedSet<String> outcomes = new LinkedHashSet<>();
+
+    private ConversationDigest() {}
+
+    /** True for a message {@link #fold} produced. */
+    public static boolean isDigest(Map<String, Object> message) {
+        return "system".equals(message.get("role")) && message.get("content") instanceof String content
+                && content.startsWith(PREFIX);
+    }
+
+    /**
+     * One message standing in for {@code folded}, which may open with the digest of an earlier
+     * fold. Tool calls and their results must be folded together.
+     */
+    public static Map<String, Object> fold(List<Map<String, Object>> folded) {
+        ConversationDigest digest = new ConversationDigest();
+        Map<String, String> toolNames = new HashMap<>();
+        for (Map<String, Object> message : folded) {
+            if (isDigest(message)) {
+                digest.readPrevious((String) message.get("content"));
+                continue;
+            }
+            Object role = message.get("role");
+            if ("user".equals(role) && message.get("content") instanceof String question) {
+                String trimmed = question.strip();
+                add(digest.questions, trimmed.length() > MAX_QUESTION
+                        ? trimmed.substring(0, MAX_QUESTION) + "…" : trimmed);
+            } else if ("assistant".equals(role) && message.get("tool_calls") instanceof List<?> calls) {
+                for (Object call : calls) {
+                    digest.readToolCall(call, toolNames);
+                }
+            } else if ("tool".equals(role)) {
+                String name = toolNames.getOrDefault(String.valueOf(message.get("tool_call_id")), "tool");
+                digest.readToolResult(name, message.get("content"));
+            }
+        }
+        Map<String, Object> message = new LinkedHashMap<>();
+        message.put("role", "system");
+        message.put("content", PREFIX + digest.encode());
+        return message;
+    }
+
+    private void readToolCall(Object call, Map<String, String> toolNames) {
+        if (!(call instanceof Map<?, ?> encoded) || !(encoded.get("function") instanceof Map<?, ?> function)) {
+            return;
+        }
+        String name = String.valueOf(function.get("name"));
+        toolNames.put(String.valueOf(encoded.get("id")), name);
+        if (function.get("arguments") instanceof String arguments) {
+            JsonNode parsed = parse(arguments);
+            if (parsed != null) {
+                collect(name, parsed, 0);
+            }
+        }
+    }
+
+    private void readToolResult(String toolName, Object content) {
+        JsonNode result = content instanceof String text ? parse(text) : null;
+        if (result == null || !result.isObject()) {
+            add(outcomes, toolName + ": ok");
+            return;
+        }
+        collect(toolName, result, 0);
+        JsonNode id = result.get("id");
+        if (id != null && id.isNumber()) {
+            add(entitiesOf(toolName), id.asText());
+        }
+        JsonNode status = result.get("status");
+        JsonNode resourceId = result.get("resourceId");
+        if (status != null && status.isTextual()) {
+            add(outcomes, toolName + ": " + status.asText());
+        } else if (resourceId != null && !resourceId.isNull()) {
+            add(outcomes, toolName + ": ok, resource " + resourceId.asText());
+        } else {
+            add(outcomes, toolName + ": ok");
+        }
+    }
+
+    /** Ids and amounts anywhere near the top of {@code node}. */
+    private void collect(String toolName, JsonNode node, int depth) {
+        if (depth > MAX_DEPTH) {
+            return;
+        }
+        if (node.isArray()) {
+            for (JsonNode element : node) {
+                collect(toolName, element, depth + 1);
+            }
+            return;
+        }
+        for (Map.Entry<String, JsonNode> field : node.properties()) {
+            String key = field.getKey().toLowerCase(Locale.ROOT);
+            JsonNode value = field.getValue();
+            if (value.isContainerNode()) {
+                collect(toolName, value, depth + 1);
+            } else if (value.isNumber() || value.isTextual() && !value.asText().isBlank()) {
+                switch (key) {
+                    case "clientid" -> add(clients, value.asText());
+                    case "loanid" -> add(loans, value.asText());
+                    case "savingsid", "savingsaccountid" -> add(savings, value.asText());
+                    case "accountid" -> add(toolName.contains("savings") ? savings : loans, value.asText());
+                    default -> {
+                        if (value.isNumber() && (key.contains("amount") || key.contains("principal"))) {
+                            add(amounts, field.getKey() + " " + value.asText());
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private SequencedSet<String> entitiesOf(String toolName) {
+        if (toolName.contains("loan")) {
+            return loans;
+        }
+        return toolName.contains("savings") ? savings : clients;
+    }
+
+    private void readPrevious(String content) {
+        JsonNode previous = parse(content.substring(PREFIX.length()));
+        if (previous == null) {
+            return;
+        }
+        Map<String, SequencedSet<String>> lists = lists();
+        for (Map.Entry<String, SequencedSet<String>> list : lists.entrySet()) {
+            JsonNode entries = previous.get(list.getKey());
+            if (entries != null && entries.isArray()) {
+                entries.forEach((entry) -> add(list.getValue(), entry.asText()));
+            }
+        }
+    }
+
+    private String encode() {
+        Map<String, List<String>> encoded = new LinkedHashMap<>();
+        lists().forEach((name, list) -> {
+            if (!list.isEmpty()) {
+                encoded.put(name, new ArrayList<>(list));
+            }
+        });
+        try {
+            return JSON.writeValueAsString(encoded);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private Map<String, SequencedSet<String>> lists() {
+        Map<String, SequencedSet<String>> lists = new LinkedHashMap<>();
+        lists.put("questions", questions);
+        lists.put("clients", clients);
+        lists.put("loans", loans);
+        lists.put("savingsAccounts", savings);
+        lists.put("amounts", amounts);
+        lists.put("outcomes", outcomes);
+        return lists;
+    }
+
+    /** Adds {@code entry} as the newest, dropping the oldest past the cap. */
+    private static void add(SequencedSet<String> list, String entry) {
+        list.remove(entry);
+        list.add(entry);
+        if (list.size() > MAX_ENTRIES) {
+            list.removeFirst();
+        }
+    }
+
+    private static JsonNode parse(String text) {
+        try {
+            return JSON.readTree(text);
+        } catch (JsonProcessingException e) {
+            return null;
+        }
+    }
+}
@@ -7,70 +7,40 @@
  */
 package org.mifos.community.copilot.core.convo;
 
-import java.util.ArrayList;
-import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.UUID;
-import java.util.concurrent.ConcurrentHashMap;
 
 /**
- * In-memory conversation state, namespaced by the caller's security fingerprint so no user or
- * tenant can ever read another's turns (the cross-user thread-bleed failure mode is designed out).
- * Message shape is OpenAI-style maps, capped to the last {@link #MAX_MESSAGES} per conversation.
+ * Conversation state, namespaced by the caller's security fingerprint so no user or tenant can
+ * ever read another's turns (the cross-user thread-bleed failure mode is designed out). Message
+ * shape is OpenAI-style maps, capped to the last {@link #MAX_MESSAGES} per conversation and
+ * {@link #MAX_CONVERSATIONS_PER_USER} conversations per fingerprint. The cap only bounds what is
+ * kept; how much of it is sent to the model is {@link HistoryWindow}'s call.
  *
- * <p>Durable multi-device history is a later increment (ADR-001 cut list); the web-app keeps its
- * own localStorage copy meanwhile.
+ * <p>{@link InMemoryConversationStore} keeps it in the heap; {@link FileConversationStore}
+ * keeps it on disk, where it survives a restart and can be shared by replicas.
  */
-public final class ConversationStore {
+public interface ConversationStore {
 
-    private static final int MAX_MESSAGES = 40;
-    private static final int MAX_CONVERSATIONS_PER_USER = 20;
-
-    /** fingerprint -> conversationId -> messages */
-    private final Map<String, Map<String, List<Map<String, Object>>>> store = new ConcurrentHashMap<>();
+    int MAX_MESSAGES = 100;
+    int MAX_CONVERSATIONS_PER_USER = 20;
 
     /** Returns the existing conversation or starts one; never crosses fingerprints. */
-    public String resolve(String fingerprint, String conversationId) {
-        Map<String, List<Map<String, Object>>> conversations = userStore(fingerprint);
-        // The inner LinkedHashMap is NOT thread-safe; the same officer can run concurrent
-        // turns (two tabs, chat + decision), so every access locks the per-user map.
-        synchronized (conversations) {
-            if (conversationId != null && conversations.containsKey(conversationId)) {
-                return conversationId;
-            }
-            String id = "conv-" + UUID.randomUUID();
-            conversations.put(id, new ArrayList<>());
-            if (conversations.size() > MAX_CONVERSATIONS_PER_USER) {
-                String oldest = conversations.keySet().iterator().next();
-                conversations.remove(oldest);
-            }
-            return id;
-        }
-    }
-
-    public List<Map<String, Object>> messages(String fingerprint, String conversationId) {
-        Map<String, List<Map<String, Object>>> conversations = userStore(fingerprint);
-        synchronized (conversations) {
-            return conversations.getOrDefault(conversationId, new ArrayList<>());
-        }
-    }
-
-    public void append(String fingerprint, String conversationId, Map<String, Object> message) {
-        Map<String, List<Map<String, Object>>> conversations = userStore(fingerprint);
-        List<Map<String, Object>> messages;
-        synchronized (conversations) {
-            messages = conversations.computeIfAbsent(conversationId, (id) -> new ArrayList<>());
-        }
-        synchronized (messages) {
-            messages.add(message);
-            while (messages.size() > MAX_MESSAGES) {
-                messages.remove(0);
-            }
-        }
-    }
-
-    private Map<String, List<Map<String, Object>>> userStore(String fingerprint) {
-        return store.computeIfAbsent(fingerprint, (key) -> new LinkedHashMap<>());
-    }
+    String resolve(String fingerprint, String conversationId);
+
+    /**
+     * The conversation's messages, oldest first, or an empty list for an unknown one. Callers
+     * never modify it. It is a snapshot: appends and folds after the call do not show up in it,
+     * so it can be read without a lock while other turns write.
+     */
+    List<Map<String, Object>> messages(String fingerprint, String conversationId);
+
+    void append(String fingerprint, String conversationId, Map<String, Object> message);
+
+    /**
+     * Replaces every message before {@code firstKept} with {@code digest}, in one step that
+     * appends cannot interleave with. Does nothing when {@code firstKept} is no longer there.
+     */
+    void fold(String fingerprint, String conversationId, Map<String, Object> firstKept,
+            Map<String, Object> digest);
 }
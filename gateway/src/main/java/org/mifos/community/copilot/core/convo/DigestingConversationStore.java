@@ -0,0 +1,118 @@
+/**
+ * Copyright since 2026 Mifos Initiative
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file, You can obtain one at
+ * http://mozilla.org/MPL/2.0/.
+ */
+package org.mifos.community.copilot.core.convo;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Wraps any store so a long conversation is folded down after each turn: once it is past
+ * {@code afterTokens}, everything older than the newest {@code keepTokens} becomes one
+ * {@link ConversationDigest}. What a round sends then stays bounded by the digest plus the kept
+ * turns, however long the officer keeps going.
+ *
+ * <p>The fold runs on {@code executor} once the turn's answer is stored, so it is done by the time
+ * the officer has read the answer and never holds up the next turn; if that turn starts first it
+ * simply sees the unfolded history once more. At most one fold per conversation is in flight.
+ */
+public final class DigestingConversationStore implements ConversationStore, AutoCloseable {
+
+    private final ConversationStore delegate;
+    private final int afterTokens;
+    private final int keepTokens;
+    private final Executor executor;
+    private final Set<String> folding = ConcurrentHashMap.newKeySet();
+
+    /**
+     * @param executor runs the folds; an {@link ExecutorService} is shut down with the store
+     */
+    public DigestingConversationStore(ConversationStore delegate, int afterTokens, int keepTokens,
+            Executor executor) {
+        this.delegate = delegate;
+        this.afterTokens = afterTokens;
+        this.keepTokens = keepTokens;
+        this.executor = executor;
+    }
+
+    @Override
+    public String resolve(String fingerprint, String conversationId) {
+        return delegate.resolve(fingerprint, conversationId);
+    }
+
+    @Override
+    public List<Map<String, Object>> messages(String fingerprint, String conversationId) {
+        return delegate.messages(fingerprint, conversationId);
+    }
+
+    @Override
+    public void append(String fingerprint, String conversationId, Map<String, Object> message) {
+        delegate.append(fingerprint, conversationId, message);
+        // An assistant message without tool calls is the answer that ends a turn.
+        if ("assistant".equals(message.get("role")) && message.get("tool_calls") == null) {
+            schedule(fingerprint, conversationId);
+        }
+    }
+
+    @Override
+    public void fold(String fingerprint, String conversationId, Map<String, Object> firstKept,
+            Map<String, Object> digest) {
+        delegate.fold(fingerprint, conversationId, firstKept, digest);
+    }
+
+    private void schedule(String fingerprint, String conversationId) {
+        String key = fingerprint + '/' + conversationId;
+        if (!folding.add(key)) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    foldIfLong(fingerprint, conversationId);
+                } finally {
+                    folding.remove(key);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            folding.remove(key); // Shutting down; the conversation is folded after its next turn.
+        }
+    }
+
+    private void foldIfLong(String fingerprint, String conversationId) {
+        List<Map<String, Object>> history = delegate.messages(fingerprint, conversationId);
+        int tokens = 0;
+        for (Map<String, Object> message : history) {
+            tokens += HistoryWindow.estimateTokens(message);
+        }
+        if (tokens <= afterTokens) {
+            return;
+        }
+        List<Map<String, Object>> kept = HistoryWindow.fit(history, keepTokens);
+        int previousDigest = ConversationDigest.isDigest(history.get(0)) ? 1 : 0;
+        if (kept.size() <= previousDigest) {
+            return;
+        }
+        int firstKept = history.indexOf(kept.get(previousDigest));
+        if (firstKept <= previousDigest) {
+            return; // Nothing new to fold.
+        }
+        delegate.fold(fingerprint, conversationId, history.get(firstKept),
+                ConversationDigest.fold(history.subList(0, firstKept)));
+    }
+
+    @Override
+    public void close() {
+        if (executor instanceof ExecutorService service) {
+            service.shutdown();
+        }
+    }
+}
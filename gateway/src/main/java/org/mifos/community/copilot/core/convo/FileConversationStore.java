@@ -0,0 +1,388 @@
+/**
+ * Copyright since 2026 Mifos Initiative
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file, You can obtain one at
+ * http://mozilla.org/MPL/2.0/.
+ */
+package org.mifos.community.copilot.core.convo;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+/**
+ * Conversation state on local disk, with no service to run. Each conversation is an append-only
+ * file of one JSON message per line, under a directory per fingerprint:
+ * {@code <dir>/<fingerprint>/conv-<uuid>.jsonl}. An append is one write of one line, so a crash
+ * can at worst leave a torn last line, which is skipped on read.
+ *
+ * <p>Nothing is read at startup beyond a sweep of expired files; a conversation is loaded the
+ * first time it is asked for, and after that only the bytes appended since are read, so a replica
+ * sharing the directory sees the others' appends on its next turn. Writers to one fingerprint are
+ * serialised by a lock file, which holds across processes on a local or block-storage volume; on
+ * network filesystems that do not honour {@code flock}, keep one replica per directory.
+ *
+ * <p>Once a file holds twice {@link #MAX_MESSAGES} lines it is rewritten with the last
+ * {@link #MAX_MESSAGES} and swapped in atomically. A conversation untouched for the retention
+ * period is deleted, as is the least recently used one past {@link #MAX_CONVERSATIONS_PER_USER}.
+ */
+public final class FileConversationStore implements ConversationStore {
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+    private static final TypeReference<Map<String, Object>> MESSAGE = new TypeReference<>() {};
+    private static final Pattern CONVERSATION_ID =
+            Pattern.compile("conv-[0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12}");
+    private static final Pattern FINGERPRINT = Pattern.compile("[0-9a-f]{16,128}");
+    private static final String SUFFIX = ".jsonl";
+    private static final String LOCK_FILE = ".lock";
+    private static final int MAX_CACHED = 10_000;
+    private static final Duration SWEEP_EVERY = Duration.ofHours(1);
+
+    /**
+     * A loaded conversation: its messages and how far into which file they were read. Reading the
+     * file locks it; the messages handed out are snapshots that later reads do not change.
+     */
+    private static final class Loaded {
+        final MessageLog messages = new MessageLog(MAX_MESSAGES);
+        Object identity;
+        long offset;
+        int lines;
+    }
+
+    private final Path dir;
+    private final Duration retention;
+    private final Clock clock;
+    /** In-JVM half of the per-fingerprint lock; striped so it does not grow with users. */
+    private final Object[] stripes = new Object[64];
+    private final Map<Path, Loaded> loaded = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Path, Loaded> eldest) {
+            return size() > MAX_CACHED;
+        }
+    };
+    private volatile Instant nextSweep;
+
+    /**
+     * @param retention how long an untouched conversation is kept; zero or less keeps it until
+     *        the per-user cap pushes it out
+     */
+    public FileConversationStore(Path dir, Duration retention) {
+        this(dir, retention, Clock.systemUTC());
+    }
+
+    FileConversationStore(Path dir, Duration retention, Clock clock) {
+        this.dir = dir;
+        this.retention = retention;
+        this.clock = clock;
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new Object();
+        }
+        try {
+            Files.createDirectories(dir);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create conversation directory " + dir, e);
+        }
+        sweep();
+    }
+
+    @Override
+    public String resolve(String fingerprint, String conversationId) {
+        Path user = userDir(fingerprint);
+        if (conversationId != null && CONVERSATION_ID.matcher(conversationId).matches()) {
+            Path file = user.resolve(conversationId + SUFFIX);
+            try {
+                if (!expired(Files.getLastModifiedTime(file))) {
+                    return conversationId;
+                }
+            } catch (NoSuchFileException e) {
+                // Unknown here, so start a new one below.
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        if (clock.instant().isAfter(nextSweep)) {
+            sweep();
+        }
+        String id = "conv-" + UUID.randomUUID();
+        locked(fingerprint, () -> {
+            Files.createFile(user.resolve(id + SUFFIX));
+            evictBeyondCap(user);
+        });
+        return id;
+    }
+
+    @Override
+    public List<Map<String, Object>> messages(String fingerprint, String conversationId) {
+        if (conversationId == null || !CONVERSATION_ID.matcher(conversationId).matches()) {
+            return new ArrayList<>();
+        }
+        try {
+            return refresh(userDir(fingerprint).resolve(conversationId + SUFFIX)).messages.snapshot();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void append(String fingerprint, String conversationId, Map<String, Object> message) {
+        if (conversationId == null || !CONVERSATION_ID.matcher(conversationId).matches()) {
+            throw new IllegalArgumentException("Not a conversation id: " + conversationId);
+        }
+        Path file = userDir(fingerprint).resolve(conversationId + SUFFIX);
+        locked(fingerprint, () -> {
+            ByteBuffer line = line(message);
+            try (FileChannel out = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                while (line.hasRemaining()) {
+                    out.write(line);
+                }
+            } catch (NoSuchFileException e) {
+                // Swept or evicted since it was resolved. Starting it afresh here would keep a tool
+                // result without the tool_calls message it answers, which the model's API refuses.
+                return;
+            }
+            // Read back through the cache rather than adding to it directly, so lines another
+            // replica appended in between land in order too.
+            Loaded conversation = refresh(file);
+            if (conversation.lines > 2 * MAX_MESSAGES) {
+                rewrite(file, conversation.messages.snapshot());
+            }
+        });
+    }
+
+    @Override
+    public void fold(String fingerprint, String conversationId, Map<String, Object> firstKept,
+            Map<String, Object> digest) {
+        if (conversationId == null || !CONVERSATION_ID.matcher(conversationId).matches()) {
+            return;
+        }
+        Path file = userDir(fingerprint).resolve(conversationId + SUFFIX);
+        locked(fingerprint, () -> {
+            List<Map<String, Object>> messages = refresh(file).messages.snapshot();
+            int keepFrom = messages.indexOf(firstKept);
+            if (keepFrom <= 0) {
+                return;
+            }
+            List<Map<String, Object>> folded = new ArrayList<>();
+            folded.add(digest);
+            folded.addAll(messages.subList(keepFrom, messages.size()));
+            rewrite(file, folded);
+        });
+    }
+
+    /**
+     * Deletes every conversation untouched for longer than the retention period. Runs at
+     * startup and then at most hourly, when a conversation is started.
+     */
+    public void sweep() {
+        nextSweep = clock.instant().plus(SWEEP_EVERY);
+        if (retention.isZero() || retention.isNegative()) {
+            return;
+        }
+        try (DirectoryStream<Path> users = Files.newDirectoryStream(dir, Files::isDirectory)) {
+            for (Path user : users) {
+                try (DirectoryStream<Path> files = Files.newDirectoryStream(user, "*" + SUFFIX)) {
+                    for (Path file : files) {
+                        FileTime modified = lastModified(file);
+                        if (modified != null && expired(modified)) {
+                            delete(file);
+                        }
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /** Brings the cached copy of {@code file} up to date and returns it. */
+    private Loaded refresh(Path file) throws IOException {
+        Loaded conversation;
+        synchronized (loaded) {
+            conversation = loaded.computeIfAbsent(file, (key) -> new Loaded());
+        }
+        synchronized (conversation) {
+            BasicFileAttributes attributes;
+            try {
+                attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            } catch (NoSuchFileException e) {
+                reset(conversation, null);
+                return conversation;
+            }
+            // Compaction swaps in a new file: a different identity, or a shorter one.
+            Object identity = attributes.fileKey() != null ? attributes.fileKey() : attributes.creationTime();
+            if (!Objects.equals(identity, conversation.identity) || attributes.size() < conversation.offset) {
+                reset(conversation, identity);
+            }
+            if (attributes.size() > conversation.offset) {
+                readTail(file, conversation);
+            }
+            return conversation;
+        }
+    }
+
+    private static void reset(Loaded conversation, Object identity) {
+        conversation.messages.clear();
+        conversation.identity = identity;
+        conversation.offset = 0;
+        conversation.lines = 0;
+    }
+
+    /** Parses the complete lines past the cached offset; a partial last line waits for its LF. */
+    private static void readTail(Path file, Loaded conversation) throws IOException {
+        byte[] tail;
+        try (SeekableByteChannel in = Files.newByteChannel(file, StandardOpenOption.READ)) {
+            in.position(conversation.offset);
+            ByteBuffer buffer = ByteBuffer.allocate(Math.toIntExact(in.size() - conversation.offset));
+            while (buffer.hasRemaining() && in.read(buffer) >= 0) {
+                continue;
+            }
+            tail = buffer.array();
+        }
+        int start = 0;
+        for (int i = 0; i < tail.length; i++) {
+            if (tail[i] != '\n') {
+                continue;
+            }
+            if (i > start) {
+                try {
+                    conversation.messages.append(JSON.readValue(tail, start, i - start, MESSAGE));
+                } catch (IOException e) {
+                    // A line torn by a crash mid-write; the turn it belonged to was lost anyway.
+                }
+            }
+            conversation.lines++;
+            start = i + 1;
+        }
+        conversation.offset += start;
+    }
+
+    /**
+     * Swaps in a new {@code file} holding just {@code messages}; called holding the fingerprint
+     * lock. The next refresh sees a new file and reloads it, at most MAX_MESSAGES lines.
+     */
+    private static void rewrite(Path file, List<Map<String, Object>> messages) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            for (Map<String, Object> message : messages) {
+                ByteBuffer line = line(message);
+                while (line.hasRemaining()) {
+                    out.write(line);
+                }
+            }
+            out.force(true);
+        }
+        Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static ByteBuffer line(Map<String, Object> message) throws IOException {
+        byte[] json = JSON.writeValueAsBytes(message);
+        return ByteBuffer.allocate(json.length + 1).put(json).put((byte) '\n').flip();
+    }
+
+    /** Deletes the least recently touched conversations past the per-user cap. */
+    private void evictBeyondCap(Path user) throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(user, "*" + SUFFIX)) {
+            stream.forEach(files::add);
+        }
+        if (files.size() <= MAX_CONVERSATIONS_PER_USER) {
+            return;
+        }
+        Map<Path, FileTime> modified = new LinkedHashMap<>();
+        for (Path file : files) {
+            FileTime time = lastModified(file);
+            if (time != null) {
+                modified.put(file, time);
+            }
+        }
+        List<Path> present = new ArrayList<>(modified.keySet());
+        if (present.size() <= MAX_CONVERSATIONS_PER_USER) {
+            return;
+        }
+        present.sort(Comparator.comparing(modified::get));
+        for (Path file : present.subList(0, present.size() - MAX_CONVERSATIONS_PER_USER)) {
+            delete(file);
+        }
+    }
+
+    /** When {@code file} was last written; null once another process has deleted it. */
+    private static FileTime lastModified(Path file) throws IOException {
+        try {
+            return Files.getLastModifiedTime(file);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    private void delete(Path file) throws IOException {
+        Files.deleteIfExists(file);
+        synchronized (loaded) {
+            loaded.remove(file);
+        }
+    }
+
+    private boolean expired(FileTime modified) {
+        return !retention.isZero() && !retention.isNegative()
+                && modified.toInstant().plus(retention).isBefore(clock.instant());
+    }
+
+    private Path userDir(String fingerprint) {
+        // The fingerprint is a hex digest, but it becomes a path, so never take that on trust.
+        if (fingerprint == null || !FINGERPRINT.matcher(fingerprint).matches()) {
+            throw new IllegalArgumentException("Not a credential fingerprint");
+        }
+        return dir.resolve(fingerprint);
+    }
+
+    private interface IoAction {
+        void run() throws IOException;
+    }
+
+    /** Runs {@code action} holding this fingerprint's lock, in this JVM and across processes. */
+    private void locked(String fingerprint, IoAction action) {
+        Path user = userDir(fingerprint);
+        synchronized (stripes[Math.floorMod(fingerprint.hashCode(), stripes.length)]) {
+            try {
+                Files.createDirectories(user);
+                try (FileChannel lockFile = FileChannel.open(user.resolve(LOCK_FILE), StandardOpenOption.CREATE,
+                        StandardOpenOption.WRITE)) {
+                    FileLock lock = lockFile.lock();
+                    try {
+                        action.run();
+                    } finally {
+                        lock.release();
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,115 @@
+/**
+ * Copyright since 2026 Mifos Initiative
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file, You can obtain one at
+ * http://mozilla.org/MPL/2.0/.
+ */
+package org.mifos.community.copilot.core.convo;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Picks how much of a conversation goes to the model: the newest messages that fit a token
+ * budget, so forty fat tool results are not resent every round while a chatty history keeps
+ * more of its context than a fixed message count would.
+ *
+ * <p>The window only ever starts on a turn boundary (a user message), so an assistant's
+ * {@code tool_calls} message is never sent without its tool results, which providers reject.
+ * When the current turn alone is over budget it starts on a round boundary instead, and at worst
+ * keeps the last round whole. A {@link ConversationDigest} at the front is always sent.
+ *
+ * <p>Tokens are estimated, not counted: about four characters to a token, which is close for
+ * English and JSON and under-counts scripts such as Devanagari, so leave headroom in the budget.
+ */
+public final class HistoryWindow {
+
+    /** Role, separators and the like that every message costs whatever its content. */
+    private static final int PER_MESSAGE = 4;
+
+    private HistoryWindow() {}
+
+    /**
+     * The tail of {@code history} to send. A budget of zero or less applies no token limit; the
+     * window still starts on a turn boundary, so a history the store trimmed by count never
+     * opens on an orphaned tool result.
+     */
+    public static List<Map<String, Object>> fit(List<Map<String, Object>> history, int budgetTokens) {
+        if (history.isEmpty() || !ConversationDigest.isDigest(history.get(0))) {
+            return tail(history, budgetTokens);
+        }
+        // The digest of folded turns stands in for everything before the window, so it always goes.
+        Map<String, Object> digest = history.get(0);
+        int rest = budgetTokens > 0 ? Math.max(1, budgetTokens - estimateTokens(digest)) : budgetTokens;
+        List<Map<String, Object>> window = new ArrayList<>();
+        window.add(digest);
+        window.addAll(tail(history.subList(1, history.size()), rest));
+        return window;
+    }
+
+    private static List<Map<String, Object>> tail(List<Map<String, Object>> history, int budgetTokens) {
+        int end = history.size();
+        int start = 0;
+        if (budgetTokens > 0) {
+            int used = 0;
+            start = end;
+            while (start > 0) {
+                int cost = estimateTokens(history.get(start - 1));
+                if (used + cost > budgetTokens) {
+                    break;
+                }
+                used += cost;
+                start--;
+            }
+        }
+        for (int turn = start; turn < end; turn++) {
+            if ("user".equals(roleAt(history, turn))) {
+                return history.subList(turn, end);
+            }
+        }
+        // No turn starts inside the budget, so the current turn alone is over it: start on the
+        // first round that fits, or failing that, on the round the newest messages belong to.
+        for (int round = start; round < end; round++) {
+            if (!"tool".equals(roleAt(history, round))) {
+                return history.subList(round, end);
+            }
+        }
+        int round = Math.min(start, end);
+        while (round > 0 && "tool".equals(roleAt(history, round - 1))) {
+            round--;
+        }
+        return round > 0 ? history.subList(round - 1, end) : List.of();
+    }
+
+    /** A rough token count for one message: its text, and its tool calls' names and arguments. */
+    public static int estimateTokens(Map<String, Object> message) {
+        return PER_MESSAGE + (characters(message) + 3) / 4;
+    }
+
+    private static int characters(Object value) {
+        if (value instanceof CharSequence text) {
+            return text.length();
+        }
+        if (value instanceof Map<?, ?> map) {
+            int total = 0;
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                total += characters(entry.getKey()) + characters(entry.getValue());
+            }
+            return total;
+        }
+        if (value instanceof List<?> list) {
+            int total = 0;
+            for (Object element : list) {
+                total += characters(element);
+            }
+            return total;
+        }
+        return value == null ? 0 : 2;
+    }
+
+    private static Object roleAt(List<Map<String, Object>> history, int index) {
+        return history.get(index).get("role");
+    }
+}
@@ -0,0 +1,260 @@
+/**
+ * Copyright since 2026 Mifos Initiative
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file, You can obtain one at
+ * http://mozilla.org/MPL/2.0/.
+ */
+package org.mifos.community.copilot.core.convo;
+
+import org.mifos.community.copilot.core.metrics.Metrics;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Conversation state in this JVM's heap. The default: nothing to configure, and nothing survives
+ * a restart or is seen by another replica, which the web-app's own localStorage copy papers over.
+ *
+ * <p>Bounded across officers, not just per officer. Each conversation keeps a rough count of the
+ * bytes it holds on to; past {@code maxBytes} in all, the least recently used conversations,
+ * whoever they belong to, are dropped until the store is back under nine tenths of it. Officers
+ * idle for {@code idleAfter} are forgotten entirely, which also clears the entries left behind
+ * when a credential is rotated and the same officer comes back under a new fingerprint. A
+ * dropped conversation is gone; the officer's next message starts a new one. Each drop counts
+ * as {@code copilot.conversations.evictions}.
+ */
+public final class InMemoryConversationStore implements ConversationStore {
+
+    /** How often idle officers are looked for, on the back of ordinary calls. */
+    private static final Duration SWEEP_EVERY = Duration.ofMinutes(1);
+
+    /** One conversation; its log weighs each message in approximate bytes. */
+    private static final class Conversation {
+        final MessageLog messages = new MessageLog(MAX_MESSAGES, InMemoryConversationStore::approximateBytes);
+        final long started;
+        final AtomicBoolean released = new AtomicBoolean();
+        volatile long lastUsed;
+
+        Conversation(long started, long now) {
+            this.started = started;
+            this.lastUsed = now;
+        }
+    }
+
+    /**
+     * One officer's conversations. Reading and appending look one up without a lock; starting
+     * one, which may push out the oldest, and forgetting the officer lock the user.
+     */
+    private static final class User {
+        final Map<String, Conversation> conversations = new ConcurrentHashMap<>();
+        volatile long lastUsed;
+    }
+
+    /** fingerprint -> the officer's conversations */
+    private final Map<String, User> store = new ConcurrentHashMap<>();
+    private final long maxBytes;
+    private final long idleAfterMs;
+    private final Clock clock;
+    private final Metrics metrics;
+    private final AtomicLong retained = new AtomicLong();
+    private final AtomicLong started = new AtomicLong();
+    private volatile long nextSweep;
+
+    /** Unbounded across officers: what the gateway did before a budget could be set. */
+    public InMemoryConversationStore() {
+        this(0, Duration.ZERO);
+    }
+
+    /**
+     * @param maxBytes rough heap budget for every conversation together; zero means none
+     * @param idleAfter how long an officer may go without a call before they are forgotten;
+     *     zero keeps them
+     */
+    public InMemoryConversationStore(long maxBytes, Duration idleAfter) {
+        this(maxBytes, idleAfter, Metrics.NOOP);
+    }
+
+    /** @param metrics counts the conversations dropped */
+    public InMemoryConversationStore(long maxBytes, Duration idleAfter, Metrics metrics) {
+        this(maxBytes, idleAfter, metrics, Clock.systemUTC());
+    }
+
+    InMemoryConversationStore(long maxBytes, Duration idleAfter, Metrics metrics, Clock clock) {
+        this.maxBytes = maxBytes;
+        this.idleAfterMs = idleAfter.toMillis();
+        this.metrics = metrics;
+        this.clock = clock;
+        this.nextSweep = clock.millis() + SWEEP_EVERY.toMillis();
+    }
+
+    @Override
+    public String resolve(String fingerprint, String conversationId) {
+        User user = user(fingerprint);
+        Conversation known = conversationId == null ? null : user.conversations.get(conversationId);
+        if (known != null) {
+            known.lastUsed = user.lastUsed;
+            return conversationId;
+        }
+        // The same officer can run concurrent turns (two tabs, chat + decision); starting under
+        // the user's lock keeps them to the cap between them.
+        synchronized (user) {
+            String id = "conv-" + UUID.randomUUID();
+            user.conversations.put(id, new Conversation(started.incrementAndGet(), user.lastUsed));
+            if (user.conversations.size() > MAX_CONVERSATIONS_PER_USER) {
+                user.conversations.entrySet().stream()
+                        .min(Comparator.comparingLong((entry) -> entry.getValue().started))
+                        .ifPresent((oldest) -> {
+                            if (user.conversations.remove(oldest.getKey(), oldest.getValue())) {
+                                release(oldest.getValue());
+                            }
+                        });
+            }
+            return id;
+        }
+    }
+
+    @Override
+    public List<Map<String, Object>> messages(String fingerprint, String conversationId) {
+        User user = user(fingerprint);
+        Conversation conversation = conversationId == null ? null : user.conversations.get(conversationId);
+        if (conversation == null) {
+            return new ArrayList<>();
+        }
+        conversation.lastUsed = user.lastUsed;
+        return conversation.messages.snapshot();
+    }
+
+    @Override
+    public void append(String fingerprint, String conversationId, Map<String, Object> message) {
+        User user = user(fingerprint);
+        Conversation conversation = conversationId == null ? null : user.conversations.get(conversationId);
+        if (conversation == null) {
+            // Dropped since it was resolved. Starting it afresh here would keep a tool result
+            // without the tool_calls message it answers, which the model's API refuses.
+            return;
+        }
+        conversation.lastUsed = user.lastUsed;
+        // A conversation evicted meanwhile is sealed, so the message goes nowhere and counts for nothing.
+        retained.addAndGet(conversation.messages.append(message));
+        if (maxBytes > 0 && retained.get() > maxBytes) {
+            evictDownTo(maxBytes * 9 / 10);
+        }
+    }
+
+    @Override
+    public void fold(String fingerprint, String conversationId, Map<String, Object> firstKept,
+            Map<String, Object> digest) {
+        Conversation conversation = conversationId == null ? null : user(fingerprint).conversations.get(conversationId);
+        if (conversation != null) {
+            retained.addAndGet(conversation.messages.fold(firstKept, digest));
+        }
+    }
+
+    /** The rough heap held by every conversation together, in bytes. */
+    public long retainedBytes() {
+        return retained.get();
+    }
+
+    /** Conversations held right now, across every officer; counted when scraped, not kept. */
+    public long conversations() {
+        long held = 0;
+        for (User user : store.values()) {
+            held += user.conversations.size();
+        }
+        return held;
+    }
+
+    private User user(String fingerprint) {
+        long now = clock.millis();
+        if (now >= nextSweep) {
+            nextSweep = now + SWEEP_EVERY.toMillis();
+            forgetIdle(now);
+        }
+        User user = store.computeIfAbsent(fingerprint, (key) -> new User());
+        user.lastUsed = now;
+        return user;
+    }
+
+    private void forgetIdle(long now) {
+        if (idleAfterMs <= 0) {
+            return;
+        }
+        store.forEach((fingerprint, user) -> {
+            if (now - user.lastUsed < idleAfterMs) {
+                return;
+            }
+            synchronized (user) {
+                // Removed under the officer's lock, so a call that has just found them sees the
+                // removal and the next one starts afresh.
+                if (now - user.lastUsed >= idleAfterMs && store.remove(fingerprint, user)) {
+                    user.conversations.values().forEach(this::release);
+                    user.conversations.clear();
+                }
+            }
+        });
+    }
+
+    /** Drops the least recently used conversations, across every officer, until within {@code target}. */
+    private synchronized void evictDownTo(long target) {
+        if (retained.get() <= target) {
+            return; // Another caller has just done it.
+        }
+        record Candidate(User user, String id, Conversation conversation, long lastUsed) {}
+        List<Candidate> candidates = new ArrayList<>();
+        store.values().forEach((user) -> {
+            user.conversations.forEach((id, conversation) ->
+                    candidates.add(new Candidate(user, id, conversation, conversation.lastUsed)));
+        });
+        candidates.sort(Comparator.comparingLong(Candidate::lastUsed));
+        // The most recent conversation stays, even over budget on its own: it is the one in use.
+        for (int i = 0; i < candidates.size() - 1 && retained.get() > target; i++) {
+            Candidate candidate = candidates.get(i);
+            if (candidate.user().conversations.remove(candidate.id(), candidate.conversation())) {
+                release(candidate.conversation());
+            }
+        }
+    }
+
+    private void release(Conversation conversation) {
+        if (conversation.released.compareAndSet(false, true)) {
+            retained.addAndGet(conversation.messages.seal());
+            metrics.increment("copilot.conversations.evictions");
+        }
+    }
+
+    /**
+     * Roughly what {@code value} holds on the heap: its text, plus a fixed cost per object, map
+     * entry and list slot. Keys are not counted, since they are the same few literals in every
+     * message. Close enough to budget by; not a measurement.
+     */
+    static long approximateBytes(Object value) {
+        if (value instanceof CharSequence text) {
+            return 40 + text.length();
+        }
+        if (value instanceof Map<?, ?> map) {
+            long bytes = 48;
+            for (Object entry : map.values()) {
+                bytes += 32 + approximateBytes(entry);
+            }
+            return bytes;
+        }
+        if (value instanceof Collection<?> collection) {
+            long bytes = 40;
+            for (Object element : collection) {
+                bytes += 8 + approximateBytes(element);
+            }
+            return bytes;
+        }
+        return 16;
+    }
+}
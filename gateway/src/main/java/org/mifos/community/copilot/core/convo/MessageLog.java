@@ -0,0 +1,199 @@
+/**
+ * Copyright since 2026 Mifos Initiative
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file, You can obtain one at
+ * http://mozilla.org/MPL/2.0/.
+ */
+package org.mifos.community.copilot.core.convo;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.ToLongFunction;
+
+/**
+ * One conversation's messages, at most {@code capacity} of them, as a series of immutable
+ * snapshots. Readers take the current snapshot and never block or see it change; writers swap in
+ * the next one with a compare-and-set and retry if another got there first.
+ *
+ * <p>An append does not copy. Snapshots share one array of twice the capacity, and each slot in
+ * it is claimed once, by the first append from the snapshot that ends there, and written before
+ * that append's snapshot is published; the snapshot just moves its window one slot on. Only when
+ * the array runs out, once every {@code capacity} appends, are the kept messages copied to a new
+ * one. A claimed slot whose snapshot lost the race is never inside a published window.
+ *
+ * <p>Each snapshot carries the total {@code weight} of what it keeps reachable, and every change
+ * returns what it added to that total, so a store can keep a running sum across conversations
+ * that is exact without a lock. That is its messages plus the ones dropped from the front of the
+ * shared array, which stay there, since older snapshots may still be reading them, until the next
+ * copy lets them go; a full log can so weigh up to twice its messages. A sealed log ignores every
+ * later change.
+ */
+final class MessageLog {
+
+    private static final ToLongFunction<Map<String, Object>> UNWEIGHED = (message) -> 0;
+
+    /** Slots shared by the snapshots taken from it; {@code claimed} only ever grows. */
+    private static final class Chunk {
+        final Object[] slots;
+        final AtomicInteger claimed;
+
+        Chunk(Object[] slots, int claimed) {
+            this.slots = slots;
+            this.claimed = new AtomicInteger(claimed);
+        }
+    }
+
+    /**
+     * The messages in {@code [from, to)} of a chunk; immutable once published. {@code weight} is
+     * theirs, {@code dropped} that of the messages before {@code from} the chunk still holds.
+     */
+    private static final class Snapshot extends AbstractList<Map<String, Object>> implements RandomAccess {
+        final Chunk chunk;
+        final int from;
+        final int to;
+        final long weight;
+        final long dropped;
+        final boolean sealed;
+
+        Snapshot(Chunk chunk, int from, int to, long weight, long dropped, boolean sealed) {
+            this.chunk = chunk;
+            this.from = from;
+            this.to = to;
+            this.weight = weight;
+            this.dropped = dropped;
+            this.sealed = sealed;
+        }
+
+        long held() {
+            return weight + dropped;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Map<String, Object> get(int index) {
+            if (index < 0 || index >= to - from) {
+                throw new IndexOutOfBoundsException(index);
+            }
+            return (Map<String, Object>) chunk.slots[from + index];
+        }
+
+        @Override
+        public int size() {
+            return to - from;
+        }
+    }
+
+    private final int capacity;
+    private final ToLongFunction<Map<String, Object>> weigher;
+    private final Snapshot empty;
+    private final AtomicReference<Snapshot> current;
+
+    MessageLog(int capacity) {
+        this(capacity, UNWEIGHED);
+    }
+
+    MessageLog(int capacity, ToLongFunction<Map<String, Object>> weigher) {
+        this.capacity = capacity;
+        this.weigher = weigher;
+        this.empty = new Snapshot(new Chunk(new Object[0], 0), 0, 0, 0, 0, false);
+        this.current = new AtomicReference<>(empty);
+    }
+
+    /** The messages as of now, oldest first; later changes never show up in it. */
+    List<Map<String, Object>> snapshot() {
+        return current.get();
+    }
+
+    /** Total weight of what the log holds as of now, dropped messages not yet let go included. */
+    long weight() {
+        return current.get().held();
+    }
+
+    /** Adds {@code message} at the end, dropping the oldest when full; returns the change in weight. */
+    long append(Map<String, Object> message) {
+        long added = weigher.applyAsLong(message);
+        while (true) {
+            Snapshot before = current.get();
+            if (before.sealed) {
+                return 0;
+            }
+            Snapshot after = plus(before, message, added);
+            if (current.compareAndSet(before, after)) {
+                return after.held() - before.held();
+            }
+        }
+    }
+
+    /**
+     * Replaces every message before {@code firstKept} with {@code digest}; an append that lands
+     * meanwhile makes it start over on the longer log. Returns the change in weight, or zero when
+     * {@code firstKept} is no longer there or is already first.
+     */
+    long fold(Map<String, Object> firstKept, Map<String, Object> digest) {
+        long digestWeight = weigher.applyAsLong(digest);
+        while (true) {
+            Snapshot before = current.get();
+            int keepFrom = before.sealed ? -1 : before.indexOf(firstKept);
+            if (keepFrom <= 0) {
+                return 0;
+            }
+            int kept = Math.min(before.size() - keepFrom, capacity - 1);
+            Object[] slots = new Object[2 * capacity];
+            slots[0] = digest;
+            long weight = digestWeight;
+            for (int i = 0; i < kept; i++) {
+                slots[1 + i] = before.get(before.size() - kept + i);
+                weight += weigher.applyAsLong(before.get(before.size() - kept + i));
+            }
+            Snapshot after = new Snapshot(new Chunk(slots, 1 + kept), 0, 1 + kept, weight, 0, false);
+            if (current.compareAndSet(before, after)) {
+                return after.held() - before.held();
+            }
+        }
+    }
+
+    /** Empties the log; returns the change in weight. */
+    long clear() {
+        return -current.getAndSet(empty).held();
+    }
+
+    /**
+     * Empties the log for good: every later change does nothing. Returns the change in weight
+     * the first time and zero after, so a caller can release what the log held exactly once.
+     */
+    long seal() {
+        while (true) {
+            Snapshot before = current.get();
+            if (before.sealed) {
+                return 0;
+            }
+            if (current.compareAndSet(before, new Snapshot(empty.chunk, 0, 0, 0, 0, true))) {
+                return -before.held();
+            }
+        }
+    }
+
+    private Snapshot plus(Snapshot before, Map<String, Object> message, long added) {
+        boolean full = before.size() == capacity;
+        int from = full ? before.from + 1 : before.from;
+        long oldest = full ? weigher.applyAsLong(before.get(0)) : 0;
+        long weight = before.weight + added - oldest;
+        Chunk chunk = before.chunk;
+        // The slot is written before the compare-and-set that publishes it, which orders the write
+        // before any read of the new snapshot.
+        if (before.to < chunk.slots.length && chunk.claimed.compareAndSet(before.to, before.to + 1)) {
+            chunk.slots[before.to] = message;
+            return new Snapshot(chunk, from, before.to + 1, weight, before.dropped + oldest, false);
+        }
+        int kept = before.to - from;
+        Object[] slots = new Object[2 * capacity];
+        System.arraycopy(chunk.slots, from, slots, 0, kept);
+        slots[kept] = message;
+        return new Snapshot(new Chunk(slots, kept + 1), 0, kept + 1, weight, 0, false);
+    }
+}
@@ -9,6 +9,7 @@ package org.mifos.community.copilot.core.llm;
 
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.BooleanSupplier;
 import java.util.function.Consumer;
 
@@ -21,8 +22,11 @@ public interface LlmClient {
     /**
      * Run one completion turn, streaming text deltas to {@code onToken} as they arrive.
      *
-     * @param messages  OpenAI-style chat messages (role/content/tool_calls/tool_call_id maps)
-     * @param tools     OpenAI-style tool schemas the model may call (already role-filtered)
+     * @param messages  OpenAI-style chat messages (role/content/tool_calls/tool_call_id maps);
+     *                  a first message passed again as the same instance must be unchanged,
+     *                  since a client may reuse its encoding
+     * @param tools     OpenAI-style tool schemas the model may call (already role-filtered);
+     *                  likewise never changed once passed
      * @param onToken   receives assistant text deltas for live streaming to the browser
      * @param cancelled polled between chunks; when true the turn is abandoned quietly
      * @return the assembled result: final text plus any tool calls the model requested
@@ -30,4 +34,26 @@ public interface LlmClient {
      */
     LlmResult complete(List<Map<String, Object>> messages, List<Map<String, Object>> tools, Consumer<String> onToken,
             BooleanSupplier cancelled) throws LlmException;
+
+    /** The model this client asks, as metrics tag it; a client that cannot say reports {@code unknown}. */
+    default String model() {
+        return "unknown";
+    }
+
+    /**
+     * {@link #complete} without holding a thread while the model streams: {@code onToken} is
+     * called from whichever thread delivers the bytes, and the future fails with an
+     * {@link LlmException} where {@code complete} would throw one.
+     *
+     * <p>By default this runs {@code complete} on the calling thread and hands back a finished
+     * future, which is correct for every client, only not thread-free.
+     */
+    default CompletableFuture<LlmResult> completeAsync(List<Map<String, Object>> messages,
+            List<Map<String, Object>> tools, Consumer<String> onToken, BooleanSupplier cancelled) {
+        try {
+            return CompletableFuture.completedFuture(complete(messages, tools, onToken, cancelled));
+        } catch (LlmException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
 }
@@ -9,8 +9,13 @@ package org.mifos.community.copilot.core.llm;
 
 import java.util.List;
 
-/** Assembled outcome of one LLM turn: the streamed text and any requested tool calls. */
-public record LlmResult(String text, List<LlmToolCall> toolCalls) {
+/** Assembled outcome of one LLM turn: the streamed text, any requested tool calls, and the token bill. */
+public record LlmResult(String text, List<LlmToolCall> toolCalls, LlmUsage usage) {
+
+    /** A result whose cost was not reported. */
+    public LlmResult(String text, List<LlmToolCall> toolCalls) {
+        this(text, toolCalls, LlmUsage.NONE);
+    }
 
     public boolean wantsTools() {
         return toolCalls != null && !toolCalls.isEmpty();
@@ -0,0 +1,20 @@
+/**
+ * Copyright since 2026 Mifos Initiative
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file, You can obtain one at
+ * http://mozilla.org/MPL/2.0/.
+ */
+package org.mifos.community.copilot.core.llm;
+
+/**
+ * What one completion cost, as the provider reported it in the stream's final chunk.
+ *
+ * @param cachedPromptTokens the part of {@code promptTokens} served from the provider's prompt
+ *     cache, which is billed at a discount and arrives sooner
+ */
+public record LlmUsage(long promptTokens, long cachedPromptTokens, long completionTokens) {
+
+    /** The provider reported nothing, or the client does not ask. */
+    public static final LlmUsage NONE = new LlmUsage(0, 0, 0);
+}
@@ -7,23 +7,33 @@
  */
 package org.mifos.community.copilot.core.llm;
 
-import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
+import org.mifos.community.copilot.core.metrics.Metrics;
+
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringWriter;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
 import java.time.Duration;
 import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Flow;
 import java.util.function.BooleanSupplier;
 import java.util.function.Consumer;
-import java.util.stream.Stream;
 
 /**
  * Streaming client for any OpenAI-compatible chat-completions API: Groq cloud
@@ -41,114 +51,513 @@ public final class OpenAiCompatibleLlmClient implements LlmClient {
     private final String baseUrl;
     private final String apiKey;
     private final String model;
+    private final Metrics metrics;
+    private final boolean streamUsage;
+    private final boolean trailingSystem;
+    /** The tools list last sent and its encoding; the manifest hands over the same list every round. */
+    private volatile Encoded lastTools;
+    /** Likewise the first message, which the agent loop keeps to one unchanging rules instance. */
+    private volatile Encoded lastPrefix;
+
+    /** A value already written as JSON, remembered by identity with the value it came from. */
+    private record Encoded(Object source, String json) {}
 
     public OpenAiCompatibleLlmClient(String baseUrl, String apiKey, String model) {
+        this(baseUrl, apiKey, model, Metrics.NOOP);
+    }
+
+    /**
+     * @param metrics receives time to first token, the duration and outcome of every request, and the
+     *     token bill of every completion, including how much of the prompt the provider served from its cache
+     */
+    public OpenAiCompatibleLlmClient(String baseUrl, String apiKey, String model, Metrics metrics) {
+        this(baseUrl, apiKey, model, metrics, true, true);
+    }
+
+    /**
+     * For providers that fall short of the OpenAI wire shape in either of two ways.
+     *
+     * @param streamUsage whether to ask for the token bill with {@code stream_options}; some
+     *     engines, Azure OpenAI API versions before its support among them, refuse the request
+     *     outright when it is present
+     * @param trailingSystem whether a system message may follow the conversation; when not, every
+     *     system message is folded into the leading one, for chat templates (some vLLM and
+     *     Ollama models) that reject a system message anywhere else. That leading message then
+     *     changes each round, so the provider's prompt cache no longer covers the rules.
+     */
+    public OpenAiCompatibleLlmClient(String baseUrl, String apiKey, String model, Metrics metrics,
+            boolean streamUsage, boolean trailingSystem) {
         this.baseUrl = baseUrl.replaceAll("/+$", "");
         this.apiKey = apiKey;
         this.model = model;
+        this.metrics = metrics;
+        this.streamUsage = streamUsage;
+        this.trailingSystem = trailingSystem;
         this.http = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build();
     }
 
+    @Override
+    public String model() {
+        return model;
+    }
+
     @Override
     public LlmResult complete(List<Map<String, Object>> messages, List<Map<String, Object>> tools,
             Consumer<String> onToken, BooleanSupplier cancelled) throws LlmException {
-        Map<String, Object> body = new LinkedHashMap<>();
-        body.put("model", model);
-        body.put("messages", messages);
-        body.put("stream", true);
-        body.put("temperature", 0.2);
-        if (tools != null && !tools.isEmpty()) {
-            body.put("tools", tools);
+        HttpRequest request = request(messages, tools);
+        long sentAt = System.nanoTime();
+        try {
+            LlmResult result = send(request, onToken, cancelled, sentAt);
+            requestTimer(sentAt, null);
+            return result;
+        } catch (LlmException e) {
+            requestTimer(sentAt, e);
+            throw e;
+        }
+    }
+
+    private LlmResult send(HttpRequest request, Consumer<String> onToken, BooleanSupplier cancelled, long sentAt)
+            throws LlmException {
+        HttpResponse<InputStream> response;
+        try {
+            response = http.send(request, HttpResponse.BodyHandlers.ofInputStream());
+        } catch (IOException | InterruptedException e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            throw new LlmException("LLM provider unreachable at " + baseUrl, e);
+        }
+        if (response.statusCode() != 200) {
+            closeQuietly(response.body()); // Release the connection before bailing.
+            throw statusFailure(response.statusCode());
         }
+        return recorded(consumeStream(response.body(), onToken, cancelled, firstTokenTimer(sentAt)));
+    }
 
+    /**
+     * The same exchange with the body pushed to a parser as it arrives, so no thread waits on the
+     * provider between tokens. Tokens reach {@code onToken} on the HTTP client's threads.
+     */
+    @Override
+    public CompletableFuture<LlmResult> completeAsync(List<Map<String, Object>> messages,
+            List<Map<String, Object>> tools, Consumer<String> onToken, BooleanSupplier cancelled) {
         HttpRequest request;
+        try {
+            request = request(messages, tools);
+        } catch (LlmException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        long sentAt = System.nanoTime();
+        Assembly assembly = new Assembly(onToken, firstTokenTimer(sentAt));
+        return http.sendAsync(request, (info) -> info.statusCode() == 200
+                        ? new StreamSubscriber(assembly, cancelled)
+                        : HttpResponse.BodySubscribers.replacing((LlmResult) null))
+                .handle((response, error) -> {
+                    Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+                    if (cause instanceof LlmException e) {
+                        throw new CompletionException(e);
+                    } else if (cause != null) {
+                        throw new CompletionException(new LlmException("LLM provider unreachable at " + baseUrl, cause));
+                    } else if (response.statusCode() != 200) {
+                        throw new CompletionException(statusFailure(response.statusCode()));
+                    }
+                    return recorded(response.body());
+                })
+                .whenComplete((result, error) -> requestTimer(sentAt, error));
+    }
+
+    private Runnable firstTokenTimer(long sentAt) {
+        return () -> metrics.record("copilot.llm.first_token", System.nanoTime() - sentAt, "model", model);
+    }
+
+    /**
+     * Times one request to its end, as {@code ok}, {@code rate_limited} (HTTP 429) or
+     * {@code unavailable} (anything else that failed), the split the officer is shown.
+     */
+    private void requestTimer(long sentAt, Throwable error) {
+        Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+        String outcome = cause == null ? "ok"
+                : cause instanceof LlmException e && e.isRateLimited() ? "rate_limited" : "unavailable";
+        metrics.record("copilot.llm.requests", System.nanoTime() - sentAt, "model", model, "outcome", outcome);
+    }
+
+    private LlmException statusFailure(int status) {
+        if (status == 429) {
+            return new LlmException("LLM provider rate limit hit", null, true);
+        }
+        return new LlmException("LLM provider returned HTTP " + status, null);
+    }
+
+    /** Books the token bill a completion reported. */
+    private LlmResult recorded(LlmResult result) {
+        LlmUsage usage = result.usage();
+        if (usage != LlmUsage.NONE) {
+            metrics.increment("copilot.llm.tokens", usage.promptTokens(), "model", model, "kind", "prompt");
+            metrics.increment("copilot.llm.tokens", usage.cachedPromptTokens(), "model", model, "kind", "cached");
+            metrics.increment("copilot.llm.tokens", usage.completionTokens(), "model", model, "kind", "completion");
+        }
+        return result;
+    }
+
+    private HttpRequest request(List<Map<String, Object>> messages, List<Map<String, Object>> tools)
+            throws LlmException {
         try {
             HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUrl + "/chat/completions"))
                     // Whole-exchange deadline: a hung provider must never pin a worker thread
                     // forever. Generous because it also spans the full streamed response.
                     .timeout(Duration.ofSeconds(180))
                     .header("Content-Type", "application/json")
-                    .POST(HttpRequest.BodyPublishers.ofString(mapper.writeValueAsString(body)));
+                    .POST(HttpRequest.BodyPublishers.ofString(requestBody(messages, tools)));
             if (apiKey != null && !apiKey.isBlank()) {
                 builder.header("Authorization", "Bearer " + apiKey);
             }
-            request = builder.build();
+            return builder.build();
         } catch (IOException e) {
             throw new LlmException("Failed to encode LLM request", e);
         }
+    }
 
-        HttpResponse<Stream<String>> response;
-        try {
-            response = http.send(request, HttpResponse.BodyHandlers.ofLines());
-        } catch (IOException | InterruptedException e) {
-            if (e instanceof InterruptedException) {
-                Thread.currentThread().interrupt();
+    /**
+     * The chat-completions request. The tools and the leading rules message are spliced in as
+     * JSON encoded on first sight, so they cost nothing per round and come out byte-identical
+     * every time, which is what a provider's prompt cache keys on.
+     */
+    String requestBody(List<Map<String, Object>> messages, List<Map<String, Object>> tools)
+            throws IOException { // package-private for tests
+        List<Map<String, Object>> sent = trailingSystem ? messages : oneSystemMessage(messages);
+        StringWriter out = new StringWriter(4096);
+        try (JsonGenerator json = mapper.getFactory().createGenerator(out)) {
+            json.writeStartObject();
+            json.writeStringField("model", model);
+            json.writeArrayFieldStart("messages");
+            for (int i = 0; i < sent.size(); i++) {
+                Map<String, Object> message = sent.get(i);
+                if (i == 0) {
+                    lastPrefix = encoded(lastPrefix, message);
+                    json.writeRawValue(lastPrefix.json());
+                } else {
+                    mapper.writeValue(json, message);
+                }
             }
-            throw new LlmException("LLM provider unreachable at " + baseUrl, e);
+            json.writeEndArray();
+            json.writeBooleanField("stream", true);
+            if (streamUsage) {
+                // Ask for the token bill in a final chunk.
+                json.writeObjectFieldStart("stream_options");
+                json.writeBooleanField("include_usage", true);
+                json.writeEndObject();
+            }
+            json.writeNumberField("temperature", 0.2);
+            if (tools != null && !tools.isEmpty()) {
+                lastTools = encoded(lastTools, tools);
+                json.writeFieldName("tools");
+                json.writeRawValue(lastTools.json());
+            }
+            json.writeEndObject();
         }
-        if (response.statusCode() != 200) {
-            response.body().close(); // Release the connection before bailing.
-            if (response.statusCode() == 429) {
-                throw new LlmException("LLM provider rate limit hit", null, true);
+        return out.toString();
+    }
+
+    /**
+     * {@code messages} with every system message after the first folded into it, one line apart,
+     * which is the single prompt the agent loop sent before it split the rules from the turn's
+     * context. Unchanged, and the same instance, when there is nothing to fold.
+     */
+    private static List<Map<String, Object>> oneSystemMessage(List<Map<String, Object>> messages) {
+        if (messages.isEmpty() || !"system".equals(messages.get(0).get("role"))
+                || messages.stream().skip(1).noneMatch((message) -> "system".equals(message.get("role")))) {
+            return messages;
+        }
+        StringBuilder prompt = new StringBuilder(String.valueOf(messages.get(0).get("content")));
+        List<Map<String, Object>> rest = new ArrayList<>(messages.size());
+        for (Map<String, Object> message : messages.subList(1, messages.size())) {
+            if ("system".equals(message.get("role"))) {
+                prompt.append('\n').append(message.get("content"));
+            } else {
+                rest.add(message);
             }
-            throw new LlmException("LLM provider returned HTTP " + response.statusCode(), null);
         }
+        Map<String, Object> system = new LinkedHashMap<>(messages.get(0));
+        system.put("content", prompt.toString());
+        rest.add(0, system);
+        return rest;
+    }
 
-        return consumeStream(response.body(), onToken, cancelled);
+    /** {@code previous} if it was made from this very value, otherwise a fresh encoding of it. */
+    private Encoded encoded(Encoded previous, Object value) throws IOException {
+        if (previous != null && previous.source() == value) {
+            return previous;
+        }
+        return new Encoded(value, mapper.writeValueAsString(value));
     }
 
-    /** Assemble content deltas and fragmented tool_calls from the SSE line stream. */
-    private LlmResult consumeStream(Stream<String> lines, Consumer<String> onToken, BooleanSupplier cancelled)
-            throws LlmException {
-        StringBuilder text = new StringBuilder();
+    LlmResult consumeStream(InputStream body, Consumer<String> onToken, BooleanSupplier cancelled)
+            throws LlmException { // package-private for benchmarks
+        return consumeStream(body, onToken, cancelled, () -> {});
+    }
+
+    /**
+     * Assemble content deltas and fragmented tool_calls from the SSE byte stream, plus the usage
+     * a provider reports in its final chunk when asked. Each chunk is read with a streaming
+     * parser that picks out {@code choices[0].delta} and {@code usage} and skips the rest, so no
+     * tree is built per token.
+     *
+     * @param onFirstDelta run once, when the first text or tool-call fragment arrives
+     */
+    LlmResult consumeStream(InputStream body, Consumer<String> onToken, BooleanSupplier cancelled,
+            Runnable onFirstDelta) throws LlmException {
+        Assembly assembly = new Assembly(onToken, onFirstDelta);
+        try (InputStream stream = body) {
+            SseReader events = new SseReader(stream);
+            while (!cancelled.getAsBoolean() && events.next()) {
+                readPayload(events, assembly);
+            }
+        } catch (IOException e) {
+            throw new LlmException("Failed to read the LLM stream", e);
+        }
+        return assembled(assembly);
+    }
+
+    private void readPayload(SseReader events, Assembly assembly) throws IOException {
+        if (events.payloadIs("[DONE]")) {
+            return;
+        }
+        try (JsonParser chunk = mapper.getFactory().createParser(events.bytes(), events.offset(), events.length())) {
+            readChunk(chunk, assembly);
+        }
+    }
+
+    private LlmResult assembled(Assembly assembly) {
+        List<LlmToolCall> calls = new ArrayList<>();
+        for (PartialToolCall call : assembly.partial.values()) {
+            if (call.name == null) {
+                continue;
+            }
+            calls.add(new LlmToolCall(call.id, call.name, parseArguments(call.arguments.toString())));
+        }
+        return new LlmResult(assembly.text.toString(), calls, assembly.usage);
+    }
+
+    /**
+     * Parses the body as the client delivers it, one buffer at a time. Cancellation is noticed
+     * at the next buffer; the turn then completes with what had arrived, as the blocking path does.
+     */
+    private final class StreamSubscriber implements HttpResponse.BodySubscriber<LlmResult> {
+
+        private final Assembly assembly;
+        private final BooleanSupplier cancelled;
+        private final SseReader events = new SseReader();
+        private final CompletableFuture<LlmResult> result = new CompletableFuture<>();
+        private Flow.Subscription subscription;
+
+        private StreamSubscriber(Assembly assembly, BooleanSupplier cancelled) {
+            this.assembly = assembly;
+            this.cancelled = cancelled;
+        }
+
+        @Override
+        public CompletionStage<LlmResult> getBody() {
+            return result;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            subscription.request(1);
+        }
+
+        @Override
+        public void onNext(List<ByteBuffer> buffers) {
+            try {
+                for (ByteBuffer buffer : buffers) {
+                    if (cancelled.getAsBoolean()) {
+                        subscription.cancel();
+                        result.complete(assembled(assembly));
+                        return;
+                    }
+                    events.feed(buffer, (payload) -> readPayload(payload, assembly));
+                }
+            } catch (IOException | RuntimeException e) {
+                subscription.cancel();
+                result.completeExceptionally(new LlmException("Failed to read the LLM stream", e));
+                return;
+            }
+            subscription.request(1);
+        }
+
+        @Override
+        public void onError(Throwable error) {
+            result.completeExceptionally(new LlmException("Failed to read the LLM stream", error));
+        }
+
+        @Override
+        public void onComplete() {
+            try {
+                events.finish((payload) -> readPayload(payload, assembly));
+                result.complete(assembled(assembly));
+            } catch (IOException | RuntimeException e) {
+                result.completeExceptionally(new LlmException("Failed to read the LLM stream", e));
+            }
+        }
+    }
+
+    /** What one stream has delivered so far. */
+    private static final class Assembly {
+        private final Consumer<String> onToken;
+        private final Runnable onFirstDelta;
+        private final StringBuilder text = new StringBuilder();
         // OpenAI streams tool calls as fragments keyed by index: name arrives once,
         // the JSON `arguments` string arrives in pieces that must be concatenated.
-        Map<Integer, PartialToolCall> partial = new TreeMap<>();
-        try (Stream<String> stream = lines) {
-            for (String line : (Iterable<String>) stream::iterator) {
-                if (cancelled.getAsBoolean()) {
-                    break;
+        private final Map<Integer, PartialToolCall> partial = new TreeMap<>();
+        private LlmUsage usage = LlmUsage.NONE;
+        private boolean started;
+
+        private Assembly(Consumer<String> onToken, Runnable onFirstDelta) {
+            this.onToken = onToken;
+            this.onFirstDelta = onFirstDelta;
+        }
+
+        private void started() {
+            if (!started) {
+                started = true;
+                onFirstDelta.run();
+            }
+        }
+    }
+
+    /** One {@code data:} payload: {@code {"choices":[{"delta":{...}}], "usage":{...}}}. */
+    private void readChunk(JsonParser json, Assembly assembly) throws IOException {
+        if (json.nextToken() != JsonToken.START_OBJECT) {
+            return;
+        }
+        while (json.nextToken() == JsonToken.FIELD_NAME) {
+            String field = json.currentName();
+            JsonToken value = json.nextToken();
+            if ("choices".equals(field) && value == JsonToken.START_ARRAY) {
+                if (json.nextToken() == JsonToken.START_OBJECT) {
+                    readChoice(json, assembly);
+                    while (json.nextToken() != JsonToken.END_ARRAY) {
+                        json.skipChildren(); // Only the first choice is ever requested.
+                    }
                 }
-                if (!line.startsWith("data:")) {
-                    continue;
+            } else if ("usage".equals(field) && value == JsonToken.START_OBJECT) {
+                assembly.usage = readUsage(json);
+            } else {
+                json.skipChildren();
+            }
+        }
+    }
+
+    private void readChoice(JsonParser json, Assembly assembly) throws IOException {
+        while (json.nextToken() == JsonToken.FIELD_NAME) {
+            String field = json.currentName();
+            if (json.nextToken() == JsonToken.START_OBJECT && "delta".equals(field)) {
+                readDelta(json, assembly);
+            } else {
+                json.skipChildren();
+            }
+        }
+    }
+
+    private void readDelta(JsonParser json, Assembly assembly) throws IOException {
+        while (json.nextToken() == JsonToken.FIELD_NAME) {
+            String field = json.currentName();
+            JsonToken value = json.nextToken();
+            if ("content".equals(field) && value == JsonToken.VALUE_STRING) {
+                String content = json.getText();
+                if (!content.isEmpty()) {
+                    assembly.started();
+                    assembly.text.append(content);
+                    assembly.onToken.accept(content);
                 }
-                String payload = line.substring(5).trim();
-                if (payload.isEmpty() || "[DONE]".equals(payload)) {
-                    continue;
+            } else if ("tool_calls".equals(field)) {
+                assembly.started();
+                if (value == JsonToken.START_ARRAY) {
+                    while (json.nextToken() == JsonToken.START_OBJECT) {
+                        readToolCallFragment(json, assembly);
+                    }
+                } else {
+                    json.skipChildren();
                 }
-                JsonNode delta = mapper.readTree(payload).path("choices").path(0).path("delta");
-                JsonNode content = delta.path("content");
-                if (content.isTextual() && !content.asText().isEmpty()) {
-                    text.append(content.asText());
-                    onToken.accept(content.asText());
+            } else {
+                json.skipChildren();
+            }
+        }
+    }
+
+    /** The fields of a fragment may come in any order, so they are gathered before being applied. */
+    private void readToolCallFragment(JsonParser json, Assembly assembly) throws IOException {
+        int index = 0;
+        String id = null;
+        String name = null;
+        String arguments = null;
+        while (json.nextToken() == JsonToken.FIELD_NAME) {
+            String field = json.currentName();
+            JsonToken value = json.nextToken();
+            switch (field) {
+                case "index" -> index = json.getValueAsInt(0);
+                case "id" -> {
+                    id = json.getValueAsString(); // Null for a JSON null or a non-scalar.
+                    json.skipChildren();
                 }
-                for (JsonNode fragment : delta.path("tool_calls")) {
-                    int index = fragment.path("index").asInt(0);
-                    PartialToolCall call = partial.computeIfAbsent(index, (i) -> new PartialToolCall());
-                    if (fragment.hasNonNull("id")) {
-                        call.id = fragment.get("id").asText();
+                case "function" -> {
+                    if (value != JsonToken.START_OBJECT) {
+                        json.skipChildren();
+                        continue;
                     }
-                    JsonNode function = fragment.path("function");
-                    if (function.hasNonNull("name")) {
-                        call.name = function.get("name").asText();
-                    }
-                    if (function.hasNonNull("arguments")) {
-                        call.arguments.append(function.get("arguments").asText());
+                    while (json.nextToken() == JsonToken.FIELD_NAME) {
+                        String part = json.currentName();
+                        json.nextToken();
+                        if ("name".equals(part)) {
+                            name = json.getValueAsString();
+                        } else if ("arguments".equals(part)) {
+                            arguments = json.getValueAsString();
+                        }
+                        json.skipChildren();
                     }
                 }
+                default -> json.skipChildren();
             }
-        } catch (IOException e) {
-            throw new LlmException("Failed to read the LLM stream", e);
         }
+        PartialToolCall call = assembly.partial.computeIfAbsent(index, (i) -> new PartialToolCall());
+        if (id != null) {
+            call.id = id;
+        }
+        if (name != null) {
+            call.name = name;
+        }
+        if (arguments != null) {
+            call.arguments.append(arguments);
+        }
+    }
 
-        List<LlmToolCall> calls = new ArrayList<>();
-        for (PartialToolCall call : partial.values()) {
-            if (call.name == null) {
-                continue;
+    /** OpenAI's shape; cached tokens sit under prompt_tokens_details where a provider reports them. */
+    private LlmUsage readUsage(JsonParser json) throws IOException {
+        long prompt = 0;
+        long cached = 0;
+        long completion = 0;
+        while (json.nextToken() == JsonToken.FIELD_NAME) {
+            String field = json.currentName();
+            JsonToken value = json.nextToken();
+            if ("prompt_tokens".equals(field)) {
+                prompt = json.getValueAsLong(0);
+            } else if ("completion_tokens".equals(field)) {
+                completion = json.getValueAsLong(0);
+            } else if ("prompt_tokens_details".equals(field) && value == JsonToken.START_OBJECT) {
+                while (json.nextToken() == JsonToken.FIELD_NAME) {
+                    String detail = json.currentName();
+                    json.nextToken();
+                    if ("cached_tokens".equals(detail)) {
+                        cached = json.getValueAsLong(0);
+                    } else {
+                        json.skipChildren();
+                    }
+                }
+            } else {
+                json.skipChildren();
             }
-            calls.add(new LlmToolCall(call.id, call.name, parseArguments(call.arguments.toString())));
         }
-        return new LlmResult(text.toString(), calls);
+        return new LlmUsage(prompt, cached, completion);
     }
 
     /** Model-emitted argument JSON may be malformed, so degrade to empty args rather than crashing. */
@@ -163,6 +572,14 @@ public final class OpenAiCompatibleLlmClient implements LlmClient {
         }
     }
 
+    private static void closeQuietly(InputStream body) {
+        try {
+            body.close();
+        } catch (IOException e) {
+            // The exchange is being abandoned either way.
+        }
+    }
+
     private static final class PartialToolCall {
         private String id;
         private String name;
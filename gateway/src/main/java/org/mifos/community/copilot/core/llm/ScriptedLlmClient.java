@@ -28,6 +28,11 @@ public final class ScriptedLlmClient implements LlmClient {
     private static final Pattern LOAN_ID = Pattern.compile("loan\\s+#?(\\d+)", Pattern.CASE_INSENSITIVE);
     private static final Pattern SEARCH = Pattern.compile("(?:search|find|show)\\s+client\\s+([a-z]+)", Pattern.CASE_INSENSITIVE);
 
+    @Override
+    public String model() {
+        return "mock";
+    }
+
     @Override
     public LlmResult complete(List<Map<String, Object>> messages, List<Map<String, Object>> tools,
             Consumer<String> onToken, BooleanSupplier cancelled) {
@@ -0,0 +1,176 @@
+/**
+ * Copyright since 2026 Mifos Initiative
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file, You can obtain one at
+ * http://mozilla.org/MPL/2.0/.
+ */
+package org.mifos.community.copilot.core.llm;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Walks a server-sent-events body as raw bytes and stops at each {@code data:} line, leaving
+ * its payload in a buffer that is reused for the next one. No String is made for a line, so a
+ * long answer streamed a word at a time costs a JSON parse per chunk and nothing more.
+ *
+ * <p>Lines are split on LF, with a trailing CR dropped. Each {@code data:} line is one payload,
+ * which is how chat-completions streams are framed.
+ *
+ * <p>Pulled with {@link #next()} from a blocking stream, or pushed with {@link #feed} as an
+ * asynchronous body delivers buffers; a line split across two buffers is carried over.
+ */
+final class SseReader {
+
+    private static final byte[] DATA = { 'd', 'a', 't', 'a', ':' };
+
+    /** Receives the reader positioned on each payload a pushed buffer completes. */
+    interface Payloads {
+        void accept(SseReader payload) throws IOException;
+    }
+
+    private final InputStream in;
+    private final byte[] buffer = new byte[8192];
+    private int position;
+    private int limit;
+    private byte[] line = new byte[1024];
+    private int lineLength;
+    private int payloadStart;
+    private int payloadEnd;
+
+    SseReader(InputStream in) {
+        this.in = in;
+    }
+
+    /** For pushing buffers with {@link #feed}. */
+    SseReader() {
+        this(null);
+    }
+
+    /** Advances to the next {@code data:} line with a non-empty payload; false at end of stream. */
+    boolean next() throws IOException {
+        while (readLine()) {
+            if (isPayload()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Hands every payload that {@code chunk} completes to {@code payloads}, consuming the chunk. */
+    void feed(ByteBuffer chunk, Payloads payloads) throws IOException {
+        while (chunk.hasRemaining()) {
+            limit = Math.min(chunk.remaining(), buffer.length);
+            position = 0;
+            chunk.get(buffer, 0, limit);
+            while (scanLine()) {
+                if (isPayload()) {
+                    payloads.accept(this);
+                }
+                lineLength = 0;
+            }
+        }
+    }
+
+    /** The end of a pushed stream: a last line with no LF after it still counts. */
+    void finish(Payloads payloads) throws IOException {
+        if (lineLength > 0 && isPayload()) {
+            payloads.accept(this);
+        }
+        lineLength = 0;
+    }
+
+    /** The current payload lives in {@code bytes()[offset(), offset() + length())}, until the next call. */
+    byte[] bytes() {
+        return line;
+    }
+
+    int offset() {
+        return payloadStart;
+    }
+
+    int length() {
+        return payloadEnd - payloadStart;
+    }
+
+    /** True when the current payload is exactly {@code text}, which must be ASCII. */
+    boolean payloadIs(String text) {
+        if (text.length() != length()) {
+            return false;
+        }
+        for (int i = 0; i < text.length(); i++) {
+            if (line[payloadStart + i] != text.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Points the payload at the current line when it is a non-empty {@code data:} line. */
+    private boolean isPayload() {
+        if (lineLength < DATA.length || !Arrays.equals(line, 0, DATA.length, DATA, 0, DATA.length)) {
+            return false;
+        }
+        payloadStart = DATA.length;
+        payloadEnd = lineLength;
+        while (payloadStart < payloadEnd && isSpace(line[payloadStart])) {
+            payloadStart++;
+        }
+        while (payloadEnd > payloadStart && isSpace(line[payloadEnd - 1])) {
+            payloadEnd--;
+        }
+        return payloadEnd > payloadStart;
+    }
+
+    private boolean readLine() throws IOException {
+        lineLength = 0;
+        boolean any = false;
+        while (true) {
+            if (position == limit) {
+                limit = in.read(buffer);
+                position = 0;
+                if (limit <= 0) {
+                    limit = 0;
+                    return any;
+                }
+            }
+            any = true;
+            if (scanLine()) {
+                return true;
+            }
+        }
+    }
+
+    /** Moves buffered bytes onto the current line up to the next LF; true when the line is complete. */
+    private boolean scanLine() {
+        int start = position;
+        while (position < limit && buffer[position] != '\n') {
+            position++;
+        }
+        append(start, position);
+        if (position == limit) {
+            return false;
+        }
+        position++; // The LF itself.
+        if (lineLength > 0 && line[lineLength - 1] == '\r') {
+            lineLength--;
+        }
+        return true;
+    }
+
+    private void append(int from, int to) {
+        int count = to - from;
+        if (lineLength + count > line.length) {
+            line = Arrays.copyOf(line, Math.max(line.length * 2, lineLength + count));
+        }
+        System.arraycopy(buffer, from, line, lineLength, count);
+        lineLength += count;
+    }
+
+    private static boolean isSpace(byte b) {
+        return b == ' ' || b == '\t' || b == '\r';
+    }
+}
@@ -0,0 +1,40 @@
+/**
+ * Copyright since 2026 Mifos Initiative
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file, You can obtain one at
+ * http://mozilla.org/MPL/2.0/.
+ */
+package org.mifos.community.copilot.core.metrics;
+
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Where the core reports what it counts and times. The core stays framework-free, so this is
+ * the whole contract: the Spring shell adapts it onto Micrometer, and a host that does not care
+ * passes {@link #NOOP}.
+ *
+ * <p>Tags are alternating key/value pairs, {@code "tool", "mifos_loan_details"}. Values must
+ * be drawn from a small fixed set (tool names, outcomes, tenants); never put a client id, an
+ * amount or a credential into a tag.
+ */
+public interface Metrics {
+
+    /** Discards everything. */
+    Metrics NOOP = new Metrics() {};
+
+    /** Adds one to a counter. */
+    default void increment(String name, String... tags) {}
+
+    /** Adds {@code amount} to a counter. */
+    default void increment(String name, long amount, String... tags) {}
+
+    /** Records one duration, in nanoseconds. */
+    default void record(String name, long nanos, String... tags) {}
+
+    /**
+     * Samples {@code value} from {@code target} whenever the registry is scraped. The caller
+     * keeps {@code target} reachable; a registry is free to hold it only weakly.
+     */
+    default <T> void gauge(String name, T target, ToDoubleFunction<T> value, String... tags) {}
+}
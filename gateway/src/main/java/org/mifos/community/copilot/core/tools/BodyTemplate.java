@@ -0,0 +1,231 @@
+/**
+ * Copyright since 2026 Mifos Initiative
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file, You can obtain one at
+ * http://mozilla.org/MPL/2.0/.
+ */
+package org.mifos.community.copilot.core.tools;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiFunction;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A write's JSON body template, compiled once when the manifest loads.
+ *
+ * <p>Tokens are always written as a whole quoted string, {@code "${param}"}. A string value is
+ * JSON-escaped into that slot; a number or boolean replaces the quotes as well. A field whose
+ * optional argument was not supplied is left out together with one adjacent comma, because
+ * Fineract must never receive an empty-string stand-in for a field the officer did not set.
+ *
+ * <p>Rendering is one pass over the compiled pieces. A value is written once and never read
+ * again, so nothing an argument contains can rewrite JSON structure or be expanded as another
+ * token. A template that is not valid JSON, or that puts a token anywhere but a whole string,
+ * is refused at compile time rather than at the first officer click.
+ */
+public final class BodyTemplate {
+
+    private static final JsonFactory JSON = new JsonFactory();
+    private static final Pattern TOKEN = Pattern.compile("\\$\\{([A-Za-z0-9_]+)}");
+
+    private sealed interface Piece {}
+
+    private record Literal(String text) implements Piece {}
+
+    /** A comma beside an optional field, with its surrounding whitespace; dropped along with the field. */
+    private record Comma(String text) implements Piece {}
+
+    /**
+     * @param prefix {@code "field":} when the slot is an object member, so an absent value can
+     *     take its field with it; empty for a slot elsewhere, which is kept verbatim when absent
+     */
+    private record Slot(String name, String prefix, boolean field, String verbatim) implements Piece {}
+
+    private final String source;
+    private final List<Piece> pieces;
+
+    private BodyTemplate(String source, List<Piece> pieces) {
+        this.source = source;
+        this.pieces = pieces;
+    }
+
+    /**
+     * @return null for a null template (a bodiless call)
+     * @throws IllegalArgumentException when the template is malformed
+     */
+    public static BodyTemplate compile(String template) {
+        if (template == null) {
+            return null;
+        }
+        try (JsonParser parser = JSON.createParser(template)) {
+            while (parser.nextToken() != null) {
+                // Parsing to the end is the whole check.
+            }
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Body template is not valid JSON: " + template, e);
+        }
+        List<Piece> pieces = new ArrayList<>();
+        int literalStart = 0;
+        int lastStringStart = -1;
+        int lastStringEnd = -1;
+        int i = 0;
+        while (i < template.length()) {
+            if (template.charAt(i) != '"') {
+                i++;
+                continue;
+            }
+            int start = i;
+            int end = closingQuote(template, start);
+            String content = template.substring(start + 1, end);
+            i = end + 1;
+            Matcher token = TOKEN.matcher(content);
+            if (!token.matches()) {
+                if (content.contains("${")) {
+                    throw new IllegalArgumentException(
+                            "Body template token must be a whole quoted value, as \"${param}\": " + template);
+                }
+                lastStringStart = start;
+                lastStringEnd = i;
+                continue;
+            }
+            String name = token.group(1);
+            int colon = skipWhitespaceBack(template, start - 1);
+            boolean field = colon >= 0 && template.charAt(colon) == ':'
+                    && skipWhitespaceBack(template, colon - 1) == lastStringEnd - 1;
+            int slotStart = field ? lastStringStart : start;
+            // A comma just before an optional field is split out, so it can go with the field.
+            int comma = skipWhitespaceBack(template, slotStart - 1);
+            if (field && comma >= literalStart && template.charAt(comma) == ',') {
+                addLiteral(pieces, template.substring(literalStart, comma));
+                pieces.add(new Comma(template.substring(comma, slotStart)));
+            } else {
+                addLiteral(pieces, template.substring(literalStart, slotStart));
+            }
+            pieces.add(new Slot(name, template.substring(slotStart, start), field, template.substring(slotStart, i)));
+            literalStart = i;
+            // Likewise a comma just after it.
+            int next = skipWhitespace(template, i);
+            if (field && next < template.length() && template.charAt(next) == ',') {
+                int after = skipWhitespace(template, next + 1);
+                pieces.add(new Comma(template.substring(i, after)));
+                literalStart = after;
+                i = after;
+            }
+        }
+        addLiteral(pieces, template.substring(literalStart));
+        return new BodyTemplate(template, List.copyOf(pieces));
+    }
+
+    /**
+     * @param text turns a present, non-numeric argument into the string to write, before
+     *     escaping; the executor resolves dates here
+     */
+    String render(Map<String, Object> args, BiFunction<String, Object, String> text) {
+        StringBuilder out = new StringBuilder(source.length() + 64);
+        boolean dropNextComma = false;
+        int lastComma = -1;
+        for (int p = 0; p < pieces.size(); p++) {
+            Piece piece = pieces.get(p);
+            switch (piece) {
+                case Literal literal -> {
+                    out.append(literal.text());
+                    lastComma = -1;
+                }
+                case Comma comma -> {
+                    if (dropNextComma) {
+                        dropNextComma = false;
+                    } else {
+                        lastComma = out.length();
+                        out.append(comma.text());
+                    }
+                }
+                case Slot slot -> {
+                    Object value = args == null ? null : args.get(slot.name());
+                    if (value != null && !String.valueOf(value).isBlank()) {
+                        out.append(slot.prefix());
+                        if (value instanceof Number || value instanceof Boolean) {
+                            out.append(value);
+                        } else {
+                            out.append('"');
+                            JsonStringEncoder.getInstance().quoteAsString(text.apply(slot.name(), value), out);
+                            out.append('"');
+                        }
+                        lastComma = -1;
+                    } else if (!slot.field()) {
+                        out.append(slot.verbatim());
+                        lastComma = -1;
+                    } else if (p + 1 < pieces.size() && pieces.get(p + 1) instanceof Comma) {
+                        dropNextComma = true;
+                    } else if (lastComma >= 0) {
+                        out.setLength(lastComma);
+                        lastComma = -1;
+                    }
+                }
+            }
+        }
+        return out.toString();
+    }
+
+    /** The template as written in the manifest. */
+    public String source() {
+        return source;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof BodyTemplate template && template.source.equals(source);
+    }
+
+    @Override
+    public int hashCode() {
+        return source.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return source;
+    }
+
+    private static void addLiteral(List<Piece> pieces, String text) {
+        if (!text.isEmpty()) {
+            pieces.add(new Literal(text));
+        }
+    }
+
+    private static int closingQuote(String template, int open) {
+        for (int i = open + 1; i < template.length(); i++) {
+            char c = template.charAt(i);
+            if (c == '\\') {
+                i++;
+            } else if (c == '"') {
+                return i;
+            }
+        }
+        return template.length(); // Unreachable for a template that parsed.
+    }
+
+    private static int skipWhitespace(String template, int from) {
+        int i = from;
+        while (i < template.length() && Character.isWhitespace(template.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    private static int skipWhitespaceBack(String template, int from) {
+        int i = from;
+        while (i >= 0 && Character.isWhitespace(template.charAt(i))) {
+            i--;
+        }
+        return i;
+    }
+}
@@ -12,19 +12,23 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 
 import org.mifos.community.copilot.core.auth.CallContext;
+import org.mifos.community.copilot.core.metrics.Metrics;
 
 import java.io.IOException;
 import java.net.URI;
-import java.net.URLEncoder;
-import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
 import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.regex.Pattern;
 
 /**
@@ -42,42 +46,174 @@ public final class FineractRestToolExecutor implements ToolExecutor {
     /** Tool output fed back to the model is capped so huge Fineract payloads cannot blow the context. */
     private static final int MAX_RESULT_CHARS = 8_000;
     /** The business date rarely moves; re-reading it once every few minutes is plenty. */
-    private static final long BUSINESS_DATE_TTL_MS = 5 * 60_000L;
+    private static final Duration BUSINESS_DATE_TTL = Duration.ofMinutes(5);
+    private static final String BUSINESS_DATE_PATH = "/fineract-provider/api/v1/businessdate/BUSINESS_DATE";
 
     /**
      * Fineract is multi-tenant and each tenant carries its own business date, so a single
      * shared entry would serve one tenant's calendar to another.
      */
     private final java.util.Map<String, CachedDate> businessDateByTenant = new java.util.concurrent.ConcurrentHashMap<>();
+    /** Tenants whose business date is being re-read in the background; one refresh each at a time. */
+    private final java.util.Set<String> refreshing = java.util.concurrent.ConcurrentHashMap.newKeySet();
+    private final long businessDateTtlMs;
 
-    private record CachedDate(String value, long expiresAt) {}
+    /** @param readAt when Fineract answered; zero for a provisional date that is due a refresh now */
+    private record CachedDate(String value, long readAt) {}
 
-    private final HttpClient http;
+    private final FineractTransport http;
     private final ObjectMapper mapper = new ObjectMapper();
     private final String fineractBaseUrl;
+    private final ResponseCache cache;
+    private final Metrics metrics;
 
     public FineractRestToolExecutor(String fineractBaseUrl) {
+        this(fineractBaseUrl, ResponseCache.disabled());
+    }
+
+    /** @param cache where reads whose tool declares {@code cacheSeconds} are kept for reuse */
+    public FineractRestToolExecutor(String fineractBaseUrl, ResponseCache cache) {
+        this(fineractBaseUrl, cache, FineractTransport.defaults());
+    }
+
+    /** @param transport the client, deadlines and per-tenant cap every call goes through */
+    public FineractRestToolExecutor(String fineractBaseUrl, ResponseCache cache, FineractTransport transport) {
+        this(fineractBaseUrl, cache, transport, BUSINESS_DATE_TTL);
+    }
+
+    /** @param businessDateTtl how long a tenant's business date is served before it is re-read */
+    public FineractRestToolExecutor(String fineractBaseUrl, ResponseCache cache, FineractTransport transport,
+            Duration businessDateTtl) {
+        this(fineractBaseUrl, cache, transport, businessDateTtl, Metrics.NOOP);
+    }
+
+    /**
+     * @param metrics receives every tool call's duration as {@code copilot.tool.requests}, tagged by tool
+     *     and by Fineract's HTTP status, or {@code cached}, {@code timeout} or {@code error}
+     */
+    public FineractRestToolExecutor(String fineractBaseUrl, ResponseCache cache, FineractTransport transport,
+            Duration businessDateTtl, Metrics metrics) {
+        this.metrics = metrics;
         this.fineractBaseUrl = fineractBaseUrl.replaceAll("/+$", "");
-        this.http = HttpClient.newBuilder()
-                // Generous: sandbox/gateway-fronted Fineracts can be slow to accept connections,
-                // and JVMs on dual-stack hosts may burn seconds on IPv6 before falling back.
-                .connectTimeout(Duration.ofSeconds(20))
-                .followRedirects(HttpClient.Redirect.NORMAL) // Fineract behind an API gateway may 30x.
-                .build();
+        this.cache = cache;
+        this.http = transport;
+        this.businessDateTtlMs = businessDateTtl.toMillis();
+    }
+
+    /**
+     * A call ready to send, or already answered from the cache.
+     *
+     * @param cacheKey where a successful read is filed; null when the tool is not cached
+     */
+    private record Prepared(HttpRequest request, boolean read, ResponseCache.Key cacheKey, String cached) {
+
+        FineractTransport.Operation operation() {
+            return read ? FineractTransport.Operation.READ : FineractTransport.Operation.WRITE;
+        }
+    }
+
+    /**
+     * Sends a prepared call. A cacheable read shares the request of an identical one in
+     * flight: the cache answers only once the first has come back, and until then a branch
+     * asking for the same record at once would otherwise send it once per officer.
+     */
+    private CompletableFuture<HttpResponse<String>> send(Prepared call, CallContext context) {
+        return call.cacheKey() != null
+                ? http.sendShared(call.request(), tenantOf(context), context.fingerprint(), call.operation())
+                : http.send(call.request(), tenantOf(context), call.operation());
     }
 
     @Override
     public String execute(ToolDefinition tool, Map<String, Object> args, CallContext context, String idempotencyKey)
             throws ToolExecutionException {
+        Prepared call = prepare(tool, args, context, idempotencyKey, businessDate(context));
+        long started = System.nanoTime();
+        if (call.cached() != null) {
+            timed(tool, started, null, null);
+            return call.cached();
+        }
+        HttpResponse<String> response;
+        try {
+            response = FineractTransport.await(send(call, context));
+        } catch (IOException | InterruptedException e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            timed(tool, started, null, e);
+            throw new ToolExecutionException("Fineract unreachable for " + tool.name(), 0, e);
+        }
+        timed(tool, started, response, null);
+        return finish(tool, args, context, call, response);
+    }
+
+    /** The same call on the client's own threads: nothing waits while Fineract answers. */
+    @Override
+    public CompletableFuture<String> executeAsync(ToolDefinition tool, Map<String, Object> args, CallContext context,
+            String idempotencyKey) {
+        return businessDateAsync(context).thenCompose((today) -> {
+            Prepared call;
+            try {
+                call = prepare(tool, args, context, idempotencyKey, today);
+            } catch (ToolExecutionException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+            long started = System.nanoTime();
+            if (call.cached() != null) {
+                timed(tool, started, null, null);
+                return CompletableFuture.completedFuture(call.cached());
+            }
+            return send(call, context).handle((response, error) -> {
+                timed(tool, started, response, error);
+                try {
+                    if (error != null) {
+                        throw new ToolExecutionException("Fineract unreachable for " + tool.name(), 0,
+                                error instanceof CompletionException ? error.getCause() : error);
+                    }
+                    return finish(tool, args, context, call, response);
+                } catch (ToolExecutionException e) {
+                    throw new CompletionException(e);
+                }
+            });
+        });
+    }
+
+    /** Records one call; with neither a response nor an error, it was answered from the cache. */
+    private void timed(ToolDefinition tool, long started, HttpResponse<String> response, Throwable error) {
+        String status;
+        if (response != null) {
+            status = String.valueOf(response.statusCode());
+        } else if (error == null) {
+            status = "cached";
+        } else {
+            status = "error";
+            for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+                if (cause instanceof TimeoutException || cause instanceof HttpTimeoutException) {
+                    status = "timeout";
+                }
+            }
+        }
+        metrics.record("copilot.tool.requests", System.nanoTime() - started, "tool", tool.name(), "status", status);
+    }
+
+    private Prepared prepare(ToolDefinition tool, Map<String, Object> args, CallContext context,
+            String idempotencyKey, String today) throws ToolExecutionException {
         ToolDefinition.RestMapping rest = tool.rest();
         if (rest == null || rest.path() == null) {
             throw new ToolExecutionException("Tool has no REST mapping: " + tool.name(), 0, null);
         }
 
-        String today = businessDate(context);
-        String path = substitutePath(rest.path(), args, today);
-        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(fineractBaseUrl + path))
-                .timeout(Duration.ofSeconds(30))
+        String path = substitutePath(rest.compiledPath(), args, today);
+        boolean read = "GET".equalsIgnoreCase(rest.method());
+        ResponseCache.Key cacheKey = null;
+        if (read && tool.cacheSeconds() > 0 && cache.isEnabled()) {
+            cacheKey = new ResponseCache.Key(tenantOf(context), context.fingerprint(), path);
+            String cached = cache.get(cacheKey, tool.name());
+            if (cached != null) {
+                return new Prepared(null, true, cacheKey, cached);
+            }
+        }
+        HttpRequest.Builder builder = http.request(URI.create(fineractBaseUrl + path),
+                        read ? FineractTransport.Operation.READ : FineractTransport.Operation.WRITE)
                 .header("Accept", "application/json")
                 .header("Authorization", context.authorizationHeader())
                 .header("Fineract-Platform-TenantId", context.tenantId())
@@ -87,25 +223,20 @@ public final class FineractRestToolExecutor implements ToolExecutor {
             builder.header("Idempotency-Key", idempotencyKey);
         }
 
-        if ("GET".equalsIgnoreCase(rest.method())) {
+        if (read) {
             builder.GET();
         } else {
-            String body = buildBody(rest.bodyTemplate(), args, today);
+            String body = buildBody(rest.compiledBody(), args, today);
             builder.method(rest.method().toUpperCase(Locale.ROOT),
                     HttpRequest.BodyPublishers.ofString(body, StandardCharsets.UTF_8));
             builder.header("Content-Type", "application/json");
         }
+        return new Prepared(builder.build(), read, cacheKey, null);
+    }
 
-        HttpResponse<String> response;
-        try {
-            response = http.send(builder.build(), HttpResponse.BodyHandlers.ofString());
-        } catch (IOException | InterruptedException e) {
-            if (e instanceof InterruptedException) {
-                Thread.currentThread().interrupt();
-            }
-            throw new ToolExecutionException("Fineract unreachable for " + tool.name(), 0, e);
-        }
-
+    /** Fineract's answer, projected, redacted and capped, as the model will see it. */
+    private String finish(ToolDefinition tool, Map<String, Object> args, CallContext context, Prepared call,
+            HttpResponse<String> response) throws ToolExecutionException {
         if (response.statusCode() == 401 || isPermissionDenial(response)) {
             // Auth outcomes need special loop handling (session expiry / RBAC denial).
             throw new ToolExecutionException(
@@ -117,56 +248,76 @@ public final class FineractRestToolExecutor implements ToolExecutor {
             // string carrying escaped JSON) so both the LLM and the UI read them cleanly.
             return applicationError(tool.name(), response.statusCode(), response.body(), tool.redactFields());
         }
-        return truncate(redact(response.body(), tool.redactFields()), MAX_RESULT_CHARS);
+        String result = ResultShaper.shape(response.body(), tool.projection(), tool.redactFields(), MAX_RESULT_CHARS);
+        if (call.cacheKey() != null) {
+            cache.put(call.cacheKey(), result, Duration.ofSeconds(tool.cacheSeconds()), recordsIn(args));
+        } else if (!call.read()) {
+            // Every officer's copy of a record this write touched is now out of date.
+            cache.invalidate(tenantOf(context), writtenRecords(args, response.body()));
+        }
+        return result;
     }
 
-    /** Replace {param} tokens in the path, URL-encoding values; unresolved required tokens fail fast. */
-    private String substitutePath(String template, Map<String, Object> args, String today) throws ToolExecutionException {
-        String out = template;
+    /** The records a call names, as {@code loanId=12}: every argument that is an identifier. */
+    private java.util.Set<String> recordsIn(Map<String, Object> args) {
+        java.util.Set<String> tags = new java.util.HashSet<>();
         if (args != null) {
-            for (Map.Entry<String, Object> entry : args.entrySet()) {
-                out = out.replace("{" + entry.getKey() + "}", URLEncoder
-                        .encode(normalizeValue(entry.getKey(), entry.getValue(), today), StandardCharsets.UTF_8));
-            }
+            args.forEach((name, value) -> {
+                if (name.endsWith("Id") && value != null) {
+                    tags.add(name + "=" + (value instanceof Number number && number.doubleValue() == number.longValue()
+                            ? String.valueOf(number.longValue()) : String.valueOf(value).trim()));
+                }
+            });
         }
-        if (out.contains("{")) {
-            throw new ToolExecutionException("Missing required argument for path " + template, 0, null);
+        return tags;
+    }
+
+    /**
+     * What a successful write touched: the identifiers it was called with, plus those Fineract
+     * answers with. Approving a loan names only the loan, but its response also names the
+     * client whose account list just changed.
+     */
+    private java.util.Set<String> writtenRecords(Map<String, Object> args, String body) {
+        java.util.Set<String> tags = recordsIn(args);
+        try {
+            mapper.readTree(body).properties().forEach((field) -> {
+                if (field.getKey().endsWith("Id") && field.getValue().isIntegralNumber()) {
+                    tags.add(field.getKey() + "=" + field.getValue().asText());
+                }
+            });
+        } catch (IOException | RuntimeException e) {
+            // Nothing more to learn from the response; the arguments still name the record.
         }
-        return out;
+        return tags;
+    }
+
+    private String tenantOf(CallContext context) {
+        return context.tenantId() == null ? "default" : context.tenantId();
+    }
+
+    /** Fill the compiled path, URL-encoding values; unresolved required tokens fail fast. */
+    private String substitutePath(PathTemplate template, Map<String, Object> args, String today)
+            throws ToolExecutionException {
+        return template.render(args, (name, value) -> normalizeValue(name, value, today));
+    }
+
+    /** As {@link #buildBody(BodyTemplate, Map, String)}, compiling the template first. */
+    String buildBody(String template, Map<String, Object> args, String today) { // package-private for tests
+        return buildBody(BodyTemplate.compile(template), args, today);
     }
 
     /**
      * Fill the JSON body template. Tokens are always written as quoted "${param}"; string
      * values are JSON-escaped in place, numbers/booleans replace the quoted token unquoted.
      * Fields whose optional argument was not supplied are REMOVED from the body, because Fineract
-     * must never receive an empty-string stand-in for a field the officer did not set.
+     * must never receive an empty-string stand-in for a field the officer did not set. Values
+     * are never re-read, so they cannot rewrite JSON structure or expand as further tokens.
      */
-    String buildBody(String template, Map<String, Object> args, String today) { // package-private for tests
+    String buildBody(BodyTemplate template, Map<String, Object> args, String today) { // package-private for tests
         if (template == null) {
             return "{}";
         }
-        String out = template;
-        if (args != null) {
-            for (Map.Entry<String, Object> entry : args.entrySet()) {
-                String quotedToken = "\"${" + entry.getKey() + "}\"";
-                Object value = entry.getValue();
-                if (value == null || String.valueOf(value).isBlank()) {
-                    continue; // Treat blank args as omitted; the field is stripped below.
-                }
-                if (value instanceof Number || value instanceof Boolean) {
-                    out = out.replace(quotedToken, String.valueOf(value));
-                } else {
-                    out = out.replace(quotedToken, quoteJson(normalizeValue(entry.getKey(), value, today)));
-                }
-                // Deliberately NO unquoted "${key}" replacement: values must never be able to
-                // rewrite JSON structure or trigger recursive token substitution.
-            }
-        }
-        // Strip whole fields whose optional token was never filled: '"field":"${tok}",' / ',"field":"${tok}"'.
-        out = out.replaceAll("\"[A-Za-z0-9_]+\"\\s*:\\s*\"\\$\\{[A-Za-z0-9_]+}\"\\s*,", "");
-        out = out.replaceAll(",\\s*\"[A-Za-z0-9_]+\"\\s*:\\s*\"\\$\\{[A-Za-z0-9_]+}\"", "");
-        out = out.replaceAll("\"[A-Za-z0-9_]+\"\\s*:\\s*\"\\$\\{[A-Za-z0-9_]+}\"", "");
-        return out;
+        return template.render(args, (name, value) -> normalizeValue(name, value, today));
     }
 
     /**
@@ -196,60 +347,105 @@ public final class FineractRestToolExecutor implements ToolExecutor {
      * Fetch the human context for a pending write: the account number, the product and the
      * client, so the officer confirms against names rather than identifiers. Read-only, and
      * performed with the officer's own credential like every other call.
+     *
+     * <p>Every lookup is issued at once and they share one deadline, so a card that names both
+     * the client and the product costs one round-trip rather than two. Rows are still merged
+     * in the order the manifest declares, whichever lookup answers first.
      */
     @Override
     public java.util.Map<String, String> enrich(ToolDefinition tool, Map<String, Object> args, CallContext context) {
+        return enrichAsync(tool, args, context).join();
+    }
+
+    @Override
+    public CompletableFuture<java.util.Map<String, String>> enrichAsync(ToolDefinition tool, Map<String, Object> args,
+            CallContext context) {
         if (tool.enrich() == null || tool.enrich().isEmpty()) {
-            return java.util.Map.of();
+            return CompletableFuture.completedFuture(java.util.Map.of());
         }
+        return businessDateAsync(context).thenCompose((today) -> {
+            java.util.List<CompletableFuture<java.util.Map<String, String>>> reads = new java.util.ArrayList<>();
+            for (ToolDefinition.Enrich spec : tool.enrich()) {
+                reads.add(read(spec, args, context, today));
+            }
+            // Whatever answered in time still makes the card.
+            return CompletableFuture.allOf(reads.toArray(CompletableFuture[]::new))
+                    .completeOnTimeout(null, http.timeout(FineractTransport.Operation.ENRICH).toMillis(),
+                            TimeUnit.MILLISECONDS)
+                    .handle((done, error) -> merge(reads));
+        });
+    }
+
+    /** Rows in the manifest's declared order, from the lookups that have answered. */
+    private java.util.Map<String, String> merge(java.util.List<CompletableFuture<java.util.Map<String, String>>> reads) {
         java.util.Map<String, String> rows = new java.util.LinkedHashMap<>();
-        for (ToolDefinition.Enrich spec : tool.enrich()) {
-            readInto(rows, spec, args, context);
+        for (CompletableFuture<java.util.Map<String, String>> read : reads) {
+            if (!read.isDone()) {
+                read.cancel(true);
+                continue;
+            }
+            read.join().forEach((label, value) -> {
+                if (Display.CURRENCY.equals(label)) {
+                    rows.putIfAbsent(label, value); // The first record that names a currency decides it.
+                } else {
+                    rows.put(label, value);
+                }
+            });
         }
         return rows;
     }
 
     /**
-     * One enrichment read, merged into {@code rows}. Presentation only: a lookup that fails
-     * leaves the card thinner but must never fail the officer's turn.
+     * One enrichment read. Presentation only: a lookup that fails completes with no rows,
+     * which leaves the card thinner but must never fail the officer's turn.
      */
-    private void readInto(java.util.Map<String, String> rows, ToolDefinition.Enrich spec, Map<String, Object> args,
-            CallContext context) {
+    private CompletableFuture<java.util.Map<String, String>> read(ToolDefinition.Enrich spec,
+            Map<String, Object> args, CallContext context, String today) {
         if (spec.path() == null || spec.fields().isEmpty()) {
-            return;
+            return CompletableFuture.completedFuture(java.util.Map.of());
         }
+        HttpRequest request;
         try {
-            String path = substitutePath(spec.path(), args, businessDate(context));
-            HttpRequest request = HttpRequest.newBuilder(URI.create(fineractBaseUrl + path))
-                    .timeout(Duration.ofSeconds(15))
+            String path = substitutePath(spec.compiledPath(), args, today);
+            request = http.request(URI.create(fineractBaseUrl + path), FineractTransport.Operation.ENRICH)
                     .header("Accept", "application/json")
                     .header("Authorization", context.authorizationHeader())
                     .header("Fineract-Platform-TenantId", context.tenantId())
                     .GET()
                     .build();
-            HttpResponse<String> response = http.send(request, HttpResponse.BodyHandlers.ofString());
-            if (response.statusCode() < 200 || response.statusCode() >= 300) {
-                return;
-            }
-            JsonNode body = mapper.readTree(response.body());
-            String currency = spec.currencyPath() != null ? text(at(body, spec.currencyPath())) : currencySymbol(body);
-            if (!currency.isBlank()) {
-                rows.putIfAbsent(Display.CURRENCY, currency);
-            }
-            for (Map.Entry<String, String> field : spec.fields().entrySet()) {
-                String pointer = field.getValue();
-                boolean money = pointer.startsWith("#money:");
-                JsonNode node = at(body, money ? pointer.substring("#money:".length()) : pointer);
-                if (node == null || node.isMissingNode() || node.isNull()) {
-                    continue;
-                }
-                rows.put(field.getKey(), money ? Display.money(node.asDouble(), currency) : node.asText());
-            }
-        } catch (ToolExecutionException | IOException | InterruptedException | RuntimeException e) {
-            if (e instanceof InterruptedException) {
-                Thread.currentThread().interrupt();
+        } catch (ToolExecutionException | RuntimeException e) {
+            return CompletableFuture.completedFuture(java.util.Map.of());
+        }
+        return http.sendShared(request, tenantOf(context), context.fingerprint(), FineractTransport.Operation.ENRICH)
+                .thenApply((response) -> rowsFrom(spec, response))
+                .exceptionally((e) -> java.util.Map.of());
+    }
+
+    private java.util.Map<String, String> rowsFrom(ToolDefinition.Enrich spec, HttpResponse<String> response) {
+        java.util.Map<String, String> rows = new java.util.LinkedHashMap<>();
+        if (response.statusCode() < 200 || response.statusCode() >= 300) {
+            return rows;
+        }
+        JsonNode body;
+        try {
+            body = mapper.readTree(response.body());
+        } catch (IOException e) {
+            return rows;
+        }
+        String currency = spec.currencyPath() != null ? text(at(body, spec.currencyPath())) : currencySymbol(body);
+        if (!currency.isBlank()) {
+            rows.put(Display.CURRENCY, currency);
+        }
+        for (Map.Entry<String, String> field : spec.fields().entrySet()) {
+            String pointer = field.getValue();
+            boolean money = pointer.startsWith("#money:");
+            JsonNode node = at(body, money ? pointer.substring("#money:".length()) : pointer);
+            if (node == null || node.isMissingNode() || node.isNull()) {
+                continue;
             }
+            rows.put(field.getKey(), money ? Display.money(node.asDouble(), currency) : node.asText());
         }
+        return rows;
     }
 
     private String text(JsonNode node) {
@@ -327,47 +523,122 @@ public final class FineractRestToolExecutor implements ToolExecutor {
     }
 
     /**
-     * Fineract's configurable business date, cached briefly. Falls back to the host clock when
+     * Fineract's configurable business date, cached per tenant. Falls back to the host clock when
      * the endpoint is unavailable (older deployments or the module being disabled).
+     *
+     * <p>Once a tenant has a date, no turn waits for it again: past its TTL the date is still
+     * served while one background read, on this officer's credential, replaces it. A read that
+     * fails, or whose answer carries no date, leaves the date as it was for the next turn to try
+     * again rather than fall back to the host clock. Only a tenant's very first
+     * turn waits; if that read gives no date, the host clock's is kept only until the next turn
+     * starts a refresh.
      */
     @Override
     public String businessDate(CallContext context) {
-        String tenant = context.tenantId() == null ? "default" : context.tenantId();
-        long now = System.currentTimeMillis();
-        CachedDate cached = businessDateByTenant.get(tenant);
-        if (cached != null && now < cached.expiresAt()) {
-            return cached.value();
-        }
-        String resolved = fetchBusinessDate(context);
-        businessDateByTenant.put(tenant, new CachedDate(resolved, now + BUSINESS_DATE_TTL_MS));
+        CachedDate cached = businessDateByTenant.get(tenantOf(context));
+        if (cached == null) {
+            String resolved = fetchBusinessDate(context);
+            return resolved != null ? remember(tenantOf(context), resolved) : provisional(tenantOf(context));
+        }
+        refreshIfDue(cached, context);
+        return cached.value();
+    }
+
+    @Override
+    public CompletableFuture<String> businessDateAsync(CallContext context) {
+        CachedDate cached = businessDateByTenant.get(tenantOf(context));
+        if (cached != null) {
+            refreshIfDue(cached, context);
+            return CompletableFuture.completedFuture(cached.value());
+        }
+        return readBusinessDate(context)
+                .exceptionally((e) -> null)
+                .thenApply((resolved) -> resolved != null ? remember(tenantOf(context), resolved)
+                        : provisional(tenantOf(context)));
+    }
+
+    private void refreshIfDue(CachedDate cached, CallContext context) {
+        String tenant = tenantOf(context);
+        if (System.currentTimeMillis() - cached.readAt() < businessDateTtlMs || !refreshing.add(tenant)) {
+            return;
+        }
+        try {
+            readBusinessDate(context).whenComplete((resolved, error) -> {
+                if (resolved != null) {
+                    remember(tenant, resolved);
+                }
+                refreshing.remove(tenant);
+            });
+        } catch (RuntimeException e) {
+            refreshing.remove(tenant);
+        }
+    }
+
+    private String remember(String tenant, String resolved) {
+        businessDateByTenant.put(tenant, new CachedDate(resolved, System.currentTimeMillis()));
         return resolved;
     }
 
+    /** The host clock's date, kept as already due so the tenant's next turn asks Fineract again. */
+    private String provisional(String tenant) {
+        String guessed = LocalDate.now().toString();
+        businessDateByTenant.putIfAbsent(tenant, new CachedDate(guessed, 0));
+        return guessed;
+    }
+
     /**
-     * Ask the core banking system what day it is, falling back to this host's clock.
-     * A date that is wrong by a day is still better than a turn that fails outright.
+     * The business date as Fineract answers it; null when the answer gives no day at all, and
+     * failed when Fineract could not be asked.
+     */
+    private CompletableFuture<String> readBusinessDate(CallContext context) {
+        try {
+            return sharedBusinessDateRead(context).thenApply(this::answeredDate);
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Ask the core banking system what day it is; null when it cannot say, and the caller falls
+     * back to this host's clock. A date that is wrong by a day is still better than a turn that
+     * fails outright.
      */
     private String fetchBusinessDate(CallContext context) {
         try {
-            HttpRequest request = HttpRequest
-                    .newBuilder(URI.create(fineractBaseUrl + "/fineract-provider/api/v1/businessdate/BUSINESS_DATE"))
-                    .timeout(Duration.ofSeconds(10))
-                    .header("Accept", "application/json")
-                    .header("Authorization", context.authorizationHeader())
-                    .header("Fineract-Platform-TenantId", context.tenantId())
-                    .GET()
-                    .build();
-            HttpResponse<String> response = http.send(request, HttpResponse.BodyHandlers.ofString());
-            String configured = configuredBusinessDate(response);
-            return configured != null ? configured : serverCalendarDay(response);
+            return answeredDate(FineractTransport.await(sharedBusinessDateRead(context)));
         } catch (IOException | InterruptedException | RuntimeException e) {
             if (e instanceof InterruptedException) {
                 Thread.currentThread().interrupt();
             }
-            return LocalDate.now().toString();
+            return null;
         }
     }
 
+    /**
+     * Every officer whose turn starts just after the cached date expires asks for it at once;
+     * they share one request rather than each sending their own.
+     */
+    private CompletableFuture<HttpResponse<String>> sharedBusinessDateRead(CallContext context) {
+        return http.sendShared(businessDateRequest(context), tenantOf(context), context.fingerprint(),
+                FineractTransport.Operation.BUSINESS_DATE);
+    }
+
+    private HttpRequest businessDateRequest(CallContext context) {
+        return http.request(URI.create(fineractBaseUrl + BUSINESS_DATE_PATH),
+                        FineractTransport.Operation.BUSINESS_DATE)
+                .header("Accept", "application/json")
+                .header("Authorization", context.authorizationHeader())
+                .header("Fineract-Platform-TenantId", context.tenantId())
+                .GET()
+                .build();
+    }
+
+    /** The day Fineract's answer gives, or null when it gives none and only the host clock is left. */
+    private String answeredDate(HttpResponse<String> response) {
+        String configured = configuredBusinessDate(response);
+        return configured != null ? configured : serverCalendarDay(response);
+    }
+
     /**
      * The tenant's configured business date, or null if the module is not enabled or the
      * response cannot be read as one.
@@ -402,7 +673,7 @@ public final class FineractRestToolExecutor implements ToolExecutor {
                 .firstValue("date")
                 .map(this::parseHttpDateOrNull)
                 .filter((day) -> day != null)
-                .orElseGet(() -> LocalDate.now().toString());
+                .orElse(null);
     }
 
     /**
@@ -411,7 +682,7 @@ public final class FineractRestToolExecutor implements ToolExecutor {
      * payloads can echo request PII, and they flow to the LLM like any tool result.
      */
     private String applicationError(String toolName, int status, String body, java.util.List<String> redactFields) {
-        String safeBody = truncate(redact(body == null ? "" : body, redactFields), 2_000);
+        String safeBody = ResultShaper.shape(body, null, redactFields, 2_000);
         ObjectNode error = mapper.createObjectNode();
         error.put("tool", toolName);
         error.put("httpStatus", status);
@@ -425,45 +696,8 @@ public final class FineractRestToolExecutor implements ToolExecutor {
         return wrapper.toString();
     }
 
-    private String quoteJson(String value) {
-        try {
-            return mapper.writeValueAsString(value);
-        } catch (IOException e) {
-            return "\"\"";
-        }
-    }
-
     /** Mask configured PII fields before the payload can reach a cloud LLM (ADR-001 §2.2). */
-    private String redact(String json, java.util.List<String> redactFields) {
-        if (redactFields == null || redactFields.isEmpty()) {
-            return json;
-        }
-        try {
-            JsonNode root = mapper.readTree(json);
-            redactNode(root, redactFields);
-            return mapper.writeValueAsString(root);
-        } catch (IOException e) {
-            return json; // Not JSON, so nothing to redact structurally.
-        }
-    }
-
-    private void redactNode(JsonNode node, java.util.List<String> fields) {
-        if (node instanceof ObjectNode object) {
-            for (String field : fields) {
-                if (object.has(field)) {
-                    object.put(field, "•••");
-                }
-            }
-            object.forEach((child) -> redactNode(child, fields));
-        } else if (node.isArray()) {
-            node.forEach((child) -> redactNode(child, fields));
-        }
-    }
-
-    private String truncate(String value, int max) {
-        if (value == null) {
-            return "";
-        }
-        return value.length() > max ? value.substring(0, max) + " …(truncated)" : value;
+    String redact(String json, java.util.List<String> redactFields) { // package-private for benchmarks
+        return ResultShaper.shape(json, null, redactFields, Integer.MAX_VALUE);
     }
 }
@@ -0,0 +1,293 @@
+/**
+ * Copyright since 2026 Mifos Initiative
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file, You can obtain one at
+ * http://mozilla.org/MPL/2.0/.
+ */
+package org.mifos.community.copilot.core.tools;
+
+import org.mifos.community.copilot.core.metrics.Metrics;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The one HTTP client every Fineract call goes through: tool reads and writes, confirmation
+ * card lookups and business-date checks, for every officer and tenant.
+ *
+ * <p>Calls are capped per tenant. Past the cap a tenant's calls wait in arrival order for one
+ * of its own to finish, so a Fineract tenant that has stopped answering ties up at most that
+ * many connections and client threads, and every other tenant carries on. A call's deadline
+ * runs from when it is asked for, waiting included.
+ *
+ * <p>Identical reads can share one request: {@link #sendShared} gives a GET that the same
+ * tenant and credential already have in flight the answer to that call rather than a request of
+ * its own, so a branch opening the same dashboard at nine o'clock costs Fineract one read. Only
+ * calls in flight are shared; a read asked for after the answer arrived goes to Fineract again.
+ *
+ * <p>Reports {@code copilot.fineract.requests} per host, operation and outcome,
+ * {@code copilot.fineract.coalesced} per operation for reads that shared another's request, and
+ * the calls in flight and waiting per host. The JDK client does not expose its connection pool, so calls
+ * in flight are the closest measure of the connections a host is holding open.
+ */
+public final class FineractTransport implements AutoCloseable {
+
+    /** What a call does, which decides its deadline and how it is reported. */
+    public enum Operation {
+        READ, WRITE, ENRICH, BUSINESS_DATE;
+
+        String tag() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    /**
+     * How long each kind of call may take, waiting for a slot included. A business-date check
+     * falls back to the host clock when it runs out, so it has a short deadline of its own.
+     */
+    public record Timeouts(Duration connect, Duration read, Duration write, Duration enrich, Duration businessDate) {
+
+        /** The deadlines the executor used before they were configurable. */
+        public static Timeouts defaults() {
+            return new Timeouts(Duration.ofSeconds(20), Duration.ofSeconds(30), Duration.ofSeconds(30),
+                    Duration.ofSeconds(15), Duration.ofSeconds(10));
+        }
+
+        Duration of(Operation operation) {
+            return switch (operation) {
+                case READ -> read;
+                case WRITE -> write;
+                case ENRICH -> enrich;
+                case BUSINESS_DATE -> businessDate;
+            };
+        }
+    }
+
+    /** One tenant's slots and the calls waiting for one. */
+    private static final class Lane {
+        final Semaphore slots;
+        final Queue<Runnable> waiting = new ConcurrentLinkedQueue<>();
+
+        Lane(int slots) {
+            this.slots = new Semaphore(slots);
+        }
+    }
+
+    /** Reads that are the same call: same tenant, same credential, same URL. */
+    private record Flight(String tenant, String fingerprint, URI uri) {}
+
+    /** What a host has outstanding, sampled by the gauges. */
+    private static final class HostLoad {
+        final AtomicInteger inFlight = new AtomicInteger();
+        final AtomicInteger waiting = new AtomicInteger();
+    }
+
+    private final HttpClient http;
+    private final ExecutorService threads;
+    private final int maxConcurrentPerTenant;
+    private final Timeouts timeouts;
+    private final Metrics metrics;
+    private final Map<String, Lane> lanes = new ConcurrentHashMap<>();
+    private final Map<String, HostLoad> hosts = new ConcurrentHashMap<>();
+    private final Map<Flight, CompletableFuture<HttpResponse<String>>> flights = new ConcurrentHashMap<>();
+
+    /**
+     * @param version {@code HTTP_2} falls back to HTTP/1.1 for a Fineract that does not speak it
+     * @param threads client threads of its own, so Fineract's callbacks never queue behind
+     *     other clients'; zero uses the JDK's shared default
+     * @param maxConcurrentPerTenant calls in flight per tenant before the next one waits; zero
+     *     or less means no cap
+     */
+    public FineractTransport(HttpClient.Version version, int threads, int maxConcurrentPerTenant, Timeouts timeouts,
+            Metrics metrics) {
+        this.threads = threads > 0 ? Executors.newFixedThreadPool(threads,
+                Thread.ofPlatform().name("copilot-fineract-", 0).daemon(true).factory()) : null;
+        HttpClient.Builder builder = HttpClient.newBuilder()
+                .version(version)
+                // Generous: sandbox/gateway-fronted Fineracts can be slow to accept connections,
+                // and JVMs on dual-stack hosts may burn seconds on IPv6 before falling back.
+                .connectTimeout(timeouts.connect())
+                .followRedirects(HttpClient.Redirect.NORMAL); // Fineract behind an API gateway may 30x.
+        if (this.threads != null) {
+            builder.executor(this.threads);
+        }
+        this.http = builder.build();
+        this.maxConcurrentPerTenant = maxConcurrentPerTenant;
+        this.timeouts = timeouts;
+        this.metrics = metrics;
+    }
+
+    /** HTTP/2 where offered, the JDK's threads, no cap and the default deadlines. */
+    public static FineractTransport defaults() {
+        return new FineractTransport(HttpClient.Version.HTTP_2, 0, 0, Timeouts.defaults(), Metrics.NOOP);
+    }
+
+    /** A request builder with {@code operation}'s deadline already set. */
+    public HttpRequest.Builder request(URI uri, Operation operation) {
+        return HttpRequest.newBuilder(uri).timeout(timeouts.of(operation));
+    }
+
+    public Duration timeout(Operation operation) {
+        return timeouts.of(operation);
+    }
+
+    /** Sends once {@code tenant} has a free slot; the future fails with a timeout if none frees up in time. */
+    public CompletableFuture<HttpResponse<String>> send(HttpRequest request, String tenant, Operation operation) {
+        String host = request.uri().getHost() == null ? "unknown" : request.uri().getHost();
+        HostLoad load = hosts.computeIfAbsent(host, this::watch);
+        long started = System.nanoTime();
+        CompletableFuture<HttpResponse<String>> result = new CompletableFuture<>();
+        if (maxConcurrentPerTenant <= 0) {
+            start(request, load, null, result);
+        } else {
+            Lane lane = lanes.computeIfAbsent(tenant == null ? "default" : tenant,
+                    (key) -> new Lane(maxConcurrentPerTenant));
+            if (lane.slots.tryAcquire()) {
+                start(request, load, lane, result);
+            } else {
+                load.waiting.incrementAndGet();
+                lane.waiting.add(() -> {
+                    load.waiting.decrementAndGet();
+                    start(request, load, lane, result);
+                });
+                drain(lane); // A slot may have freed up between the try and the enqueue.
+            }
+        }
+        long deadline = timeouts.of(operation).toMillis();
+        return result.orTimeout(deadline, TimeUnit.MILLISECONDS).whenComplete((response, error) ->
+                metrics.record("copilot.fineract.requests", System.nanoTime() - started, "host", host,
+                        "operation", operation.tag(), "outcome", outcome(response, error)));
+    }
+
+    /**
+     * As {@link #send} for a GET, sharing the request of an identical one already in flight.
+     * Each caller gets a future of its own, so one that gives up does not cancel the others.
+     *
+     * @param fingerprint the caller's credential fingerprint: what one officer may read is never
+     *     handed to another
+     */
+    public CompletableFuture<HttpResponse<String>> sendShared(HttpRequest request, String tenant, String fingerprint,
+            Operation operation) {
+        Flight flight = new Flight(tenant, fingerprint, request.uri());
+        CompletableFuture<HttpResponse<String>> mine = new CompletableFuture<>();
+        CompletableFuture<HttpResponse<String>> shared = flights.putIfAbsent(flight, mine);
+        if (shared != null) {
+            metrics.increment("copilot.fineract.coalesced", "operation", operation.tag());
+            return shared.copy();
+        }
+        send(request, tenant, operation).whenComplete((response, error) -> {
+            flights.remove(flight, mine); // Before completing, so no one joins an answered call.
+            if (error != null) {
+                mine.completeExceptionally(error instanceof CompletionException ? error.getCause() : error);
+            } else {
+                mine.complete(response);
+            }
+        });
+        return mine.copy();
+    }
+
+    /** As {@link #send}, waiting for the answer; a failure surfaces as an {@link IOException}. */
+    public HttpResponse<String> sendAndWait(HttpRequest request, String tenant, Operation operation)
+            throws IOException, InterruptedException {
+        return await(send(request, tenant, operation));
+    }
+
+    /** Waits for a call from {@link #send} or {@link #sendShared}; a failure surfaces as an {@link IOException}. */
+    public static HttpResponse<String> await(CompletableFuture<HttpResponse<String>> call)
+            throws IOException, InterruptedException {
+        try {
+            return call.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause() instanceof CompletionException ? e.getCause().getCause() : e.getCause();
+            if (cause instanceof IOException io) {
+                throw io;
+            }
+            throw new IOException(cause instanceof TimeoutException ? "No answer from Fineract in time"
+                    : "Fineract call failed", cause);
+        }
+    }
+
+    private void start(HttpRequest request, HostLoad load, Lane lane, CompletableFuture<HttpResponse<String>> result) {
+        if (result.isDone()) {
+            release(lane); // Timed out while it waited; the slot goes to the next in line.
+            return;
+        }
+        load.inFlight.incrementAndGet();
+        CompletableFuture<HttpResponse<String>> sent;
+        try {
+            sent = http.sendAsync(request, HttpResponse.BodyHandlers.ofString());
+        } catch (RuntimeException e) {
+            sent = CompletableFuture.failedFuture(e);
+        }
+        sent.whenComplete((response, error) -> {
+            load.inFlight.decrementAndGet();
+            release(lane);
+            if (error != null) {
+                result.completeExceptionally(error instanceof CompletionException ? error.getCause() : error);
+            } else {
+                result.complete(response);
+            }
+        });
+    }
+
+    private void release(Lane lane) {
+        if (lane != null) {
+            lane.slots.release();
+            drain(lane);
+        }
+    }
+
+    private void drain(Lane lane) {
+        while (!lane.waiting.isEmpty() && lane.slots.tryAcquire()) {
+            Runnable next = lane.waiting.poll();
+            if (next == null) {
+                lane.slots.release();
+                return;
+            }
+            next.run();
+        }
+    }
+
+    private HostLoad watch(String host) {
+        HostLoad load = new HostLoad();
+        metrics.gauge("copilot.fineract.in_flight", load, (l) -> l.inFlight.get(), "host", host);
+        metrics.gauge("copilot.fineract.waiting", load, (l) -> l.waiting.get(), "host", host);
+        return load;
+    }
+
+    private static String outcome(HttpResponse<String> response, Throwable error) {
+        if (error != null) {
+            Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+            return cause instanceof TimeoutException || cause instanceof HttpTimeoutException
+                    ? "timeout" : "error";
+        }
+        return response.statusCode() / 100 + "xx";
+    }
+
+    @Override
+    public void close() {
+        if (threads != null) {
+            threads.shutdown();
+        }
+    }
+}
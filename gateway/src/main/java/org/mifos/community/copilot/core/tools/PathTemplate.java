@@ -0,0 +1,100 @@
+/**
+ * Copyright since 2026 Mifos Initiative
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file, You can obtain one at
+ * http://mozilla.org/MPL/2.0/.
+ */
+package org.mifos.community.copilot.core.tools;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiFunction;
+
+/**
+ * A REST path with {@code {param}} tokens, compiled once when the manifest loads. Values are
+ * URL-encoded into their slot in one pass, so a value can never become part of the path
+ * structure or another token. Every token is required.
+ */
+public final class PathTemplate {
+
+    private final String source;
+    /** Literal text at even indexes, token names at odd ones; always starts and ends with a literal. */
+    private final List<String> parts;
+
+    private PathTemplate(String source, List<String> parts) {
+        this.source = source;
+        this.parts = parts;
+    }
+
+    /**
+     * @return null for a null path
+     * @throws IllegalArgumentException for an unclosed brace or a token that is not a plain name
+     */
+    public static PathTemplate compile(String template) {
+        if (template == null) {
+            return null;
+        }
+        List<String> parts = new ArrayList<>();
+        int literalStart = 0;
+        int open = template.indexOf('{');
+        while (open >= 0) {
+            int close = template.indexOf('}', open);
+            String name = close < 0 ? "" : template.substring(open + 1, close);
+            if (!name.matches("[A-Za-z0-9_]+")) {
+                throw new IllegalArgumentException("Malformed path token in " + template);
+            }
+            parts.add(template.substring(literalStart, open));
+            parts.add(name);
+            literalStart = close + 1;
+            open = template.indexOf('{', literalStart);
+        }
+        parts.add(template.substring(literalStart));
+        return new PathTemplate(template, List.copyOf(parts));
+    }
+
+    /**
+     * @param text turns an argument into the string to encode; the executor resolves dates here
+     * @throws ToolExecutionException when an argument the path needs was not supplied
+     */
+    String render(Map<String, Object> args, BiFunction<String, Object, String> text) throws ToolExecutionException {
+        if (parts.size() == 1) {
+            return source;
+        }
+        StringBuilder out = new StringBuilder(source.length() + 16);
+        for (int i = 0; i < parts.size(); i++) {
+            String part = parts.get(i);
+            if (i % 2 == 0) {
+                out.append(part);
+            } else if (args != null && args.containsKey(part)) {
+                out.append(URLEncoder.encode(text.apply(part, args.get(part)), StandardCharsets.UTF_8));
+            } else {
+                throw new ToolExecutionException("Missing required argument for path " + source, 0, null);
+            }
+        }
+        return out.toString();
+    }
+
+    /** The path as written in the manifest. */
+    public String source() {
+        return source;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof PathTemplate template && template.source.equals(source);
+    }
+
+    @Override
+    public int hashCode() {
+        return source.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return source;
+    }
+}
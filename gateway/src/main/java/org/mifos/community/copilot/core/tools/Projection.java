@@ -0,0 +1,127 @@
+/**
+ * Copyright since 2026 Mifos Initiative
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file, You can obtain one at
+ * http://mozilla.org/MPL/2.0/.
+ */
+package org.mifos.community.copilot.core.tools;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The parts of a tool's result the model is shown, from the manifest's {@code project:} list,
+ * compiled once when the manifest loads. Everything not named is dropped before the result
+ * reaches the model, so a loan schedule costs its due dates and amounts rather than every
+ * bookkeeping field Fineract returns.
+ *
+ * <p>Each entry is a slash-separated path such as {@code /summary/totalOutstanding}. A path
+ * that ends on an object or array keeps all of it. A step applied to an array applies to each of
+ * its elements, so {@code /pageItems/displayName} keeps every item's name. {@code *} matches any
+ * field, and a slice such as {@code periods[0:12]} or {@code [-5:]} keeps only those elements,
+ * counted as in Python; a slice on the whole result is written {@code /[0:25]}.
+ */
+public final class Projection {
+
+    private static final Pattern SEGMENT = Pattern.compile("([^\\[\\]]*)(?:\\[(-?\\d*):(-?\\d*)])?");
+
+    /** One step of the compiled paths. */
+    static final class Node {
+        final Map<String, Node> fields = new HashMap<>();
+        Node anyField;
+        /** Keep this value whole, after any slice. */
+        boolean whole;
+        /** Python-style bounds of the elements kept when {@code sliced}; null for an open end. */
+        Integer from;
+        Integer to;
+        boolean sliced;
+
+        /** The step for {@code field} of an object here, or null when the field is dropped. */
+        Node field(String field) {
+            Node node = fields.get(field);
+            return node != null ? node : anyField;
+        }
+    }
+
+    private final List<String> paths;
+    private final Node root;
+
+    private Projection(List<String> paths, Node root) {
+        this.paths = paths;
+        this.root = root;
+    }
+
+    /**
+     * @return null when there is nothing to compile, which keeps the whole result
+     * @throws IllegalArgumentException for a malformed path, or two paths slicing one array
+     *     differently
+     */
+    public static Projection compile(List<String> paths) {
+        if (paths == null || paths.isEmpty()) {
+            return null;
+        }
+        Node root = new Node();
+        for (String path : paths) {
+            Node node = root;
+            String trimmed = path.strip();
+            for (String segment : (trimmed.startsWith("/") ? trimmed.substring(1) : trimmed).split("/", -1)) {
+                Matcher matcher = SEGMENT.matcher(segment);
+                if (!matcher.matches() || matcher.group(1).isEmpty() && matcher.group(2) == null) {
+                    throw new IllegalArgumentException("Malformed projection path " + path);
+                }
+                String field = matcher.group(1);
+                if (!field.isEmpty()) {
+                    if ("*".equals(field)) {
+                        node.anyField = node.anyField != null ? node.anyField : new Node();
+                        node = node.anyField;
+                    } else {
+                        node = node.fields.computeIfAbsent(field, (key) -> new Node());
+                    }
+                }
+                if (matcher.group(2) != null) {
+                    slice(node, bound(matcher.group(2)), bound(matcher.group(3)), path);
+                }
+            }
+            node.whole = true;
+        }
+        return new Projection(List.copyOf(paths), root);
+    }
+
+    Node root() {
+        return root;
+    }
+
+    /** The paths as the manifest wrote them. */
+    public List<String> paths() {
+        return paths;
+    }
+
+    /** The {@code [from, to)} range of an array of {@code size} elements that {@code node} keeps. */
+    static int[] range(Node node, int size) {
+        if (!node.sliced) {
+            return new int[] {0, size};
+        }
+        int from = node.from == null ? 0 : node.from < 0 ? Math.max(0, size + node.from) : Math.min(node.from, size);
+        int to = node.to == null ? size : node.to < 0 ? Math.max(0, size + node.to) : Math.min(node.to, size);
+        return new int[] {from, Math.max(from, to)};
+    }
+
+    private static void slice(Node node, Integer from, Integer to, String path) {
+        if (node.sliced && !(Objects.equals(node.from, from) && Objects.equals(node.to, to))) {
+            throw new IllegalArgumentException(
+                    "Projection path " + path + " slices an array another path slices differently");
+        }
+        node.sliced = true;
+        node.from = from;
+        node.to = to;
+    }
+
+    private static Integer bound(String text) {
+        return text.isEmpty() ? null : Integer.valueOf(text);
+    }
+}
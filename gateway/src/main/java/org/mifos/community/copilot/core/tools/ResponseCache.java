@@ -0,0 +1,133 @@
+/**
+ * Copyright since 2026 Mifos Initiative
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file, You can obtain one at
+ * http://mozilla.org/MPL/2.0/.
+ */
+package org.mifos.community.copilot.core.tools;
+
+import org.mifos.community.copilot.core.metrics.Metrics;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Short-lived copies of Fineract read results, so a model that asks for the same loan twice in
+ * one conversation, or a branch that keeps listing the same products, does not cost Fineract a
+ * round-trip each time.
+ *
+ * <p>Entries are keyed by tenant, the caller's credential fingerprint and the resolved path.
+ * The fingerprint is what keeps RBAC intact: a result one officer was allowed to read is never
+ * served to another, even for the same URL. Invalidation, on the other hand, crosses
+ * fingerprints within a tenant, because once a loan is approved every officer's copy of it is
+ * out of date.
+ *
+ * <p>Bounded by entry count with least-recently-used eviction; expired entries are dropped as
+ * they are met.
+ */
+public final class ResponseCache {
+
+    /** What an entry is filed under. Never holds a raw credential, only its fingerprint. */
+    public record Key(String tenant, String fingerprint, String path) {}
+
+    /**
+     * @param tags the records this result describes, as {@code name=value} ("loanId=12"), so a
+     *     write to one of them can drop it
+     */
+    private record Entry(String value, long expiresAt, Set<String> tags) {}
+
+    private final int maxEntries;
+    private final Metrics metrics;
+    private final Map<Key, Entry> entries;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public ResponseCache(int maxEntries, Metrics metrics) {
+        this.maxEntries = Math.max(0, maxEntries);
+        this.metrics = metrics;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    /** Caches nothing; every read goes to Fineract. */
+    public static ResponseCache disabled() {
+        return new ResponseCache(0, Metrics.NOOP);
+    }
+
+    public boolean isEnabled() {
+        return maxEntries > 0;
+    }
+
+    /** The cached result, or null when absent or expired. Counts a hit or a miss for {@code tool}. */
+    public String get(Key key, String tool) {
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(key);
+            if (entry != null && System.currentTimeMillis() >= entry.expiresAt()) {
+                entries.remove(key);
+                entry = null;
+            }
+        }
+        (entry == null ? misses : hits).incrementAndGet();
+        metrics.increment("copilot.tool.cache", "tool", tool, "result", entry == null ? "miss" : "hit");
+        return entry == null ? null : entry.value();
+    }
+
+    public void put(Key key, String value, Duration ttl, Set<String> tags) {
+        if (!isEnabled() || ttl.isZero() || ttl.isNegative()) {
+            return;
+        }
+        synchronized (entries) {
+            entries.put(key, new Entry(value, System.currentTimeMillis() + ttl.toMillis(), Set.copyOf(tags)));
+            Iterator<Map.Entry<Key, Entry>> oldest = entries.entrySet().iterator();
+            while (entries.size() > maxEntries && oldest.hasNext()) {
+                oldest.next();
+                oldest.remove();
+            }
+        }
+    }
+
+    /**
+     * Drop every entry in {@code tenant} that describes one of {@code tags}, whoever read it.
+     * Called after a confirmed write, which is rare enough that a scan is cheaper than an index.
+     */
+    public void invalidate(String tenant, Collection<String> tags) {
+        if (tags.isEmpty()) {
+            return;
+        }
+        int dropped = 0;
+        synchronized (entries) {
+            Iterator<Map.Entry<Key, Entry>> it = entries.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<Key, Entry> entry = it.next();
+                if (entry.getKey().tenant().equals(tenant)
+                        && entry.getValue().tags().stream().anyMatch(tags::contains)) {
+                    it.remove();
+                    dropped++;
+                }
+            }
+        }
+        if (dropped > 0) {
+            metrics.increment("copilot.tool.cache.invalidations");
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public long hits() {
+        return hits.get();
+    }
+
+    public long misses() {
+        return misses.get();
+    }
+}
@@ -0,0 +1,290 @@
+/**
+ * Copyright since 2026 Mifos Initiative
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file, You can obtain one at
+ * http://mozilla.org/MPL/2.0/.
+ */
+package org.mifos.community.copilot.core.tools;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Turns a Fineract body into what the model is shown: cut down to the tool's {@link Projection},
+ * with PII fields masked, and fitted to a size budget without ever cutting through the JSON.
+ *
+ * <p>One streaming pass from parser to generator, with no tree in between: a dropped field is
+ * skipped without being built, a masked one is looked up in a set built once per body, and once the output
+ * is at its budget the rest of each array is skipped too, leaving a note of how many elements
+ * it left out. A short array of plain values, such as Fineract's {@code [2026, 10, 18]} dates, is
+ * read ahead and written whole or not at all, since half a date is wrong. The budget keeps room
+ * to close every open structure, so the result is valid JSON the model can read to the end, and
+ * a 70 KB page costs the 8 KB the model is shown rather than a tree of all of it.
+ */
+final class ResultShaper {
+
+    static final String MASK = "•••";
+    private static final JsonFactory JSON = new JsonFactory();
+    /** Room kept per open structure for its closing bracket and a note of what it left out. */
+    private static final int RESERVE = 48;
+    /** Strings are never shortened below this, so a nearly full budget still says something. */
+    private static final int MIN_STRING = 16;
+    /** The most plain values an array can hold and still be written whole or not at all. */
+    private static final int SHORT = 8;
+
+    private ResultShaper() {}
+
+    /**
+     * @param projection null keeps every field
+     * @param maxChars the most characters to return; a body that is not JSON is cut at this
+     */
+    static String shape(String body, Projection projection, List<String> redactFields, int maxChars) {
+        boolean redacting = redactFields != null && !redactFields.isEmpty();
+        if (projection == null && !redacting && body != null && body.length() <= maxChars) {
+            return body; // Nothing to change, so no parse.
+        }
+        if (body == null || body.isBlank()) {
+            return cut(body == null ? "" : body, maxChars);
+        }
+        Set<String> redact = redacting ? Set.copyOf(redactFields) : Set.of();
+        StringWriter out = new StringWriter(Math.min(body.length(), maxChars) + 64);
+        try (JsonParser parser = JSON.createParser(body); JsonGenerator generator = JSON.createGenerator(out)) {
+            if (parser.nextToken() == null) {
+                return cut(body, maxChars);
+            }
+            Pass pass = new Pass(parser, generator, out, redact, maxChars);
+            if (!pass.value(null, projection == null ? null : projection.root(), 0)) {
+                generator.writeStartObject(); // A projection that keeps nothing of a bare value.
+                generator.writeEndObject();
+            }
+        } catch (IOException e) {
+            return cut(body, maxChars); // Not JSON, so nothing to shape structurally.
+        }
+        return out.toString();
+    }
+
+    /** One body on its way from {@code parser} to {@code generator}. */
+    private static final class Pass {
+
+        private final JsonParser parser;
+        private final JsonGenerator generator;
+        private final StringWriter out;
+        private final Set<String> redact;
+        private final int maxChars;
+
+        Pass(JsonParser parser, JsonGenerator generator, StringWriter out, Set<String> redact, int maxChars) {
+            this.parser = parser;
+            this.generator = generator;
+            this.out = out;
+            this.redact = redact;
+            this.maxChars = maxChars;
+        }
+
+        /**
+         * Writes the value at the parser's current token as {@code step} keeps it, leaving the
+         * parser on its last token.
+         *
+         * @param name the field the value belongs to, written with it; null for an array element
+         * @param step null keeps the value whole
+         * @return false when the step keeps nothing of it, or it is a short array of plain values
+         *     with no room for all of it; in either case nothing was written
+         */
+        boolean value(String name, Projection.Node step, int depth) throws IOException {
+            if (step != null && step.whole && !step.sliced) {
+                step = null;
+            }
+            JsonToken token = parser.currentToken();
+            if (token == JsonToken.START_ARRAY) {
+                return array(name, step, depth);
+            }
+            if (step != null && !step.whole && token != JsonToken.START_OBJECT) {
+                return false; // A path that goes deeper than the value does keeps nothing of it.
+            }
+            if (name != null) {
+                generator.writeFieldName(name);
+            }
+            if (token == JsonToken.START_OBJECT) {
+                object(step != null && step.whole ? null : step, depth);
+            } else if (token == JsonToken.VALUE_STRING) {
+                string(depth);
+            } else {
+                generator.copyCurrentEvent(parser); // Numbers keep Fineract's own representation.
+            }
+            return true;
+        }
+
+        private void object(Projection.Node step, int depth) throws IOException {
+            generator.writeStartObject();
+            int left = 0;
+            boolean kept = false; // The first field is always tried: whatever opened this object checked for room.
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.currentName();
+                Projection.Node next = step == null ? null : step.field(name);
+                JsonToken token = parser.nextToken();
+                if (step != null && (next == null || token.isScalarValue() && !next.whole)) {
+                    parser.skipChildren(); // Not projected.
+                } else if (left > 0 || kept && full(depth)) {
+                    parser.skipChildren();
+                    left++;
+                } else if (redact.contains(name)) {
+                    // Mask configured PII fields before the payload can reach a cloud LLM (ADR-001 §2.2).
+                    parser.skipChildren();
+                    generator.writeStringField(name, MASK);
+                    kept = true;
+                } else if (value(name, next, depth + 1)) {
+                    kept = true;
+                } else {
+                    left++;
+                }
+            }
+            if (left > 0) {
+                generator.writeStringField("…", left + " more fields omitted");
+            }
+            generator.writeEndObject();
+        }
+
+        /**
+         * Writes an array kept whole by first reading ahead up to {@link #SHORT} plain values:
+         * if that is all of it, it goes in whole when there is room and is left out otherwise.
+         */
+        private boolean array(String name, Projection.Node step, int depth) throws IOException {
+            List<String> read = new ArrayList<>();
+            if (step == null) {
+                JsonToken token;
+                while ((token = parser.nextToken()).isScalarValue() && token != JsonToken.VALUE_STRING
+                        && read.size() < SHORT) {
+                    read.add(parser.getText()); // Numbers keep Fineract's own representation.
+                }
+                if (token == JsonToken.END_ARRAY) {
+                    String whole = "[" + String.join(",", read) + "]";
+                    if (written() + whole.length() + (long) RESERVE * (depth + 1) > maxChars) {
+                        return false;
+                    }
+                    if (name != null) {
+                        generator.writeFieldName(name);
+                    }
+                    generator.writeRawValue(whole);
+                    return true;
+                }
+            }
+            if (name != null) {
+                generator.writeFieldName(name);
+            }
+            generator.writeStartArray();
+            Projection.Node elements = step == null || step.whole ? null : step;
+            boolean fromEnd = step != null && step.sliced
+                    && (step.from != null && step.from < 0 || step.to != null && step.to < 0);
+            int left = fromEnd ? fromEnd(step, elements, depth) : inOrder(step, elements, read, depth);
+            if (left > 0) {
+                generator.writeString("…(" + left + " more omitted)");
+            }
+            generator.writeEndArray();
+            return true;
+        }
+
+        /**
+         * Elements kept by a slice counted from the start, written as they are read; returns those left out.
+         * {@code read} are the plain values {@link #array} read ahead, with the parser on the token after them.
+         */
+        private int inOrder(Projection.Node step, Projection.Node elements, List<String> read, int depth)
+                throws IOException {
+            int from = step != null && step.sliced && step.from != null ? step.from : 0;
+            int to = step != null && step.sliced && step.to != null ? step.to : Integer.MAX_VALUE;
+            int left = 0;
+            boolean spent = false;
+            for (String value : read) {
+                if (spent || (spent = full(depth + 1))) {
+                    left++;
+                } else {
+                    generator.writeRawValue(value);
+                }
+            }
+            JsonToken token = step == null ? parser.currentToken() : parser.nextToken();
+            for (int index = read.size(); token != JsonToken.END_ARRAY; token = parser.nextToken(), index++) {
+                // Checked at the element's depth, so one is not opened with no room to put anything in it.
+                if (index < from || index >= to || spent || (spent = full(depth + 1))) {
+                    parser.skipChildren();
+                    left++;
+                } else if (!value(null, elements, depth + 1) && token == JsonToken.START_ARRAY) {
+                    spent = true; // A short array of plain values that did not fit.
+                    left++;
+                }
+            }
+            return left;
+        }
+
+        /**
+         * Elements kept by a slice counted from the end, which are only known once the array
+         * is read: each is written aside and the kept ones copied in at the end. A negative
+         * start bounds what is held to that many elements.
+         */
+        private int fromEnd(Projection.Node step, Projection.Node elements, int depth) throws IOException {
+            int hold = step.from != null && step.from < 0 ? -step.from : Integer.MAX_VALUE;
+            int startAt = step.from != null && step.from > 0 ? step.from : 0;
+            ArrayDeque<String> held = new ArrayDeque<>();
+            int size = 0;
+            for (; parser.nextToken() != JsonToken.END_ARRAY; size++) {
+                if (size < startAt) {
+                    parser.skipChildren();
+                    continue;
+                }
+                StringWriter element = new StringWriter();
+                try (JsonGenerator aside = JSON.createGenerator(element)) {
+                    new Pass(parser, aside, element, redact, Integer.MAX_VALUE).value(null, elements, depth + 1);
+                }
+                held.addLast(element.toString()); // Blank for an element the step drops, so indexes line up.
+                if (held.size() > hold) {
+                    held.removeFirst();
+                }
+            }
+            int[] range = Projection.range(step, size);
+            int index = size - held.size();
+            int left = size - (range[1] - range[0]);
+            boolean spent = false;
+            for (String element : held) {
+                if (index >= range[1]) {
+                    break;
+                }
+                if (index++ < range[0] || element.isEmpty()) {
+                    continue;
+                }
+                spent = spent || written() + element.length() + (long) RESERVE * (depth + 1) > maxChars;
+                if (spent) {
+                    left++;
+                } else {
+                    generator.writeRawValue(element);
+                }
+            }
+            return left;
+        }
+
+        private void string(int depth) throws IOException {
+            String text = parser.getText();
+            long room = (long) maxChars - written() - (long) RESERVE * (depth + 1);
+            generator.writeString(text.length() > room ? cut(text, (int) Math.max(MIN_STRING, room)) : text);
+        }
+
+        /** Whether the budget is spent, keeping room to close {@code depth} open structures. */
+        private boolean full(int depth) {
+            return written() + (long) RESERVE * (depth + 1) > maxChars;
+        }
+
+        private long written() {
+            return out.getBuffer().length() + generator.getOutputBuffered();
+        }
+    }
+
+    private static String cut(String value, int max) {
+        return value.length() > max ? value.substring(0, max) + " …(truncated)" : value;
+    }
+}
@@ -7,6 +7,7 @@
  */
 package org.mifos.community.copilot.core.tools;
 
+import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -16,9 +17,38 @@ import java.util.Map;
  *
  * <p>The manifest, not the tool server and not the model, is the enforcement authority for what
  * the LLM may touch and what counts as a write (ADR-001 §04, default-deny).
+ *
+ * <p>{@code cacheSeconds} is how long a read's result may be reused for the same officer before
+ * Fineract is asked again; zero, the default, means never. Writes ignore it.
+ *
+ * <p>{@code projection} is the part of a result the model is shown; null shows all of it.
+ *
+ * <p>{@code prefetch} marks a read the agent starts as a turn begins, when the officer's screen
+ * names every required parameter, on the bet that the model's first move is to ask for it.
  */
 public record ToolDefinition(String name, String description, boolean write, String summaryTemplate,
-        List<Param> params, RestMapping rest, List<String> redactFields, List<Enrich> enrich) {
+        List<Param> params, RestMapping rest, List<String> redactFields, List<Enrich> enrich, int cacheSeconds,
+        Projection projection, boolean prefetch) {
+
+    /** A tool the agent waits for the model to ask for. */
+    public ToolDefinition(String name, String description, boolean write, String summaryTemplate, List<Param> params,
+            RestMapping rest, List<String> redactFields, List<Enrich> enrich, int cacheSeconds,
+            Projection projection) {
+        this(name, description, write, summaryTemplate, params, rest, redactFields, enrich, cacheSeconds, projection,
+                false);
+    }
+
+    /** A tool whose whole result is shown to the model. */
+    public ToolDefinition(String name, String description, boolean write, String summaryTemplate, List<Param> params,
+            RestMapping rest, List<String> redactFields, List<Enrich> enrich, int cacheSeconds) {
+        this(name, description, write, summaryTemplate, params, rest, redactFields, enrich, cacheSeconds, null);
+    }
+
+    /** A tool whose results are never reused: every call goes to Fineract. */
+    public ToolDefinition(String name, String description, boolean write, String summaryTemplate, List<Param> params,
+            RestMapping rest, List<String> redactFields, List<Enrich> enrich) {
+        this(name, description, write, summaryTemplate, params, rest, redactFields, enrich, 0);
+    }
 
     /**
      * One declared parameter.
@@ -57,38 +87,69 @@ public record ToolDefinition(String name, String description, boolean write, Str
      *     on the card read "USD 28,000.00" and not a bare number
      * @param fields card row label to a dotted path in the response; a value prefixed
      *     {@code #money:} is formatted as an amount
+     * @param compiledPath {@code path}, compiled
      */
-    public record Enrich(String path, String currencyPath, Map<String, String> fields) {}
+    public record Enrich(String path, String currencyPath, Map<String, String> fields, PathTemplate compiledPath) {
 
-    /** How the direct-REST executor maps this tool onto the core banking API. */
-    public record RestMapping(String method, String path, String bodyTemplate) {}
+        /** Compiles the path, so a malformed one fails here, when the manifest loads. */
+        public Enrich(String path, String currencyPath, Map<String, String> fields) {
+            this(path, currencyPath, fields, PathTemplate.compile(path));
+        }
+    }
 
-    /** OpenAI-style function schema handed to the model. */
+    /**
+     * How the direct-REST executor maps this tool onto the core banking API.
+     *
+     * @param compiledPath {@code path}, compiled
+     * @param compiledBody {@code bodyTemplate}, compiled; null when the call sends no body
+     */
+    public record RestMapping(String method, String path, String bodyTemplate, PathTemplate compiledPath,
+            BodyTemplate compiledBody) {
+
+        /** Compiles both templates, so a malformed one fails here, when the manifest loads. */
+        public RestMapping(String method, String path, String bodyTemplate) {
+            this(method, path, bodyTemplate, PathTemplate.compile(path), BodyTemplate.compile(bodyTemplate));
+        }
+    }
+
+    /**
+     * OpenAI-style function schema handed to the model. Keys keep a fixed order, so the encoded
+     * schema is byte-for-byte the same on every gateway instance.
+     */
     public Map<String, Object> toOpenAiSchema() {
         Map<String, Object> properties = new LinkedHashMap<>();
         List<String> required = params == null ? List.of()
                 : params.stream().filter(Param::required).map(Param::name).toList();
         if (params != null) {
             for (Param param : params) {
-                properties.put(param.name(), Map.of(
+                properties.put(param.name(), ordered(
                         "type", param.type() == null ? "string" : param.type(),
                         "description", param.description() == null ? "" : param.description()));
             }
         }
-        return Map.of(
+        return ordered(
                 "type", "function",
-                "function", Map.of(
+                "function", ordered(
                         "name", name,
                         "description", description == null ? "" : description,
-                        "parameters", Map.of(
+                        "parameters", ordered(
                                 "type", "object",
-                                "properties", properties,
+                                "properties", Collections.unmodifiableMap(properties),
                                 "required", required,
                                 // Advisory for many providers, but it steers the model away from
                                 // inventing args; the loop refuses undeclared args regardless.
                                 "additionalProperties", false)));
     }
 
+    /** An unmodifiable map that iterates in the order given, unlike {@code Map.of}. */
+    private static Map<String, Object> ordered(Object... keysAndValues) {
+        Map<String, Object> map = new LinkedHashMap<>();
+        for (int i = 0; i < keysAndValues.length; i += 2) {
+            map.put((String) keysAndValues[i], keysAndValues[i + 1]);
+        }
+        return Collections.unmodifiableMap(map);
+    }
+
     /** Officer-facing one-liner for the approval card, e.g. "Approve loan #{loanId}". */
     public String humanSummary(Map<String, Object> args) {
         String template = summaryTemplate != null ? summaryTemplate : (description != null ? description : name);
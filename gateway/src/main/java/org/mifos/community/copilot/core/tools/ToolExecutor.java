@@ -10,6 +10,7 @@ package org.mifos.community.copilot.core.tools;
 import org.mifos.community.copilot.core.auth.CallContext;
 
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Executes one manifest tool as the calling officer.
@@ -27,6 +28,20 @@ public interface ToolExecutor {
     String execute(ToolDefinition tool, Map<String, Object> args, CallContext context, String idempotencyKey)
             throws ToolExecutionException;
 
+    /**
+     * {@link #execute} without holding a thread for the round-trip; the future fails with a
+     * {@link ToolExecutionException} where {@code execute} would throw one. By default it runs
+     * {@code execute} on the calling thread.
+     */
+    default CompletableFuture<String> executeAsync(ToolDefinition tool, Map<String, Object> args, CallContext context,
+            String idempotencyKey) {
+        try {
+            return CompletableFuture.completedFuture(execute(tool, args, context, idempotencyKey));
+        } catch (ToolExecutionException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
     /**
      * The date the core banking system considers "today" (yyyy-MM-dd).
      *
@@ -38,6 +53,11 @@ public interface ToolExecutor {
         return java.time.LocalDate.now().toString();
     }
 
+    /** {@link #businessDate} as a future that never fails; by default answered on the calling thread. */
+    default CompletableFuture<String> businessDateAsync(CallContext context) {
+        return CompletableFuture.completedFuture(businessDate(context));
+    }
+
     /**
      * Read the human context for a pending write, so the confirmation card can name the
      * account, the product and the client rather than repeating identifiers back.
@@ -51,4 +71,10 @@ public interface ToolExecutor {
             CallContext context) {
         return java.util.Map.of();
     }
+
+    /** {@link #enrich} as a future that never fails; by default answered on the calling thread. */
+    default CompletableFuture<java.util.Map<String, String>> enrichAsync(ToolDefinition tool,
+            java.util.Map<String, Object> args, CallContext context) {
+        return CompletableFuture.completedFuture(enrich(tool, args, context));
+    }
 }
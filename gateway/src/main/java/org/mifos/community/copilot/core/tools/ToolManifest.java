@@ -25,6 +25,8 @@ import java.util.Optional;
 public final class ToolManifest {
 
     private final Map<String, ToolDefinition> tools = new LinkedHashMap<>();
+    /** Built once the manifest is loaded; it never changes afterwards. */
+    private List<Map<String, Object>> schemas = List.of();
 
     @SuppressWarnings("unchecked")
     public static ToolManifest load(InputStream yamlStream) {
@@ -45,20 +47,27 @@ public final class ToolManifest {
                         !Boolean.FALSE.equals(param.get("show"))));
             }
             ToolDefinition.RestMapping rest = null;
-            Map<String, Object> restNode = (Map<String, Object>) entry.get("rest");
-            if (restNode != null) {
-                rest = new ToolDefinition.RestMapping(
-                        (String) restNode.getOrDefault("method", "GET"),
-                        (String) restNode.get("path"),
-                        (String) restNode.get("body"));
-            }
+            Projection projection;
             List<ToolDefinition.Enrich> enrich = new ArrayList<>();
-            for (Map<String, Object> node : (List<Map<String, Object>>) entry.getOrDefault("enrich", List.of())) {
-                Map<String, String> fields = new LinkedHashMap<>();
-                ((Map<String, Object>) node.getOrDefault("fields", Map.of()))
-                        .forEach((label, path) -> fields.put(label, String.valueOf(path)));
-                enrich.add(new ToolDefinition.Enrich(
-                        (String) node.get("path"), (String) node.get("currency"), fields));
+            Map<String, Object> restNode = (Map<String, Object>) entry.get("rest");
+            try {
+                // Templates compile here, so a malformed one stops startup, not an officer's click.
+                if (restNode != null) {
+                    rest = new ToolDefinition.RestMapping(
+                            (String) restNode.getOrDefault("method", "GET"),
+                            (String) restNode.get("path"),
+                            (String) restNode.get("body"));
+                }
+                for (Map<String, Object> node : (List<Map<String, Object>>) entry.getOrDefault("enrich", List.of())) {
+                    Map<String, String> fields = new LinkedHashMap<>();
+                    ((Map<String, Object>) node.getOrDefault("fields", Map.of()))
+                            .forEach((label, path) -> fields.put(label, String.valueOf(path)));
+                    enrich.add(new ToolDefinition.Enrich(
+                            (String) node.get("path"), (String) node.get("currency"), fields));
+                }
+                projection = Projection.compile((List<String>) entry.get("project"));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Tool " + entry.get("name") + ": " + e.getMessage(), e);
             }
             ToolDefinition definition = new ToolDefinition(
                     (String) entry.get("name"),
@@ -68,9 +77,17 @@ public final class ToolManifest {
                     params,
                     rest,
                     (List<String>) entry.getOrDefault("redactFields", List.of()),
-                    enrich);
+                    enrich,
+                    ((Number) entry.getOrDefault("cacheSeconds", 0)).intValue(),
+                    projection,
+                    Boolean.TRUE.equals(entry.get("prefetch")));
+            if (definition.prefetch() && definition.write()) {
+                // Speculation is for reads only: nothing may change in Fineract before the officer confirms.
+                throw new IllegalArgumentException("Tool " + definition.name() + ": only a read may be prefetched");
+            }
             manifest.tools.put(definition.name(), definition);
         }
+        manifest.schemas = manifest.tools.values().stream().map(ToolDefinition::toOpenAiSchema).toList();
         return manifest;
     }
 
@@ -83,9 +100,12 @@ public final class ToolManifest {
         return List.copyOf(tools.values());
     }
 
-    /** OpenAI-style schemas for every manifest tool (what the model is allowed to see). */
+    /**
+     * OpenAI-style schemas for every manifest tool (what the model is allowed to see). The same
+     * list instance on every call, so a client can encode it once and reuse the bytes.
+     */
     public List<Map<String, Object>> openAiSchemas() {
-        return tools.values().stream().map(ToolDefinition::toOpenAiSchema).toList();
+        return schemas;
     }
 
     public int size() {
@@ -7,15 +7,27 @@
  */
 package org.mifos.community.copilot.gateway.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
+
 import org.mifos.community.copilot.core.agent.AgentLoop;
+import org.mifos.community.copilot.core.agent.ToolFanOut;
 import org.mifos.community.copilot.core.approval.ApprovalStore;
+import org.mifos.community.copilot.core.approval.FileApprovalStore;
+import org.mifos.community.copilot.core.approval.InMemoryApprovalStore;
 import org.mifos.community.copilot.core.convo.ConversationStore;
+import org.mifos.community.copilot.core.convo.DigestingConversationStore;
+import org.mifos.community.copilot.core.convo.FileConversationStore;
+import org.mifos.community.copilot.core.convo.InMemoryConversationStore;
 import org.mifos.community.copilot.core.llm.LlmClient;
 import org.mifos.community.copilot.core.llm.OpenAiCompatibleLlmClient;
 import org.mifos.community.copilot.core.llm.ScriptedLlmClient;
+import org.mifos.community.copilot.core.metrics.Metrics;
 import org.mifos.community.copilot.core.tools.FineractRestToolExecutor;
+import org.mifos.community.copilot.core.tools.FineractTransport;
+import org.mifos.community.copilot.core.tools.ResponseCache;
 import org.mifos.community.copilot.core.tools.ToolExecutor;
 import org.mifos.community.copilot.core.tools.ToolManifest;
+import org.mifos.community.copilot.gateway.web.TurnGate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.context.annotation.Bean;
@@ -24,11 +36,17 @@ import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.reactive.CorsWebFilter;
 import org.springframework.web.cors.reactive.UrlBasedCorsConfigurationSource;
 
+import reactor.core.scheduler.Schedulers;
+
 import java.io.IOException;
 import java.io.InputStream;
+import java.net.http.HttpClient;
+import java.nio.file.Path;
 import java.time.Duration;
 import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
 
 /** Builds the framework-free core from configuration and exposes it as Spring beans. */
 @Configuration
@@ -46,7 +64,7 @@ public class CoreWiring {
     }
 
     @Bean
-    LlmClient llmClient(GatewayProperties properties) {
+    LlmClient llmClient(GatewayProperties properties, Metrics metrics) {
         GatewayProperties.Llm llm = properties.llm();
         if ("mock".equalsIgnoreCase(llm.provider()) || llm.provider() == null || llm.provider().isBlank()) {
             log.warn("LLM provider = mock (no API key configured). Tools still execute for real; "
@@ -56,7 +74,8 @@ public class CoreWiring {
         String baseUrl = resolveBaseUrl(llm.provider(), llm.baseUrl());
         log.info("LLM provider = {} ({}), model = {}, data-residency = {}", llm.provider(), baseUrl, llm.model(),
                 llm.dataResidency());
-        return new OpenAiCompatibleLlmClient(baseUrl, llm.apiKey(), llm.model());
+        return new OpenAiCompatibleLlmClient(baseUrl, llm.apiKey(), llm.model(), metrics, llm.streamUsage(),
+                !llm.singleSystemPrompt());
     }
 
     /**
@@ -82,26 +101,111 @@ public class CoreWiring {
     }
 
     @Bean
-    ToolExecutor toolExecutor(GatewayProperties properties) {
-        log.info("Tool executor = direct Fineract REST at {} (officer credential passthrough)",
-                properties.fineract().baseUrl());
-        return new FineractRestToolExecutor(properties.fineract().baseUrl());
+    Metrics metrics(MeterRegistry registry) {
+        return new MicrometerMetrics(registry);
+    }
+
+    @Bean
+    ResponseCache responseCache(GatewayProperties properties, Metrics metrics) {
+        ResponseCache cache = new ResponseCache(properties.tools().cacheMaxEntries(), metrics);
+        metrics.gauge("copilot.tool.cache.size", cache, ResponseCache::size);
+        return cache;
+    }
+
+    @Bean(destroyMethod = "close")
+    FineractTransport fineractTransport(GatewayProperties properties, Metrics metrics) {
+        GatewayProperties.Fineract fineract = properties.fineract();
+        HttpClient.Version version = HttpClient.Version.valueOf(fineract.httpVersion().trim().toUpperCase(Locale.ROOT));
+        log.info("Fineract transport = {}, {} client threads, per-tenant cap = {}", version,
+                fineract.threads() > 0 ? fineract.threads() : "shared",
+                fineract.maxConcurrentPerTenant() > 0 ? fineract.maxConcurrentPerTenant() : "none");
+        FineractTransport.Timeouts timeouts = new FineractTransport.Timeouts(
+                Duration.ofSeconds(fineract.connectTimeoutSeconds()), Duration.ofSeconds(fineract.readTimeoutSeconds()),
+                Duration.ofSeconds(fineract.writeTimeoutSeconds()), Duration.ofSeconds(fineract.enrichTimeoutSeconds()),
+                FineractTransport.Timeouts.defaults().businessDate());
+        return new FineractTransport(version, fineract.threads(), fineract.maxConcurrentPerTenant(), timeouts, metrics);
     }
 
     @Bean
-    ApprovalStore approvalStore(GatewayProperties properties) {
-        return new ApprovalStore(Duration.ofSeconds(properties.approval().ttlSeconds()));
+    ToolExecutor toolExecutor(GatewayProperties properties, ResponseCache cache, FineractTransport transport,
+            Metrics metrics) {
+        GatewayProperties.Fineract fineract = properties.fineract();
+        log.info("Tool executor = direct Fineract REST at {} (officer credential passthrough)", fineract.baseUrl());
+        return new FineractRestToolExecutor(fineract.baseUrl(), cache, transport,
+                Duration.ofSeconds(fineract.businessDateTtlSeconds()), metrics);
     }
 
     @Bean
-    ConversationStore conversationStore() {
-        return new ConversationStore();
+    ApprovalStore approvalStore(GatewayProperties properties, Metrics metrics) {
+        GatewayProperties.Approval approval = properties.approval();
+        Duration ttl = Duration.ofSeconds(approval.ttlSeconds());
+        if (approval.shared()) {
+            log.info("Approval store = shared directory {}", approval.dir());
+            return new FileApprovalStore(Path.of(approval.dir()), ttl, metrics);
+        }
+        return new InMemoryApprovalStore(ttl, metrics);
+    }
+
+    @Bean
+    ConversationStore conversationStore(GatewayProperties properties, Metrics metrics) {
+        GatewayProperties.Conversations conversations = properties.conversations();
+        ConversationStore store;
+        if (conversations.onDisk()) {
+            log.info("Conversation store = files under {}, kept {} days", conversations.dir(),
+                    conversations.retentionDays());
+            store = new FileConversationStore(Path.of(conversations.dir()),
+                    Duration.ofDays(conversations.retentionDays()));
+        } else {
+            log.info("Conversation store = memory, capped at ~{} MB, idle officers forgotten after {} min",
+                    conversations.maxMemoryMb() > 0 ? conversations.maxMemoryMb() : "no",
+                    conversations.idleMinutes() > 0 ? conversations.idleMinutes() : "no");
+            InMemoryConversationStore memory = new InMemoryConversationStore(conversations.maxMemoryMb() * 1024 * 1024,
+                    Duration.ofMinutes(conversations.idleMinutes()), metrics);
+            metrics.gauge("copilot.conversations.retained.bytes", memory, InMemoryConversationStore::retainedBytes);
+            metrics.gauge("copilot.conversations.active", memory, InMemoryConversationStore::conversations);
+            store = memory;
+        }
+        if (conversations.digestAfterTokens() <= 0) {
+            return store;
+        }
+        log.info("Conversations past ~{} tokens are folded to a digest plus the newest ~{}",
+                conversations.digestAfterTokens(), conversations.digestKeepTokens());
+        return new DigestingConversationStore(store, conversations.digestAfterTokens(),
+                conversations.digestKeepTokens(),
+                Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("copilot-digest-", 0).factory()));
+    }
+
+    @Bean(destroyMethod = "close")
+    ToolFanOut toolFanOut(GatewayProperties properties) {
+        GatewayProperties.Tools tools = properties.tools();
+        if (properties.turns().virtualThreads()) {
+            return ToolFanOut.onVirtualThreads(tools.maxParallelReads(), tools.maxParallelReadsPerOfficer());
+        }
+        return new ToolFanOut(tools.maxParallelReads(), tools.maxParallelReadsPerOfficer());
+    }
+
+    @Bean(destroyMethod = "close")
+    TurnGate turnGate(GatewayProperties properties, Metrics metrics) {
+        GatewayProperties.Turns turns = properties.turns();
+        Executor threads;
+        if (turns.virtualThreads()) {
+            threads = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("copilot-turn-", 0).factory());
+        } else {
+            threads = (turn) -> Schedulers.boundedElastic().schedule(turn);
+        }
+        log.info("Turns run on {} threads, concurrency cap = {}", turns.virtualThreads() ? "virtual" : "elastic",
+                turns.maxConcurrent() > 0 ? turns.maxConcurrent() : "none");
+        TurnGate gate = new TurnGate(threads, turns.maxConcurrent(), turns.maxQueued(), metrics);
+        metrics.gauge("copilot.turns.active", gate, TurnGate::active);
+        metrics.gauge("copilot.turns.queued", gate, TurnGate::queued);
+        return gate;
     }
 
     @Bean
-    AgentLoop agentLoop(LlmClient llm, ToolManifest manifest, ToolExecutor executor, ApprovalStore approvals,
-            ConversationStore conversations) {
-        return new AgentLoop(llm, manifest, executor, approvals, conversations);
+    AgentLoop agentLoop(GatewayProperties properties, LlmClient llm, ToolManifest manifest, ToolExecutor executor,
+            ApprovalStore approvals, ConversationStore conversations, ToolFanOut fanOut, Metrics metrics) {
+        return new AgentLoop(llm, manifest, executor, approvals, conversations, fanOut,
+                properties.llm().historyTokens(), metrics, properties.turns().timingEvents());
     }
 
     /** Same-philosophy-as-Fineract CORS: explicit origin allow-list, credentialed headers allowed. */
@@ -16,13 +16,91 @@ import java.util.List;
  * the Fineract-plugin phase will read it from Fineract's third-party service tables instead.
  */
 @ConfigurationProperties(prefix = "copilot")
-public record GatewayProperties(Llm llm, Fineract fineract, Cors cors, Approval approval) {
+public record GatewayProperties(Llm llm, Fineract fineract, Cors cors, Approval approval, Tools tools,
+        Turns turns, Conversations conversations) {
 
-    public record Llm(String provider, String baseUrl, String apiKey, String model, String dataResidency) {}
+    /**
+     * The model and where it runs. {@code historyTokens} is how much of a conversation is sent
+     * each round, in estimated tokens; size it to the model's context window, less the tool
+     * schemas and room for the answer. Zero sends everything the conversation store keeps.
+     * {@code streamUsage} asks the provider for each completion's token bill. {@code systemPrompt}
+     * is {@code split} (the rules first, the date and screen after the conversation, so the rules
+     * stay in the provider's prompt cache) or {@code single} (one leading system message, for
+     * chat templates that accept no other).
+     */
+    public record Llm(String provider, String baseUrl, String apiKey, String model, String dataResidency,
+            int historyTokens, boolean streamUsage, String systemPrompt) {
 
-    public record Fineract(String baseUrl) {}
+        public boolean singleSystemPrompt() {
+            return "single".equalsIgnoreCase(systemPrompt);
+        }
+    }
+
+    /**
+     * The Fineract the tools call and how. {@code httpVersion} is {@code HTTP_2} (falling back
+     * to HTTP/1.1 where Fineract does not offer it) or {@code HTTP_1_1}. {@code threads} gives
+     * the client threads of its own; zero shares the JDK's. Past {@code maxConcurrentPerTenant}
+     * calls in flight a tenant's next call waits for one of its own to finish; zero means no cap.
+     * Timeouts are in seconds, and for reads, writes and confirmation-card lookups include any
+     * wait for a slot. A tenant's business date is re-read in the background once it is
+     * {@code businessDateTtlSeconds} old.
+     */
+    public record Fineract(String baseUrl, String httpVersion, int threads, int maxConcurrentPerTenant,
+            long connectTimeoutSeconds, long readTimeoutSeconds, long writeTimeoutSeconds,
+            long enrichTimeoutSeconds, long businessDateTtlSeconds) {}
 
     public record Cors(List<String> allowedOrigins) {}
 
-    public record Approval(long ttlSeconds) {}
+    /**
+     * Pending write cards. {@code store} is {@code memory} (a decision must reach the replica
+     * that ran the turn) or {@code file}, cards in {@code dir} shared by every replica.
+     */
+    public record Approval(long ttlSeconds, String store, String dir) {
+
+        public boolean shared() {
+            return "file".equalsIgnoreCase(store == null ? "" : store.trim());
+        }
+    }
+
+    /**
+     * Read calls the model batches into one round run side by side, capped across the gateway
+     * and per officer; zero runs them one after another. {@code cacheMaxEntries} bounds the
+     * cache of reads whose tool declares {@code cacheSeconds}; zero turns caching off.
+     */
+    public record Tools(int maxParallelReads, int maxParallelReadsPerOfficer, int cacheMaxEntries) {}
+
+    /**
+     * Where turns run and how many at once. {@code threads} is {@code elastic} (Reactor's bounded
+     * pool) or {@code virtual} (a virtual thread per turn and per parallel read). Past
+     * {@code maxConcurrent} turns wait in arrival order, up to {@code maxQueued}; zero
+     * {@code maxConcurrent} admits every turn at once. Without {@code async} a turn makes its
+     * calls to the model and to Fineract on the thread it is admitted on, and keeps it until it
+     * ends; with it the turn gives that thread back once started and continues on HTTP client
+     * callbacks. With {@code timingEvents} each turn ends with a {@code timing} event breaking
+     * down where its time went.
+     */
+    public record Turns(String threads, int maxConcurrent, int maxQueued, boolean async, boolean timingEvents) {
+
+        public boolean virtualThreads() {
+            return "virtual".equalsIgnoreCase(threads == null ? "" : threads.trim());
+        }
+    }
+
+    /**
+     * Where conversations live: {@code memory} (the default, lost on restart) or {@code file},
+     * append-only files under {@code dir} that survive a restart and can be shared by replicas
+     * mounting the same volume. Untouched file conversations are deleted after
+     * {@code retentionDays}; zero keeps them. A conversation past {@code digestAfterTokens} is
+     * folded after its turn into a digest plus its newest {@code digestKeepTokens}; zero never
+     * folds. In memory, every conversation together is held to roughly {@code maxMemoryMb},
+     * least recently used dropped first, and officers idle for {@code idleMinutes} are
+     * forgotten; zero lifts either bound.
+     */
+    public record Conversations(String store, String dir, long retentionDays, int digestAfterTokens,
+            int digestKeepTokens, long maxMemoryMb, long idleMinutes) {
+
+        public boolean onDisk() {
+            return "file".equalsIgnoreCase(store == null ? "" : store.trim());
+        }
+    }
 }
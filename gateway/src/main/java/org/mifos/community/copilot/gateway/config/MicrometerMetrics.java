@@ -0,0 +1,47 @@
+/**
+ * Copyright since 2026 Mifos Initiative
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file, You can obtain one at
+ * http://mozilla.org/MPL/2.0/.
+ */
+package org.mifos.community.copilot.gateway.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import org.mifos.community.copilot.core.metrics.Metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
+
+/** The core's {@link Metrics} on Micrometer, which is what the rest of the Boot ecosystem reads. */
+final class MicrometerMetrics implements Metrics {
+
+    private final MeterRegistry registry;
+
+    MicrometerMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public void increment(String name, String... tags) {
+        registry.counter(name, tags).increment();
+    }
+
+    @Override
+    public void increment(String name, long amount, String... tags) {
+        registry.counter(name, tags).increment(amount);
+    }
+
+    @Override
+    public void record(String name, long nanos, String... tags) {
+        Timer.builder(name).tags(tags).register(registry).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public <T> void gauge(String name, T target, ToDoubleFunction<T> value, String... tags) {
+        Gauge.builder(name, target, value).tags(tags).strongReference(true).register(registry);
+    }
+}
@@ -30,12 +30,13 @@ import org.springframework.web.bind.annotation.RestController;
 
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.FluxSink;
-import reactor.core.scheduler.Schedulers;
 
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
 
 /**
  * Wire contract v1 endpoints (ADR-001 §03). Each POST answers with an SSE stream; closing the
@@ -50,51 +51,70 @@ public class ChatController {
 
     private final AgentLoop agentLoop;
     private final org.mifos.community.copilot.gateway.config.GatewayProperties properties;
+    private final TurnGate turns;
     private final ObjectMapper mapper = new ObjectMapper();
 
     public ChatController(AgentLoop agentLoop,
-            org.mifos.community.copilot.gateway.config.GatewayProperties properties) {
+            org.mifos.community.copilot.gateway.config.GatewayProperties properties, TurnGate turns) {
         this.agentLoop = agentLoop;
         this.properties = properties;
+        this.turns = turns;
     }
 
     @PostMapping(value = "/chat", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
     public Flux<ServerSentEvent<String>> chat(@RequestBody ChatRequest request, ServerHttpRequest http) {
-        return run(http, (context, sink) -> {
-            String message = request.message() == null ? "" : request.message().trim();
-            if (message.isEmpty() || message.length() > 500) {
-                sink.emit(StreamEvent.error(ErrorCode.INTERNAL, "Message must be 1-500 characters.", false));
-                sink.emit(StreamEvent.done(""));
-                return;
-            }
-            // Deployment-drift guard: the Copilot must NEVER execute against a different
-            // Fineract than the one on the officer's screen. Writes to the "wrong bank"
-            // would be silent and catastrophic, so refuse loudly instead.
-            Object uiBackend = request.context() == null ? null : request.context().get("backendOrigin");
-            if (uiBackend != null && !originsMatch(String.valueOf(uiBackend), properties.fineract().baseUrl())) {
-                sink.emit(StreamEvent.error(ErrorCode.INTERNAL,
-                        "Configuration mismatch: this assistant executes against "
-                                + properties.fineract().baseUrl() + ", but your screen is connected to "
-                                + uiBackend + ". Ask your administrator to align the Copilot gateway's "
-                                + "FINERACT_BASE_URL with the web-app backend.",
-                        false));
-                sink.emit(StreamEvent.done(""));
-                return;
-            }
-            agentLoop.runTurn(request.conversationId(), message,
-                    request.context() == null ? Map.of() : request.context(), context, sink);
-        });
+        String message = request.message() == null ? "" : request.message().trim();
+        Map<String, Object> screen = request.context() == null ? Map.of() : request.context();
+        return run(http,
+                (context, sink) -> {
+                    if (accepted(request, message, sink)) {
+                        agentLoop.runTurn(request.conversationId(), message, screen, context, sink);
+                    }
+                },
+                (context, sink) -> accepted(request, message, sink)
+                        ? agentLoop.runTurnAsync(request.conversationId(), message, screen, context, sink)
+                        : CompletableFuture.completedFuture(null));
     }
 
     @PostMapping(value = "/actions/{cardId}/decision", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
     public Flux<ServerSentEvent<String>> decision(@PathVariable String cardId, @RequestBody DecisionRequest request,
             ServerHttpRequest http) {
-        return run(http, (context, sink) ->
-                agentLoop.resume(cardId, request.isApprove(), Map.of(), context, sink));
+        return run(http,
+                (context, sink) -> agentLoop.resume(cardId, request.isApprove(), Map.of(), context, sink),
+                (context, sink) -> agentLoop.resumeAsync(cardId, request.isApprove(), Map.of(), context, sink));
+    }
+
+    /** Whether the message may start a turn; if not, the officer has been told why and the stream is done. */
+    private boolean accepted(ChatRequest request, String message, EventSink sink) {
+        if (message.isEmpty() || message.length() > 500) {
+            sink.emit(StreamEvent.error(ErrorCode.INTERNAL, "Message must be 1-500 characters.", false));
+            sink.emit(StreamEvent.done(""));
+            return false;
+        }
+        // Deployment-drift guard: the Copilot must NEVER execute against a different
+        // Fineract than the one on the officer's screen. Writes to the "wrong bank"
+        // would be silent and catastrophic, so refuse loudly instead.
+        Object uiBackend = request.context() == null ? null : request.context().get("backendOrigin");
+        if (uiBackend != null && !originsMatch(String.valueOf(uiBackend), properties.fineract().baseUrl())) {
+            sink.emit(StreamEvent.error(ErrorCode.INTERNAL,
+                    "Configuration mismatch: this assistant executes against "
+                            + properties.fineract().baseUrl() + ", but your screen is connected to "
+                            + uiBackend + ". Ask your administrator to align the Copilot gateway's "
+                            + "FINERACT_BASE_URL with the web-app backend.",
+                    false));
+            sink.emit(StreamEvent.done(""));
+            return false;
+        }
+        return true;
     }
 
-    /** Shared plumbing: extract identity, bridge the core EventSink onto a reactive SSE stream. */
-    private Flux<ServerSentEvent<String>> run(ServerHttpRequest http, BiConsumer<CallContext, EventSink> work) {
+    /**
+     * Shared plumbing: extract identity, bridge the core EventSink onto a reactive SSE stream.
+     * {@code blocking} runs the turn on the thread it is admitted on; {@code async} only starts
+     * it there, when {@code copilot.turns.async} is set.
+     */
+    private Flux<ServerSentEvent<String>> run(ServerHttpRequest http, BiConsumer<CallContext, EventSink> blocking,
+            BiFunction<CallContext, EventSink, CompletableFuture<Void>> async) {
         CallContext context = extractContext(http);
         return Flux.<ServerSentEvent<String>>create((FluxSink<ServerSentEvent<String>> flux) -> {
             AtomicBoolean cancelled = new AtomicBoolean(false);
@@ -122,21 +142,57 @@ public class ChatController {
                 return;
             }
 
-            // The loop is blocking (JDK HttpClient streams); run it off the event loop.
-            Schedulers.boundedElastic().schedule(() -> {
-                try {
-                    work.accept(context, sink);
-                } catch (Exception e) {
-                    log.error("Copilot turn failed [correlation={}]", context.correlationId(), e);
-                    sink.emit(StreamEvent.error(ErrorCode.INTERNAL, "Something went wrong on the gateway.", false));
-                    sink.emit(StreamEvent.done(""));
-                } finally {
-                    flux.complete();
-                }
-            });
+            // The turn runs off the event loop: all of it when blocking, its first steps when async.
+            boolean admitted = properties.turns().async()
+                    ? turns.submitAsync(() -> start(async, context, sink, cancelled, flux))
+                    : turns.submit(() -> {
+                        try {
+                            if (cancelled.get()) {
+                                return; // The officer left while the turn was queued.
+                            }
+                            blocking.accept(context, sink);
+                        } catch (Exception e) {
+                            failed(context, sink, e);
+                        } finally {
+                            flux.complete();
+                        }
+                    });
+            if (!admitted) {
+                sink.emit(StreamEvent.error(ErrorCode.RATE_LIMITED,
+                        "The assistant is busy right now. Try again in a moment.", true));
+                sink.emit(StreamEvent.done(""));
+                flux.complete();
+            }
         }, FluxSink.OverflowStrategy.BUFFER);
     }
 
+    /** Starts an async turn; the stream completes whenever, and on whatever thread, the turn ends. */
+    private CompletableFuture<Void> start(BiFunction<CallContext, EventSink, CompletableFuture<Void>> work,
+            CallContext context, EventSink sink, AtomicBoolean cancelled, FluxSink<ServerSentEvent<String>> flux) {
+        if (cancelled.get()) {
+            flux.complete();
+            return CompletableFuture.completedFuture(null); // The officer left while queued.
+        }
+        CompletableFuture<Void> turn;
+        try {
+            turn = work.apply(context, sink);
+        } catch (RuntimeException e) {
+            turn = CompletableFuture.failedFuture(e);
+        }
+        return turn.whenComplete((value, error) -> {
+            if (error != null) {
+                failed(context, sink, error);
+            }
+            flux.complete();
+        });
+    }
+
+    private void failed(CallContext context, EventSink sink, Throwable error) {
+        log.error("Copilot turn failed [correlation={}]", context.correlationId(), error);
+        sink.emit(StreamEvent.error(ErrorCode.INTERNAL, "Something went wrong on the gateway.", false));
+        sink.emit(StreamEvent.done(""));
+    }
+
     /** WebFlux serializes ServerSentEvent into proper "event:"/"data:" SSE framing. */
     private ServerSentEvent<String> encode(StreamEvent event) {
         try {
@@ -0,0 +1,150 @@
+/**
+ * Copyright since 2026 Mifos Initiative
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file, You can obtain one at
+ * http://mozilla.org/MPL/2.0/.
+ */
+package org.mifos.community.copilot.gateway.web;
+
+import org.mifos.community.copilot.core.metrics.Metrics;
+
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Admission for turns. A turn holds a provider stream open for as long as the LLM answers, and
+ * a blocking one holds its thread too, so the number in flight is capped gateway-wide; turns
+ * over the cap wait their turn in arrival order without holding a thread, and past
+ * {@code maxQueued} they are refused outright so an overload is reported at once instead of as
+ * a timeout minutes later.
+ *
+ * <p>The executor decides what a turn runs on: Reactor's bounded elastic pool, or one virtual
+ * thread per turn, where a turn parked on a socket costs a few kilobytes rather than a platform
+ * thread.
+ */
+public final class TurnGate implements AutoCloseable {
+
+    private record Pending(Supplier<? extends CompletionStage<?>> turn, long queuedAt) {}
+
+    private final Executor executor;
+    private final int maxConcurrent;
+    private final int maxQueued;
+    private final Metrics metrics;
+    private final Semaphore permits;
+    private final Queue<Pending> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicInteger active = new AtomicInteger();
+
+    /**
+     * @param executor runs admitted turns; an {@link ExecutorService} is shut down with the gate
+     * @param maxConcurrent turns in flight at once; zero or less means no cap and no queue
+     * @param maxQueued turns allowed to wait for a slot before new ones are refused
+     */
+    public TurnGate(Executor executor, int maxConcurrent, int maxQueued, Metrics metrics) {
+        this.executor = executor;
+        this.maxConcurrent = maxConcurrent;
+        this.maxQueued = Math.max(0, maxQueued);
+        this.metrics = metrics;
+        this.permits = new Semaphore(Math.max(0, maxConcurrent));
+    }
+
+    /**
+     * Run {@code turn} now if a slot is free, or once one frees up.
+     *
+     * @return false when the queue is full and the turn was not accepted
+     */
+    public boolean submit(Runnable turn) {
+        return submitAsync(() -> {
+            turn.run();
+            return CompletableFuture.completedFuture(null);
+        });
+    }
+
+    /**
+     * As {@link #submit}, for a turn that starts its work and returns without waiting for it.
+     * The thread is let go as soon as {@code turn} returns; the slot is held until the stage
+     * it returned completes.
+     */
+    public boolean submitAsync(Supplier<? extends CompletionStage<?>> turn) {
+        Pending entry = new Pending(turn, System.nanoTime());
+        if (maxConcurrent <= 0 || permits.tryAcquire()) {
+            dispatch(entry);
+            return true;
+        }
+        if (queued.incrementAndGet() > maxQueued) {
+            queued.decrementAndGet();
+            metrics.increment("copilot.turns.rejected");
+            return false;
+        }
+        pending.add(entry);
+        // A slot may have been released between the tryAcquire above and the add.
+        drain();
+        return true;
+    }
+
+    /** Turns running now. */
+    public int active() {
+        return active.get();
+    }
+
+    /** Turns waiting for a slot. */
+    public int queued() {
+        return queued.get();
+    }
+
+    private void drain() {
+        while (!pending.isEmpty() && permits.tryAcquire()) {
+            Pending next = pending.poll();
+            if (next == null) {
+                permits.release(); // Another thread took it first.
+                continue;
+            }
+            queued.decrementAndGet();
+            dispatch(next);
+        }
+    }
+
+    private void dispatch(Pending entry) {
+        metrics.record("copilot.turns.queue_wait", System.nanoTime() - entry.queuedAt());
+        active.incrementAndGet();
+        try {
+            executor.execute(() -> {
+                CompletionStage<?> running;
+                try {
+                    running = entry.turn().get();
+                } catch (RuntimeException | Error e) {
+                    finished();
+                    throw e;
+                }
+                running.whenComplete((value, error) -> finished());
+            });
+        } catch (RejectedExecutionException e) {
+            finished();
+            throw e;
+        }
+    }
+
+    private void finished() {
+        active.decrementAndGet();
+        if (maxConcurrent > 0) {
+            permits.release();
+            drain();
+        }
+    }
+
+    @Override
+    public void close() {
+        if (executor instanceof ExecutorService service) {
+            service.shutdown();
+        }
+    }
+}
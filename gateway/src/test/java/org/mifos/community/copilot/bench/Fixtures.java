@@ -0,0 +1,30 @@
+/**
+ * Copyright since 2026 Mifos Initiative
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file, You can obtain one at
+ * http://mozilla.org/MPL/2.0/.
+ */
+package org.mifos.community.copilot.bench;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+/** Checked-in inputs under src/test/resources/bench, so every run measures the same bytes offline. */
+public final class Fixtures {
+
+    private Fixtures() {}
+
+    public static String text(String name) {
+        try (InputStream in = Fixtures.class.getResourceAsStream("/bench/" + name)) {
+            if (in == null) {
+                throw new IllegalStateException("Missing benchmark fixture " + name);
+            }
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8).strip();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
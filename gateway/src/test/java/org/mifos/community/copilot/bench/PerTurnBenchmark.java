@@ -0,0 +1,64 @@
+/**
+ * Copyright since 2026 Mifos Initiative
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file, You can obtain one at
+ * http://mozilla.org/MPL/2.0/.
+ */
+package org.mifos.community.copilot.bench;
+
+import org.mifos.community.copilot.core.agent.SystemPrompt;
+import org.mifos.community.copilot.core.auth.CallContext;
+import org.mifos.community.copilot.core.tools.ToolManifest;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Work every model round repeats before a byte goes to the LLM: the tool schemas, the per-turn
+ * part of the system prompt, and the credential fingerprint that keys the conversation and every approval.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PerTurnBenchmark {
+
+    private ToolManifest manifest;
+    private final Map<String, Object> screen = Map.of("screen", "loan-account", "clientId", 7,
+            "clientName", "Amara Okafor", "loanId", 12, "role", "Loan Officer", "language", "sw");
+    private final CallContext context = new CallContext("Basic bWlmb3M6cGFzc3dvcmQ=", "default", "corr-1");
+
+    @Setup
+    public void load() {
+        manifest = ToolManifest.load(getClass().getResourceAsStream("/tools.yaml"));
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> openAiSchemas() {
+        return manifest.openAiSchemas();
+    }
+
+    @Benchmark
+    public String turnContext() {
+        return SystemPrompt.turnContext(screen, "2026-10-18");
+    }
+
+    @Benchmark
+    public String fingerprint() {
+        return context.fingerprint();
+    }
+}
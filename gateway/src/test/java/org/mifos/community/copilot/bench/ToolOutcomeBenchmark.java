@@ -0,0 +1,70 @@
+/**
+ * Copyright since 2026 Mifos Initiative
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file, You can obtain one at
+ * http://mozilla.org/MPL/2.0/.
+ */
+package org.mifos.community.copilot.bench;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.mifos.community.copilot.core.agent.ToolOutcome;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * What recording one tool result costs the agent loop, before and after it was parsed once.
+ * {@code legacyRound} is the old path kept verbatim: a fresh ObjectMapper and a full tree for
+ * the error check, another pair for the navigation card, a third mapper for the arguments.
+ * Run with {@code -prof gc} and compare {@code gc.alloc.rate.norm}, the bytes per round.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ToolOutcomeBenchmark {
+
+    private static final ObjectMapper SHARED = new ObjectMapper();
+
+    private String loanDetails;
+    private final Map<String, Object> arguments = Map.of("loanId", 12);
+
+    @Setup
+    public void load() {
+        loanDetails = Fixtures.text("loan-details.json");
+    }
+
+    @Benchmark
+    public void legacyRound(Blackhole sink) throws Exception {
+        sink.consume(new ObjectMapper().readTree(loanDetails).has("error"));
+        JsonNode result = new ObjectMapper().readTree(loanDetails);
+        sink.consume(result.path("clientId").asLong(0));
+        sink.consume(result.path("loanId").asLong(0));
+        sink.consume(new ObjectMapper().writeValueAsString(arguments));
+    }
+
+    @Benchmark
+    public void parsedOnceRound(Blackhole sink) throws Exception {
+        ToolOutcome outcome = ToolOutcome.of(loanDetails);
+        sink.consume(outcome.isError());
+        sink.consume(outcome.clientId(0));
+        sink.consume(outcome.loanId(0));
+        sink.consume(SHARED.writeValueAsString(arguments));
+    }
+}
@@ -11,15 +11,21 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mifos.community.copilot.core.agent.AgentLoop;
 import org.mifos.community.copilot.core.agent.EventSink;
+import org.mifos.community.copilot.core.agent.SystemPrompt;
+import org.mifos.community.copilot.core.agent.ToolFanOut;
 import org.mifos.community.copilot.core.approval.ApprovalStore;
+import org.mifos.community.copilot.core.approval.InMemoryApprovalStore;
 import org.mifos.community.copilot.core.auth.CallContext;
 import org.mifos.community.copilot.core.contract.StreamEvent;
 import org.mifos.community.copilot.core.convo.ConversationStore;
+import org.mifos.community.copilot.core.convo.InMemoryConversationStore;
 import org.mifos.community.copilot.core.llm.LlmClient;
 import org.mifos.community.copilot.core.llm.LlmResult;
 import org.mifos.community.copilot.core.llm.LlmToolCall;
+import org.mifos.community.copilot.core.metrics.Metrics;
 import org.mifos.community.copilot.core.tools.Display;
 import org.mifos.community.copilot.core.tools.ToolDefinition;
+import org.mifos.community.copilot.core.tools.ToolExecutionException;
 import org.mifos.community.copilot.core.tools.ToolExecutor;
 import org.mifos.community.copilot.core.tools.ToolManifest;
 
@@ -28,12 +34,18 @@ import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Deque;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.entry;
+import static org.assertj.core.api.Assertions.tuple;
 
 /** Banking invariants of the agent loop: write-pause, default-deny, fingerprints, round cap. */
 class AgentLoopTest {
@@ -74,8 +86,8 @@ class AgentLoopTest {
     @BeforeEach
     void setUp() {
         manifest = ToolManifest.load(new ByteArrayInputStream(MANIFEST.getBytes(StandardCharsets.UTF_8)));
-        approvals = new ApprovalStore(Duration.ofMinutes(5));
-        conversations = new ConversationStore();
+        approvals = new InMemoryApprovalStore(Duration.ofMinutes(5));
+        conversations = new InMemoryConversationStore();
         executor = new RecordingExecutor();
         llm = new ScriptedLlm();
         sink = new RecordingSink();
@@ -97,6 +109,21 @@ class AgentLoopTest {
         assertThat(sink.names()).containsSubsequence("tool_call", "tool_call", "done");
     }
 
+    @Test
+    void everyRoundOpensWithTheSameRulesAndKeepsTheVolatileContextLast() {
+        llm.enqueue(new LlmResult("", List.of(new LlmToolCall("c1", "read_tool", Map.of("id", 7)))));
+        llm.enqueue(new LlmResult("Here is your data.", List.of()));
+
+        loop().runTurn(null, "show 7", Map.of("loanId", 7), officer, sink);
+
+        List<Map<String, Object>> first = llm.requests.get(0);
+        List<Map<String, Object>> second = llm.requests.get(1);
+        assertThat(second.get(0)).isSameAs(SystemPrompt.RULES_MESSAGE);
+        assertThat(String.valueOf(second.get(second.size() - 1).get("content"))).contains("Loan id in focus: 7");
+        // The second round extends the first; only the trailing context message differs.
+        assertThat(second.subList(0, first.size() - 1)).isEqualTo(first.subList(0, first.size() - 1));
+    }
+
     @Test
     void writeToolPausesWithActionCardAndDoesNotExecute() {
         llm.enqueue(new LlmResult("", List.of(new LlmToolCall("c1", "write_tool", Map.of("loanId", 42)))));
@@ -242,10 +269,212 @@ class AgentLoopTest {
         assertThat(sink.byName("error").data().get("code")).isEqualTo("TOOL_FAILED");
     }
 
+    @Test
+    void readsInOneBatchRunTogetherAndAreRecordedInTheModelsOrder() {
+        executor.together = new CountDownLatch(3);
+        llm.enqueue(new LlmResult("", List.of(
+                new LlmToolCall("c1", "read_tool", Map.of("id", 1)),
+                new LlmToolCall("c2", "read_tool", Map.of("id", 2)),
+                new LlmToolCall("c3", "read_tool", Map.of("id", 3)))));
+        llm.enqueue(new LlmResult("All three.", List.of()));
+
+        try (ToolFanOut fanOut = new ToolFanOut(8, 4)) {
+            new AgentLoop(llm, manifest, executor, approvals, conversations, fanOut)
+                    .runTurn(null, "show 1, 2 and 3", Map.of(), officer, sink);
+        }
+
+        String conversationId = String.valueOf(sink.byName("done").data().get("conversation_id"));
+        List<Map<String, Object>> results = conversations.messages(officer.fingerprint(), conversationId).stream()
+                .filter((message) -> "tool".equals(message.get("role"))).toList();
+        // Had the calls run one after another, none would have seen the others in flight.
+        assertThat(results).extracting((message) -> message.get("content"))
+                .containsExactly("{\"id\":1}", "{\"id\":2}", "{\"id\":3}");
+        assertThat(results).extracting((message) -> message.get("tool_call_id")).containsExactly("c1", "c2", "c3");
+    }
+
+    @Test
+    void aSessionThatExpiresMidBatchStillEndsEveryReadAndAnswersEveryCall() {
+        executor.expiredFor = 2;
+        llm.enqueue(new LlmResult("", List.of(
+                new LlmToolCall("c1", "read_tool", Map.of("id", 1)),
+                new LlmToolCall("c2", "read_tool", Map.of("id", 2)),
+                new LlmToolCall("c3", "read_tool", Map.of("id", 3)),
+                new LlmToolCall("c4", "write_tool", Map.of("loanId", 42)))));
+
+        loop().runTurn(null, "show 1, 2 and 3, then approve 42", Map.of(), officer, sink);
+
+        assertThat(sink.events).filteredOn((event) -> event.name().equals("tool_call"))
+                .extracting((event) -> event.data().get("phase"))
+                .containsExactly("started", "started", "started", "finished", "finished", "finished");
+        List<String> names = sink.names();
+        assertThat(names.subList(names.size() - 2, names.size())).containsExactly("error", "done");
+        assertThat(sink.byName("error").data().get("code")).isEqualTo("AUTH_EXPIRED");
+        String conversationId = String.valueOf(sink.byName("done").data().get("conversation_id"));
+        assertThat(conversations.messages(officer.fingerprint(), conversationId))
+                .filteredOn((message) -> "tool".equals(message.get("role")))
+                .extracting((message) -> message.get("tool_call_id")).containsExactly("c1", "c2", "c3", "c4");
+        assertThat(executor.executed).doesNotContain("write_tool");
+    }
+
+    @Test
+    void aWriteInTheMiddleOfABatchStillPausesAfterTheReadsAheadOfIt() {
+        llm.enqueue(new LlmResult("", List.of(
+                new LlmToolCall("c1", "read_tool", Map.of("id", 1)),
+                new LlmToolCall("c2", "write_tool", Map.of("loanId", 42)),
+                new LlmToolCall("c3", "read_tool", Map.of("id", 3)))));
+
+        try (ToolFanOut fanOut = new ToolFanOut(8, 4)) {
+            new AgentLoop(llm, manifest, executor, approvals, conversations, fanOut)
+                    .runTurn(null, "show 1, approve 42, show 3", Map.of(), officer, sink);
+        }
+
+        assertThat(executor.executed).containsExactly("read_tool"); // The read after the write is deferred.
+        assertThat(sink.names()).contains("action_card").doesNotContain("done");
+    }
+
+    @Test
+    void anAsyncTurnHoldsNoThreadWhileTheModelIsAnswering() throws Exception {
+        CountDownLatch modelAnswers = new CountDownLatch(1);
+        llm.answerOn = (task) -> Thread.startVirtualThread(() -> {
+            try {
+                modelAnswers.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            task.run();
+        });
+        llm.enqueue(new LlmResult("", List.of(new LlmToolCall("c1", "read_tool", Map.of("id", 7)))));
+        llm.enqueue(new LlmResult("Here is your data.", List.of()));
+
+        CompletableFuture<Void> turn = loop().runTurnAsync(null, "show 7", Map.of(), officer, sink);
+
+        assertThat(turn).isNotDone(); // Handed back while the model has not said a word.
+        modelAnswers.countDown();
+        turn.get(5, TimeUnit.SECONDS);
+        assertThat(executor.executed).containsExactly("read_tool");
+        assertThat(sink.names()).containsSubsequence("tool_call", "tool_call", "token", "done");
+    }
+
+    @Test
+    void aBlockingTurnAsksTheModelOnTheCallingThreadEvenWhenTheClientCouldAnswerElsewhere() {
+        llm.answerOn = (task) -> Thread.startVirtualThread(task);
+        llm.enqueue(new LlmResult("", List.of(new LlmToolCall("c1", "read_tool", Map.of("id", 7)))));
+        llm.enqueue(new LlmResult("Here is your data.", List.of()));
+
+        loop().runTurn(null, "show 7", Map.of(), officer, sink);
+
+        assertThat(llm.answeredOn).containsExactly(Thread.currentThread(), Thread.currentThread());
+        assertThat(sink.names()).containsSubsequence("tool_call", "tool_call", "token", "done");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void aTimedTurnBreaksDownWhereItsTimeWentJustBeforeDone() {
+        List<String> recorded = new ArrayList<>();
+        AgentLoop timed = new AgentLoop(llm, manifest, executor, approvals, conversations, ToolFanOut.sequential(), 0,
+                recording(recorded), true);
+        llm.enqueue(new LlmResult("", List.of(new LlmToolCall("c1", "read_tool", Map.of("id", 7)))));
+        llm.enqueue(new LlmResult("Here is your data.", List.of()));
+
+        timed.runTurn(null, "show 7", Map.of(), officer, sink);
+
+        List<String> names = sink.names();
+        assertThat(names.subList(names.size() - 2, names.size())).containsExactly("timing", "done");
+        Map<String, Object> turn = sink.only("timing").data();
+        List<Map<String, Object>> rounds = (List<Map<String, Object>>) turn.get("parts");
+        assertThat(rounds).extracting((round) -> round.get("phase")).containsExactly("round", "round");
+        assertThat((List<Map<String, Object>>) rounds.get(0).get("parts"))
+                .extracting((part) -> part.get("phase"), (part) -> part.get("tool"))
+                .containsExactly(tuple("business_date", null), tuple("llm", null), tuple("tool", "read_tool"));
+        assertThat(recorded).contains("copilot.turn.phase tool read_tool default unknown",
+                "copilot.turn.phase emit none default unknown", "copilot.turn.duration default unknown chat");
+    }
+
+    @Test
+    void aPausedTurnReportsAtItsEndAndTheDecisionCountsTheOfficersWaitAndItsOutcome() {
+        List<String> recorded = new ArrayList<>();
+        AgentLoop timed = new AgentLoop(llm, manifest, executor, approvals, conversations, ToolFanOut.sequential(), 0,
+                recording(recorded), true);
+        llm.enqueue(new LlmResult("", List.of(new LlmToolCall("c1", "write_tool", Map.of("loanId", 42)))));
+        timed.runTurn(null, "approve loan 42", Map.of(), officer, sink);
+
+        assertThat(sink.names()).endsWith("action_card", "timing");
+        assertThat(recorded).contains("copilot.turn.phase enrich write_tool default unknown",
+                "copilot.approvals created");
+
+        llm.enqueue(new LlmResult("Done, the loan is approved.", List.of()));
+        RecordingSink resumeSink = new RecordingSink();
+        timed.resume(String.valueOf(sink.byName("action_card").data().get("card_id")), true, Map.of(), officer,
+                resumeSink);
+
+        assertThat(resumeSink.names()).endsWith("timing", "done");
+        assertThat(recorded).contains("copilot.turn.phase approval_pause none default unknown",
+                "copilot.turn.phase tool write_tool default unknown", "copilot.turn.duration default unknown decision",
+                "copilot.approvals approved");
+    }
+
+    @Test
+    void theLoanOnScreenIsReadOnceWhetherTheModelAsksForItOrNot() {
+        List<String> recorded = new ArrayList<>();
+        manifest = ToolManifest.load(new ByteArrayInputStream((MANIFEST + """
+                  - name: loan_details
+                    description: One loan
+                    write: false
+                    prefetch: true
+                    params:
+                      - { name: loanId, type: integer, required: true, description: loan }
+                    rest: { method: GET, path: "/api/loans/{loanId}" }
+                """).getBytes(StandardCharsets.UTF_8)));
+        AgentLoop prefetching = new AgentLoop(llm, manifest, executor, approvals, conversations,
+                ToolFanOut.sequential(), 0, recording(recorded), false);
+
+        llm.enqueue(new LlmResult("", List.of(new LlmToolCall("c1", "loan_details", Map.of("loanId", 42)))));
+        llm.enqueue(new LlmResult("Loan 42 is active.", List.of()));
+        prefetching.runTurn(null, "how is this loan doing?", Map.of("loanId", "42"), officer, sink);
+
+        assertThat(executor.executed).containsExactly("loan_details");
+        assertThat(sink.names()).contains("tool_call").endsWith("done");
+        assertThat(recorded).containsOnlyOnce("copilot.prefetch loan_details hit");
+
+        executor.executed.clear();
+        llm.enqueue(new LlmResult("Hello.", List.of()));
+        prefetching.runTurn(null, "hello", Map.of("loanId", 42), officer, new RecordingSink());
+        prefetching.runTurn(null, "hello", Map.of("loanId", "42 OR 1=1"), officer,
+                new RecordingSink());
+
+        assertThat(executor.executed).containsExactly("loan_details");
+        assertThat(recorded).containsOnlyOnce("copilot.prefetch loan_details unused");
+    }
+
+    /** Each timing and count as its name and tag values, in the order reported. */
+    private static Metrics recording(List<String> recorded) {
+        return new Metrics() {
+            @Override
+            public void increment(String name, String... tags) {
+                record(name, 0, tags);
+            }
+
+            @Override
+            public void record(String name, long nanos, String... tags) {
+                StringBuilder line = new StringBuilder(name);
+                for (int i = 1; i < tags.length; i += 2) {
+                    line.append(' ').append(tags[i]);
+                }
+                recorded.add(line.toString());
+            }
+        };
+    }
+
     // ─── Test doubles ──────────────────────────────────────────────────────────
 
     private static final class ScriptedLlm implements LlmClient {
         private final Deque<LlmResult> queue = new ArrayDeque<>();
+        /** The messages of every round, in order. */
+        private final List<List<Map<String, Object>>> requests = new ArrayList<>();
+        /** The thread each round was answered on. */
+        private final List<Thread> answeredOn = new ArrayList<>();
+        /** When set, asynchronous completions answer from here rather than on the caller's thread. */
+        private Executor answerOn;
 
         void enqueue(LlmResult result) {
             queue.add(result);
@@ -254,6 +483,8 @@ class AgentLoopTest {
         @Override
         public LlmResult complete(List<Map<String, Object>> messages, List<Map<String, Object>> tools,
                 java.util.function.Consumer<String> onToken, java.util.function.BooleanSupplier cancelled) {
+            requests.add(List.copyOf(messages));
+            answeredOn.add(Thread.currentThread());
             LlmResult result = queue.poll();
             if (result == null) {
                 return new LlmResult("(no scripted response)", List.of());
@@ -263,12 +494,27 @@ class AgentLoopTest {
             }
             return result;
         }
+
+        @Override
+        public CompletableFuture<LlmResult> completeAsync(List<Map<String, Object>> messages,
+                List<Map<String, Object>> tools, java.util.function.Consumer<String> onToken,
+                java.util.function.BooleanSupplier cancelled) {
+            if (answerOn == null) {
+                return LlmClient.super.completeAsync(messages, tools, onToken, cancelled);
+            }
+            return CompletableFuture.supplyAsync(
+                    () -> complete(messages, tools, onToken, cancelled), answerOn);
+        }
     }
 
     private static final class RecordingExecutor implements ToolExecutor {
-        private final List<String> executed = new ArrayList<>();
-        private String lastIdempotencyKey;
+        private final List<String> executed = Collections.synchronizedList(new ArrayList<>());
+        private volatile String lastIdempotencyKey;
         private String nextResult = "{\"ok\":true}";
+        /** When set, the call for this id finds the officer's session expired. */
+        private Integer expiredFor;
+        /** When set, every call waits here until this many calls are in flight at once. */
+        private CountDownLatch together;
 
         /** What the account lookup would return; empty simulates an enrichment that failed. */
         private Map<String, String> enrichment = orderedEnrichment();
@@ -283,9 +529,23 @@ class AgentLoopTest {
 
         @Override
         public String execute(ToolDefinition tool, Map<String, Object> args, CallContext context,
-                String idempotencyKey) {
+                String idempotencyKey) throws ToolExecutionException {
+            if (expiredFor != null && expiredFor.equals(args.get("id"))) {
+                throw new ToolExecutionException("Unauthorized", 401, null);
+            }
             executed.add(tool.name());
             lastIdempotencyKey = idempotencyKey;
+            if (together != null) {
+                together.countDown();
+                try {
+                    if (!together.await(5, TimeUnit.SECONDS)) {
+                        return "{\"ran\":\"alone\"}";
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return "{\"id\":" + args.get("id") + "}";
+            }
             return nextResult;
         }
 
@@ -11,9 +11,12 @@ import org.junit.jupiter.api.Test;
 import org.mifos.community.copilot.core.tools.ToolDefinition;
 import org.mifos.community.copilot.core.tools.ToolManifest;
 
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.Map;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 /** The shipped tools.yaml is the enforcement authority, so validate its actual content. */
 class ToolManifestTest {
@@ -111,4 +114,45 @@ class ToolManifestTest {
     private static ToolDefinition.Param param(ToolDefinition tool, String name) {
         return tool.params().stream().filter((p) -> p.name().equals(name)).findFirst().orElseThrow();
     }
+
+    @Test
+    void aMalformedTemplateStopsTheManifestLoadingAndNamesTheTool() {
+        String unquotedToken = """
+                tools:
+                  - name: broken_write
+                    write: true
+                    rest: { method: POST, path: /loans, body: '{"principal":${principal}}' }
+                """;
+        String unclosedPath = """
+                tools:
+                  - name: broken_read
+                    rest: { method: GET, path: "/loans/{loanId" }
+                """;
+
+        assertThatThrownBy(() -> load(unquotedToken))
+                .isInstanceOf(IllegalArgumentException.class).hasMessageContaining("broken_write");
+        assertThatThrownBy(() -> load(unclosedPath))
+                .isInstanceOf(IllegalArgumentException.class).hasMessageContaining("broken_read");
+    }
+
+    @Test
+    void onlyAReadMayBePrefetched() {
+        String prefetchedWrite = """
+                tools:
+                  - name: eager_write
+                    write: true
+                    prefetch: true
+                    rest: { method: POST, path: /loans, body: '{}' }
+                """;
+
+        assertThat(ToolManifest.load(getClass().getResourceAsStream("/tools.yaml")).all())
+                .filteredOn(ToolDefinition::prefetch).extracting(ToolDefinition::name)
+                .containsExactlyInAnyOrder("mifos_client_details", "mifos_loan_details");
+        assertThatThrownBy(() -> load(prefetchedWrite))
+                .isInstanceOf(IllegalArgumentException.class).hasMessageContaining("eager_write");
+    }
+
+    private static ToolManifest load(String yaml) {
+        return ToolManifest.load(new ByteArrayInputStream(yaml.getBytes(StandardCharsets.UTF_8)));
+    }
 }
@@ -0,0 +1,57 @@
+/**
+ * Copyright since 2026 Mifos Initiative
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file, You can obtain one at
+ * http://mozilla.org/MPL/2.0/.
+ */
+package org.mifos.community.copilot.core;
+
+import org.junit.jupiter.api.Test;
+import org.mifos.community.copilot.core.agent.ToolOutcome;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The single pass over a tool result must read it the way the tree-based checks it replaced
+ * did, because the officer's "Executed" line and navigation links hang off these answers.
+ */
+class ToolOutcomeTest {
+
+    @Test
+    void aTopLevelErrorIsAFailureButANestedOneIsNot() {
+        assertThat(ToolOutcome.of("{\"error\":\"Loan not found\"}").isError()).isTrue();
+        assertThat(ToolOutcome.of("{\"changes\":{\"error\":\"ignored\"},\"loanId\":12}").isError()).isFalse();
+    }
+
+    @Test
+    void idsAreReadFromNumbersAndNumericStringsAndOtherwiseFallBack() {
+        ToolOutcome outcome = ToolOutcome.of(
+                "{\"officeId\":1,\"clientId\":\"7\",\"loanId\":12,\"resourceId\":{\"nested\":1}}");
+
+        assertThat(outcome.clientId(-1)).isEqualTo(7);
+        assertThat(outcome.loanId(-1)).isEqualTo(12);
+        assertThat(outcome.resourceId(-1)).isEqualTo(-1);
+        assertThat(ToolOutcome.of("{}").loanId(99)).isEqualTo(99);
+    }
+
+    @Test
+    void nonJsonAndTruncatedBodiesAreSuccessesWithNoIds() {
+        ToolOutcome prose = ToolOutcome.of("Fineract says hello");
+        ToolOutcome truncated = ToolOutcome.of("{\"error\":\"half a mess");
+
+        assertThat(prose.isError()).isFalse();
+        assertThat(prose.body()).isEqualTo("Fineract says hello");
+        assertThat(truncated.isError()).isFalse();
+        assertThat(truncated.clientId(0)).isZero();
+    }
+
+    @Test
+    void aFailureTheLoopReportsItselfIsValidJsonWhateverTheMessage() {
+        ToolOutcome failure = ToolOutcome.failure("Bad \"date\"\nformat");
+
+        assertThat(failure.isError()).isTrue();
+        assertThat(failure.body()).isEqualTo("{\"error\":\"Bad \\\"date\\\"\\nformat\"}");
+        assertThat(ToolOutcome.of(failure.body()).isError()).isTrue();
+    }
+}
@@ -0,0 +1,153 @@
+/**
+ * Copyright since 2026 Mifos Initiative
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file, You can obtain one at
+ * http://mozilla.org/MPL/2.0/.
+ */
+package org.mifos.community.copilot.core.approval;
+
+import org.junit.jupiter.api.Test;
+import org.mifos.community.copilot.core.auth.CallContext;
+import org.mifos.community.copilot.core.llm.LlmToolCall;
+import org.mifos.community.copilot.core.metrics.Metrics;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * What every {@link ApprovalStore} backend must do. A backend's test extends this and says how to
+ * open the store and a second replica of it; the banking invariants are the same for all of them.
+ */
+abstract class ApprovalStoreContract {
+
+    private final CallContext officer = new CallContext("Basic abc", "default", "corr-1");
+    private final CallContext otherUser = new CallContext("Basic xyz", "default", "corr-2");
+    private final LlmToolCall call = new LlmToolCall("call-1", "approve_loan", Map.of("loanId", 42));
+
+    /** A fresh, empty store whose cards live for {@code ttl}, reporting to {@code metrics}. */
+    abstract ApprovalStore newStore(Duration ttl, Metrics metrics);
+
+    private ApprovalStore newStore(Duration ttl) {
+        return newStore(ttl, Metrics.NOOP);
+    }
+
+    /** Another replica sharing {@code store}'s cards, or the store itself for a per-JVM backend. */
+    abstract ApprovalStore replicaOf(ApprovalStore store);
+
+    @Test
+    void aCardIsTakenOnceWithEverythingItWasCreatedWith() {
+        ApprovalStore store = newStore(Duration.ofMinutes(5));
+        PendingApproval card = store.create("conv-1", call, "Approve loan 42", officer);
+
+        Optional<PendingApproval> taken = store.take(card.cardId(), officer);
+        assertThat(taken).contains(card);
+        assertThat(taken.get().toolCall().arguments()).containsEntry("loanId", 42);
+        assertThat(store.take(card.cardId(), officer)).isEmpty();
+    }
+
+    @Test
+    void aStrangerCannotTakeOrDestroyTheCard() {
+        ApprovalStore store = newStore(Duration.ofMinutes(5));
+        PendingApproval card = store.create("conv-1", call, "Approve loan 42", officer);
+
+        assertThat(store.take(card.cardId(), otherUser)).isEmpty();
+        assertThat(store.take(card.cardId(), officer)).contains(card);
+    }
+
+    @Test
+    void anExpiredCardReadsAsUnknown() {
+        ApprovalStore store = newStore(Duration.ofSeconds(-1));
+        PendingApproval card = store.create("conv-1", call, "Approve loan 42", officer);
+
+        assertThat(store.take(card.cardId(), officer)).isEmpty();
+    }
+
+    @Test
+    void anExpiredCardIsCountedOnceWhenItIsDropped() {
+        AtomicInteger expired = new AtomicInteger();
+        ApprovalStore store = newStore(Duration.ofSeconds(-1), new Metrics() {
+            @Override
+            public void increment(String name, String... tags) {
+                increment(name, 1, tags);
+            }
+
+            @Override
+            public void increment(String name, long amount, String... tags) {
+                if (name.equals("copilot.approvals") && List.of(tags).equals(List.of("outcome", "expired"))) {
+                    expired.addAndGet((int) amount);
+                }
+            }
+        });
+        PendingApproval card = store.create("conv-1", call, "Approve loan 42", officer);
+
+        store.take(card.cardId(), officer);
+        store.take(card.cardId(), officer);
+        assertThat(expired).hasValue(1);
+    }
+
+    @Test
+    void unknownAndMalformedCardIdsFindNothing() {
+        ApprovalStore store = newStore(Duration.ofMinutes(5));
+
+        assertThat(store.take("card-00000000-0000-0000-0000-000000000000", officer)).isEmpty();
+        assertThat(store.take("../../etc/passwd", officer)).isEmpty();
+        assertThat(store.take(null, officer)).isEmpty();
+    }
+
+    @Test
+    void aRestoredCardKeepsItsIdempotencyKey() {
+        ApprovalStore store = newStore(Duration.ofMinutes(5));
+        PendingApproval card = store.create("conv-1", call, "Approve loan 42", officer);
+        PendingApproval taken = store.take(card.cardId(), officer).orElseThrow();
+
+        store.restore(taken);
+        assertThat(store.take(card.cardId(), officer)).get()
+                .extracting(PendingApproval::idempotencyKey).isEqualTo(card.idempotencyKey());
+    }
+
+    @Test
+    void aCardCreatedOnOneReplicaIsDecidedOnAnother() {
+        ApprovalStore store = newStore(Duration.ofMinutes(5));
+        PendingApproval card = store.create("conv-1", call, "Approve loan 42", officer);
+
+        assertThat(replicaOf(store).take(card.cardId(), officer)).contains(card);
+        assertThat(store.take(card.cardId(), officer)).isEmpty();
+    }
+
+    @Test
+    void ofManyRacingApprovalsExactlyOneWins() throws Exception {
+        ApprovalStore store = newStore(Duration.ofMinutes(5));
+        List<ApprovalStore> replicas = List.of(store, replicaOf(store), replicaOf(store));
+        for (int round = 0; round < 20; round++) {
+            PendingApproval card = store.create("conv-1", call, "Approve loan 42", officer);
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<Optional<PendingApproval>>> decisions = new ArrayList<>();
+            try (ExecutorService threads = Executors.newVirtualThreadPerTaskExecutor()) {
+                for (int i = 0; i < 12; i++) {
+                    ApprovalStore replica = replicas.get(i % replicas.size());
+                    decisions.add(threads.submit(() -> {
+                        start.await();
+                        return replica.take(card.cardId(), officer);
+                    }));
+                }
+                start.countDown();
+                int wins = 0;
+                for (Future<Optional<PendingApproval>> decision : decisions) {
+                    wins += decision.get().isPresent() ? 1 : 0;
+                }
+                assertThat(wins).as("round %d", round).isEqualTo(1);
+            }
+        }
+    }
+}
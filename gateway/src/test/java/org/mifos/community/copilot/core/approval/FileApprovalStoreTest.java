@@ -0,0 +1,34 @@
+/**
+ * Copyright since 2026 Mifos Initiative
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file, You can obtain one at
+ * http://mozilla.org/MPL/2.0/.
+ */
+package org.mifos.community.copilot.core.approval;
+
+import org.junit.jupiter.api.io.TempDir;
+import org.mifos.community.copilot.core.metrics.Metrics;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/** The shared-directory store against the approval contract, each replica its own instance. */
+class FileApprovalStoreTest extends ApprovalStoreContract {
+
+    @TempDir
+    Path dir;
+
+    private Duration ttl;
+
+    @Override
+    ApprovalStore newStore(Duration ttl, Metrics metrics) {
+        this.ttl = ttl;
+        return new FileApprovalStore(dir, ttl, metrics);
+    }
+
+    @Override
+    ApprovalStore replicaOf(ApprovalStore store) {
+        return new FileApprovalStore(dir, ttl);
+    }
+}
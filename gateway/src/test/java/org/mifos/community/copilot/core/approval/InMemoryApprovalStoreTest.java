@@ -0,0 +1,26 @@
+/**
+ * Copyright since 2026 Mifos Initiative
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file, You can obtain one at
+ * http://mozilla.org/MPL/2.0/.
+ */
+package org.mifos.community.copilot.core.approval;
+
+import org.mifos.community.copilot.core.metrics.Metrics;
+
+import java.time.Duration;
+
+/** The per-JVM store against the approval contract; its only replica is itself. */
+class InMemoryApprovalStoreTest extends ApprovalStoreContract {
+
+    @Override
+    ApprovalStore newStore(Duration ttl, Metrics metrics) {
+        return new InMemoryApprovalStore(ttl, metrics);
+    }
+
+    @Override
+    ApprovalStore replicaOf(ApprovalStore store) {
+        return store;
+    }
+}
@@ -0,0 +1,96 @@
+/**
+ * Copyright since 2026 Mifos Initiative
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file, You can obtain one at
+ * http://mozilla.org/MPL/2.0/.
+ */
+package org.mifos.community.copilot.core.convo;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/** Folding long conversations: off the turn's thread, keeping what matters, and bounded however long it runs. */
+class DigestingConversationStoreTest {
+
+    private static final String OFFICER = "a".repeat(64);
+    private static final int AFTER_TOKENS = 6000;
+    private static final int KEEP_TOKENS = 3000;
+
+    private final Queue<Runnable> background = new ArrayDeque<>();
+    private final DigestingConversationStore store =
+            new DigestingConversationStore(new InMemoryConversationStore(), AFTER_TOKENS, KEEP_TOKENS, background::add);
+
+    @Test
+    void theFoldWaitsForTheTurnToEndAndRunsInTheBackground() {
+        String id = store.resolve(OFFICER, null);
+        for (int i = 1; i <= 7; i++) {
+            turn(id, i);
+        }
+        assertThat(background).hasSize(1); // One fold per conversation in flight, however many turns end.
+        List<Map<String, Object>> before = snapshot(id);
+
+        drainBackground();
+
+        List<Map<String, Object>> after = snapshot(id);
+        assertThat(after).hasSizeLessThan(before.size());
+        assertThat(ConversationDigest.isDigest(after.get(0))).isTrue();
+        assertThat(after.subList(1, after.size())).isEqualTo(before.subList(before.size() - after.size() + 1,
+                before.size()));
+        assertThat(after.get(1)).containsEntry("role", "user");
+        String digest = (String) after.get(0).get("content");
+        assertThat(digest).contains("Show loan 1", "\"loans\":[\"1\"", "principal 1000", "mifos_loan_details: ok");
+    }
+
+    @Test
+    void whatARoundSendsStaysBoundedHoweverLongTheSessionRuns() {
+        String id = store.resolve(OFFICER, null);
+        for (int i = 1; i <= 60; i++) {
+            turn(id, i);
+            drainBackground();
+        }
+
+        List<Map<String, Object>> history = snapshot(id);
+        int tokens = history.stream().mapToInt(HistoryWindow::estimateTokens).sum();
+        assertThat(tokens).isLessThanOrEqualTo(AFTER_TOKENS);
+        String digest = (String) history.get(0).get("content");
+        assertThat(digest).contains("Show loan 50").doesNotContain("Show loan 5\"");
+    }
+
+    @Test
+    void aShortConversationIsLeftAsItIs() {
+        String id = store.resolve(OFFICER, null);
+        turn(id, 1);
+        drainBackground();
+
+        assertThat(snapshot(id)).hasSize(4).noneMatch(ConversationDigest::isDigest);
+    }
+
+    /** One read turn about loan {@code n}, with a tool result of about a thousand tokens. */
+    private void turn(String id, int n) {
+        store.append(OFFICER, id, Map.of("role", "user", "content", "Show loan " + n));
+        store.append(OFFICER, id, Map.of("role", "assistant", "content", "", "tool_calls", List.of(Map.of(
+                "id", "call-" + n, "type", "function",
+                "function", Map.of("name", "mifos_loan_details", "arguments", "{\"loanId\":" + n + "}")))));
+        store.append(OFFICER, id, Map.of("role", "tool", "tool_call_id", "call-" + n, "content",
+                "{\"id\":" + n + ",\"principal\":" + (n * 1000) + ",\"notes\":\"" + "x".repeat(4000) + "\"}"));
+        store.append(OFFICER, id, Map.of("role", "assistant", "content", "Loan " + n + " is active."));
+    }
+
+    private List<Map<String, Object>> snapshot(String id) {
+        return store.messages(OFFICER, id);
+    }
+
+    private void drainBackground() {
+        Runnable next;
+        while ((next = background.poll()) != null) {
+            next.run();
+        }
+    }
+}
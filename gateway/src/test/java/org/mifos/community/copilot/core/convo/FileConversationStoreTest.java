@@ -0,0 +1,149 @@
+/**
+ * Copyright since 2026 Mifos Initiative
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file, You can obtain one at
+ * http://mozilla.org/MPL/2.0/.
+ */
+package org.mifos.community.copilot.core.convo;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/** The on-disk store: survives a restart, is shared by replicas, stays bounded and never leaves its directory. */
+class FileConversationStoreTest {
+
+    private static final String OFFICER = "a".repeat(64);
+    private static final String OTHER_OFFICER = "b".repeat(64);
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void aConversationSurvivesARestart() {
+        FileConversationStore before = new FileConversationStore(dir, Duration.ofDays(30));
+        String id = before.resolve(OFFICER, null);
+        before.append(OFFICER, id, Map.of("role", "user", "content", "Show client 42"));
+        before.append(OFFICER, id, Map.of("role", "assistant", "content", "Client 42 is active."));
+
+        FileConversationStore after = new FileConversationStore(dir, Duration.ofDays(30));
+        assertThat(after.resolve(OFFICER, id)).isEqualTo(id);
+        assertThat(after.messages(OFFICER, id)).extracting((message) -> message.get("content"))
+                .containsExactly("Show client 42", "Client 42 is active.");
+    }
+
+    @Test
+    void replicasSharingTheDirectorySeeEachOthersAppends() {
+        FileConversationStore first = new FileConversationStore(dir, Duration.ofDays(30));
+        FileConversationStore second = new FileConversationStore(dir, Duration.ofDays(30));
+        String id = first.resolve(OFFICER, null);
+
+        first.append(OFFICER, id, Map.of("role", "user", "content", "one"));
+        assertThat(second.messages(OFFICER, id)).hasSize(1);
+        second.append(OFFICER, id, Map.of("role", "assistant", "content", "two"));
+        first.append(OFFICER, id, Map.of("role", "user", "content", "three"));
+
+        List<Map<String, Object>> seen = second.messages(OFFICER, id);
+        assertThat(seen).extracting((message) -> message.get("content")).containsExactly("one", "two", "three");
+    }
+
+    @Test
+    void compactionKeepsTheLastMessagesAndBoundsTheFile() throws Exception {
+        FileConversationStore store = new FileConversationStore(dir, Duration.ofDays(30));
+        String id = store.resolve(OFFICER, null);
+        int total = 3 * ConversationStore.MAX_MESSAGES;
+        for (int i = 0; i < total; i++) {
+            store.append(OFFICER, id, Map.of("role", "user", "content", "message " + i));
+        }
+
+        Path file = dir.resolve(OFFICER).resolve(id + ".jsonl");
+        assertThat(Files.readAllLines(file)).hasSizeLessThanOrEqualTo(2 * ConversationStore.MAX_MESSAGES);
+        List<Map<String, Object>> reloaded = new FileConversationStore(dir, Duration.ofDays(30)).messages(OFFICER, id);
+        assertThat(reloaded).hasSize(ConversationStore.MAX_MESSAGES);
+        assertThat(reloaded.get(reloaded.size() - 1)).containsEntry("content", "message " + (total - 1));
+        assertThat(store.messages(OFFICER, id)).isEqualTo(reloaded);
+    }
+
+    @Test
+    void aTornLastLineIsSkipped() throws Exception {
+        FileConversationStore store = new FileConversationStore(dir, Duration.ofDays(30));
+        String id = store.resolve(OFFICER, null);
+        store.append(OFFICER, id, Map.of("role", "user", "content", "kept"));
+        Files.writeString(dir.resolve(OFFICER).resolve(id + ".jsonl"), "{\"role\":\"assis\n",
+                StandardOpenOption.APPEND);
+
+        assertThat(new FileConversationStore(dir, Duration.ofDays(30)).messages(OFFICER, id))
+                .extracting((message) -> message.get("content")).containsExactly("kept");
+    }
+
+    @Test
+    void conversationsPastTheRetentionPeriodAreDeleted() throws Exception {
+        FileConversationStore store = new FileConversationStore(dir, Duration.ofDays(30));
+        String id = store.resolve(OFFICER, null);
+        store.append(OFFICER, id, Map.of("role", "user", "content", "old"));
+        Path file = dir.resolve(OFFICER).resolve(id + ".jsonl");
+        Files.setLastModifiedTime(file, FileTime.from(Instant.now().minus(Duration.ofDays(31))));
+
+        assertThat(store.resolve(OFFICER, id)).isNotEqualTo(id);
+        new FileConversationStore(dir, Duration.ofDays(30));
+        assertThat(file).doesNotExist();
+    }
+
+    @Test
+    void aConversationDeletedMidTurnIsNotStartedAgainByTheTurnsNextAppend() throws Exception {
+        FileConversationStore store = new FileConversationStore(dir, Duration.ofDays(30));
+        String id = store.resolve(OFFICER, null);
+        store.append(OFFICER, id, Map.of("role", "user", "content", "Show client 42"));
+        Path file = dir.resolve(OFFICER).resolve(id + ".jsonl");
+        Files.delete(file); // The retention sweep or the per-user cap, on this or another replica.
+
+        store.append(OFFICER, id, Map.of("role", "tool", "tool_call_id", "call-1", "content", "{}"));
+
+        assertThat(file).doesNotExist();
+        assertThat(store.resolve(OFFICER, id)).isNotEqualTo(id);
+    }
+
+    @Test
+    void idsFromTheClientNeverBecomePathsOrCrossFingerprints() {
+        FileConversationStore store = new FileConversationStore(dir, Duration.ofDays(30));
+        String mine = store.resolve(OFFICER, null);
+        store.append(OFFICER, mine, Map.of("role", "user", "content", "private"));
+
+        assertThat(store.resolve(OFFICER, "../../etc/passwd")).startsWith("conv-").isNotEqualTo("../../etc/passwd");
+        assertThat(store.messages(OFFICER, "../" + OTHER_OFFICER + "/x")).isEmpty();
+        assertThat(store.resolve(OTHER_OFFICER, mine)).isNotEqualTo(mine);
+        assertThat(store.messages(OTHER_OFFICER, mine)).isEmpty();
+        assertThatThrownBy(() -> store.append("../escape", mine, Map.of("role", "user")))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void theOldestConversationGoesPastThePerUserCap() throws Exception {
+        FileConversationStore store = new FileConversationStore(dir, Duration.ofDays(30));
+        String first = store.resolve(OFFICER, null);
+        Files.setLastModifiedTime(dir.resolve(OFFICER).resolve(first + ".jsonl"),
+                FileTime.from(Instant.now().minus(Duration.ofHours(1))));
+        for (int i = 0; i < ConversationStore.MAX_CONVERSATIONS_PER_USER; i++) {
+            store.resolve(OFFICER, null);
+        }
+
+        assertThat(store.resolve(OFFICER, first)).isNotEqualTo(first);
+        try (Stream<Path> files = Files.list(dir.resolve(OFFICER))) {
+            assertThat(files.filter((path) -> path.toString().endsWith(".jsonl")))
+                    .hasSize(ConversationStore.MAX_CONVERSATIONS_PER_USER);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+/**
+ * Copyright since 2026 Mifos Initiative
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file, You can obtain one at
+ * http://mozilla.org/MPL/2.0/.
+ */
+package org.mifos.community.copilot.core.convo;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/** The token window: newest whole turns first, and never a tool_calls message without its results. */
+class HistoryWindowTest {
+
+    private static final String FAT = "x".repeat(8000);
+
+    @Test
+    void sendsTheNewestWholeTurnsThatFit() {
+        List<Map<String, Object>> history = List.of(
+                user("first question"), assistant("first answer"),
+                user("second question"), assistant("second answer"),
+                user("third question"), assistant("third answer"));
+        int lastTwoTurns = history.subList(2, 6).stream().mapToInt(HistoryWindow::estimateTokens).sum();
+
+        assertThat(HistoryWindow.fit(history, lastTwoTurns)).isEqualTo(history.subList(2, 6));
+        assertThat(HistoryWindow.fit(history, lastTwoTurns - 1)).isEqualTo(history.subList(4, 6));
+        assertThat(HistoryWindow.fit(history, 0)).isEqualTo(history);
+    }
+
+    @Test
+    void aBudgetThatEndsInsideARoundDropsTheWholeTurn() {
+        List<Map<String, Object>> history = List.of(
+                user("show client 1"), toolCalls("call-1"), toolResult("call-1", FAT), assistant("done"),
+                user("thanks"), assistant("you're welcome"));
+        int budget = history.subList(2, 6).stream().mapToInt(HistoryWindow::estimateTokens).sum();
+
+        List<Map<String, Object>> window = HistoryWindow.fit(history, budget);
+        assertThat(window).isEqualTo(history.subList(4, 6));
+        assertThat(window).noneMatch((message) -> "tool".equals(message.get("role")));
+    }
+
+    @Test
+    void aTurnOverBudgetOnItsOwnKeepsItsNewestRoundWhole() {
+        List<Map<String, Object>> history = List.of(
+                user("compare these loans"),
+                toolCalls("call-1"), toolResult("call-1", FAT),
+                toolCalls("call-2", "call-3"), toolResult("call-2", FAT), toolResult("call-3", FAT));
+
+        List<Map<String, Object>> window = HistoryWindow.fit(history, 100);
+        assertThat(window).isEqualTo(history.subList(3, 6));
+    }
+
+    @Test
+    void aHistoryTrimmedByCountNeverOpensOnAnOrphanedToolResult() {
+        List<Map<String, Object>> history = new ArrayList<>(List.of(
+                toolResult("call-1", "{}"), assistant("done"), user("next"), assistant("ok")));
+
+        assertThat(HistoryWindow.fit(history, 0)).isEqualTo(history.subList(2, 4));
+    }
+
+    private static Map<String, Object> user(String content) {
+        return Map.of("role", "user", "content", content);
+    }
+
+    private static Map<String, Object> assistant(String content) {
+        return Map.of("role", "assistant", "content", content);
+    }
+
+    private static Map<String, Object> toolCalls(String... ids) {
+        List<Map<String, Object>> calls = new ArrayList<>();
+        for (String id : ids) {
+            calls.add(Map.of("id", id, "type", "function",
+                    "function", Map.of("name", "get_loan", "arguments", "{\"loanId\":1}")));
+        }
+        return Map.of("role", "assistant", "content", "", "tool_calls", calls);
+    }
+
+    private static Map<String, Object> toolResult(String id, String content) {
+        return Map.of("role", "tool", "tool_call_id", id, "content", content);
+    }
+}
@@ -0,0 +1,144 @@
+/**
+ * Copyright since 2026 Mifos Initiative
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file, You can obtain one at
+ * http://mozilla.org/MPL/2.0/.
+ */
+package org.mifos.community.copilot.core.convo;
+
+import org.junit.jupiter.api.Test;
+import org.mifos.community.copilot.core.metrics.Metrics;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/** However many officers pass through a long-running gateway, what it keeps of them stays bounded. */
+class InMemoryConversationStoreTest {
+
+    private static final long BUDGET = 200_000;
+    /** A tool result of about 10 KB, as a loan schedule comes back. */
+    private static final Map<String, Object> RESULT = Map.of("role", "tool", "content", "x".repeat(10_000));
+
+    private final MovableClock clock = new MovableClock();
+    private final AtomicLong evictions = new AtomicLong();
+    private final InMemoryConversationStore store = new InMemoryConversationStore(BUDGET, Duration.ofHours(12),
+            new Metrics() {
+                @Override
+                public void increment(String name, String... tags) {
+                    if (name.equals("copilot.conversations.evictions")) {
+                        evictions.incrementAndGet();
+                    }
+                }
+            }, clock);
+
+    @Test
+    void pastTheBudgetTheLeastRecentlyUsedConversationsGoWhoeverOwnsThem() {
+        String early = store.resolve(officer(1), null);
+        fill(officer(1), early, 8);
+        clock.advance(Duration.ofSeconds(1));
+        String busy = store.resolve(officer(2), null);
+        fill(officer(2), busy, 8);
+
+        for (int i = 3; i <= 10; i++) {
+            clock.advance(Duration.ofSeconds(1));
+            store.messages(officer(2), busy); // Officer 2 keeps reading theirs.
+            fill(officer(i), store.resolve(officer(i), null), 8);
+        }
+
+        assertThat(store.retainedBytes()).isLessThanOrEqualTo(BUDGET);
+        assertThat(store.conversations()).isLessThan(10);
+        assertThat(store.messages(officer(1), early)).isEmpty();
+        assertThat(store.messages(officer(2), busy)).hasSize(8);
+        assertThat(evictions).hasPositiveValue();
+    }
+
+    @Test
+    void anOfficerIdleForLongEnoughIsForgottenEntirely() {
+        String before = store.resolve(officer(1), null);
+        fill(officer(1), before, 3);
+        long retained = store.retainedBytes();
+
+        clock.advance(Duration.ofHours(13));
+        fill(officer(2), store.resolve(officer(2), null), 1); // Any call sweeps.
+
+        assertThat(store.messages(officer(1), before)).isEmpty();
+        assertThat(store.retainedBytes()).isLessThan(retained);
+    }
+
+    @Test
+    void aConversationDroppedMidTurnIsNotStartedAgainByTheTurnsNextAppend() {
+        String before = store.resolve(officer(1), null);
+        fill(officer(1), before, 1);
+        clock.advance(Duration.ofHours(13));
+        fill(officer(2), store.resolve(officer(2), null), 1); // Officer 1 is forgotten.
+
+        store.append(officer(1), before, Map.of("role", "tool", "tool_call_id", "call-1", "content", "{}"));
+
+        assertThat(store.messages(officer(1), before)).isEmpty();
+        assertThat(store.conversations()).isEqualTo(1);
+    }
+
+    @Test
+    void droppedAndFoldedMessagesComeOffTheCountOnceNothingHoldsThem() {
+        String id = store.resolve(officer(1), null);
+        List<Map<String, Object>> appended = new ArrayList<>();
+        for (int i = 0; i < ConversationStore.MAX_MESSAGES + 10; i++) {
+            appended.add(Map.of("role", "user", "content", "message " + i));
+            store.append(officer(1), id, appended.get(i));
+        }
+        List<Map<String, Object>> messages = store.messages(officer(1), id);
+        // The ten dropped from the front are still in the log's array until it is next copied.
+        assertThat(store.retainedBytes()).isEqualTo(sum(appended));
+        assertThat(messages).hasSize(ConversationStore.MAX_MESSAGES);
+
+        store.fold(officer(1), id, messages.get(90), Map.of("role", "system", "content", "digest"));
+        assertThat(store.retainedBytes()).isEqualTo(sum(store.messages(officer(1), id)));
+    }
+
+    private void fill(String fingerprint, String id, int results) {
+        for (int i = 0; i < results; i++) {
+            store.append(fingerprint, id, RESULT);
+        }
+    }
+
+    private static long sum(List<Map<String, Object>> messages) {
+        return messages.stream().mapToLong(InMemoryConversationStore::approximateBytes).sum();
+    }
+
+    private static String officer(int n) {
+        return String.format("%064x", n);
+    }
+
+    private static final class MovableClock extends Clock {
+        private Instant now = Instant.parse("2026-10-18T08:00:00Z");
+
+        void advance(Duration by) {
+            now = now.plus(by);
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+    }
+}
@@ -0,0 +1,208 @@
+/**
+ * Copyright since 2026 Mifos Initiative
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file, You can obtain one at
+ * http://mozilla.org/MPL/2.0/.
+ */
+package org.mifos.community.copilot.core.convo;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Parallel tool results land in one conversation while its next round reads it. Stress runs in
+ * the manner of jcstress: many writers and readers at once, and every state a reader observes
+ * checked against the states the log may legally be in.
+ */
+class MessageLogTest {
+
+    private static final int WRITERS = 4;
+    private static final int PER_WRITER = 20_000;
+
+    @Test
+    void aFullLogDropsItsOldestAndSnapshotsKeepWhatTheySaw() {
+        MessageLog log = new MessageLog(3, (message) -> 1);
+        for (int i = 1; i <= 5; i++) {
+            log.append(message(0, i));
+        }
+        List<Map<String, Object>> taken = log.snapshot();
+        log.append(message(0, 6));
+
+        assertThat(taken).extracting((message) -> message.get("seq")).containsExactly(3, 4, 5);
+        assertThat(log.snapshot()).extracting((message) -> message.get("seq")).containsExactly(4, 5, 6);
+        assertThat(log.weight()).isEqualTo(6); // 1 to 3 are still in the array, which `taken` reads.
+        assertThat(log.append(message(0, 7))).isEqualTo(-3); // The copy lets them go.
+        assertThat(log.weight()).isEqualTo(3);
+        assertThat(log.seal()).isEqualTo(-3);
+        assertThat(log.append(message(0, 8))).isZero();
+        assertThat(log.snapshot()).isEmpty();
+    }
+
+    @Test
+    void concurrentAppendsAreNeitherLostNorReorderedAndEverySnapshotExtendsTheLast() throws Exception {
+        MessageLog log = new MessageLog(WRITERS * PER_WRITER, (message) -> 1);
+        AtomicBoolean writing = new AtomicBoolean(true);
+
+        List<String> violations = race(WRITERS, 2, (writer) -> {
+            for (int seq = 0; seq < PER_WRITER; seq++) {
+                log.append(message(writer, seq));
+            }
+        }, writing, () -> {
+            List<String> seen = new ArrayList<>();
+            List<Map<String, Object>> previous = List.of();
+            while (writing.get()) {
+                List<Map<String, Object>> current = log.snapshot();
+                List<Object> copy = new ArrayList<>(current);
+                if (!current.subList(0, Math.min(previous.size(), current.size())).equals(previous)
+                        || current.size() < previous.size()) {
+                    seen.add("a snapshot that does not extend the one before it");
+                }
+                seen.addAll(orderViolations(current));
+                if (!copy.equals(current)) {
+                    seen.add("a snapshot that changed after it was taken");
+                }
+                previous = current;
+            }
+            return seen;
+        });
+
+        assertThat(violations).isEmpty();
+        List<Map<String, Object>> all = log.snapshot();
+        assertThat(all).hasSize(WRITERS * PER_WRITER);
+        assertThat(orderViolations(all)).isEmpty();
+        assertThat(log.weight()).isEqualTo(all.size());
+    }
+
+    @Test
+    void aFullLogUnderConcurrentAppendsAlwaysShowsAContiguousTail() throws Exception {
+        MessageLog log = new MessageLog(ConversationStore.MAX_MESSAGES, (message) -> 1);
+        AtomicBoolean writing = new AtomicBoolean(true);
+
+        List<String> violations = race(WRITERS, 2, (writer) -> {
+            for (int seq = 0; seq < PER_WRITER; seq++) {
+                log.append(message(writer, seq));
+            }
+        }, writing, () -> {
+            List<String> seen = new ArrayList<>();
+            while (writing.get()) {
+                List<Map<String, Object>> current = log.snapshot();
+                if (current.size() > ConversationStore.MAX_MESSAGES) {
+                    seen.add("a snapshot over capacity: " + current.size());
+                }
+                seen.addAll(orderViolations(current));
+            }
+            return seen;
+        });
+
+        assertThat(violations).isEmpty();
+        assertThat(log.snapshot()).hasSize(ConversationStore.MAX_MESSAGES);
+        assertThat(log.weight()).isBetween((long) ConversationStore.MAX_MESSAGES, 2L * ConversationStore.MAX_MESSAGES);
+    }
+
+    @Test
+    void aFoldRacingAppendsNeverLosesOneThatLandedAfterWhatItKeeps() throws Exception {
+        MessageLog log = new MessageLog(WRITERS * PER_WRITER, (message) -> 1);
+        Map<String, Object> digest = Map.of("role", "system", "content", "digest");
+        AtomicBoolean writing = new AtomicBoolean(true);
+
+        List<String> violations = race(1, 1, (writer) -> {
+            for (int seq = 0; seq < PER_WRITER; seq++) {
+                log.append(message(writer, seq));
+            }
+        }, writing, () -> {
+            List<String> seen = new ArrayList<>();
+            while (writing.get()) {
+                List<Map<String, Object>> current = log.snapshot();
+                if (current.size() > 2) {
+                    log.fold(current.get(current.size() / 2), digest);
+                }
+                List<Map<String, Object>> after = log.snapshot();
+                List<Map<String, Object>> messages = after.isEmpty() || after.get(0) != digest
+                        ? after : after.subList(1, after.size());
+                seen.addAll(orderViolations(messages));
+            }
+            return seen;
+        });
+
+        assertThat(violations).isEmpty();
+        List<Map<String, Object>> last = log.snapshot();
+        assertThat(last.get(last.size() - 1)).containsEntry("seq", PER_WRITER - 1);
+        assertThat(log.weight()).isEqualTo(last.size());
+    }
+
+    /** Any writer's messages out of order or with a gap; a log keeps a suffix of what was appended. */
+    private static List<String> orderViolations(List<Map<String, Object>> messages) {
+        List<String> violations = new ArrayList<>();
+        int[] last = new int[WRITERS];
+        Arrays.fill(last, -1);
+        for (Map<String, Object> message : messages) {
+            int writer = (int) message.get("writer");
+            int seq = (int) message.get("seq");
+            if (last[writer] >= 0 && seq != last[writer] + 1) {
+                violations.add("writer " + writer + " went from " + last[writer] + " to " + seq);
+            }
+            last[writer] = seq;
+        }
+        return violations;
+    }
+
+    /** Starts writers and readers together; readers run until the writers are done. */
+    private static List<String> race(int writers, int readers, WriterBody writer, AtomicBoolean writing,
+            Callable<List<String>> reader) throws Exception {
+        ExecutorService threads = Executors.newFixedThreadPool(writers + readers);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> written = new ArrayList<>();
+            for (int w = 0; w < writers; w++) {
+                int id = w;
+                written.add(threads.submit(() -> {
+                    start.await();
+                    writer.run(id);
+                    return null;
+                }));
+            }
+            List<Future<List<String>>> read = new ArrayList<>();
+            for (int r = 0; r < readers; r++) {
+                read.add(threads.submit(() -> {
+                    start.await();
+                    return reader.call();
+                }));
+            }
+            start.countDown();
+            for (Future<?> done : written) {
+                done.get(30, TimeUnit.SECONDS);
+            }
+            writing.set(false);
+            List<String> violations = new ArrayList<>();
+            for (Future<List<String>> done : read) {
+                violations.addAll(done.get(30, TimeUnit.SECONDS));
+            }
+            return violations;
+        } finally {
+            threads.shutdownNow();
+        }
+    }
+
+    @FunctionalInterface
+    private interface WriterBody {
+        void run(int writer);
+    }
+
+    private static Map<String, Object> message(int writer, int seq) {
+        return Map.of("role", "tool", "writer", writer, "seq", seq);
+    }
+}
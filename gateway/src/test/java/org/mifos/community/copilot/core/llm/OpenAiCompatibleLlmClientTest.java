@@ -0,0 +1,289 @@
+/**
+ * Copyright since 2026 Mifos Initiative
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file, You can obtain one at
+ * http://mozilla.org/MPL/2.0/.
+ */
+package org.mifos.community.copilot.core.llm;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+
+import org.junit.jupiter.api.Test;
+import org.mifos.community.copilot.core.agent.SystemPrompt;
+import org.mifos.community.copilot.core.metrics.Metrics;
+import org.mifos.community.copilot.core.tools.ToolManifest;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * The request body. Provider prompt caches key on the leading bytes, so the parts that do not
+ * change between rounds must not change by a single byte, and the parts that do must still land.
+ */
+class OpenAiCompatibleLlmClientTest {
+
+    private final OpenAiCompatibleLlmClient client =
+            new OpenAiCompatibleLlmClient("http://127.0.0.1:9", "unused", "gpt-4o-mini");
+    private final ToolManifest manifest = ToolManifest.load(getClass().getResourceAsStream("/tools.yaml"));
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private List<Map<String, Object>> round(String today, Map<String, Object> screen, String question) {
+        return List.of(
+                SystemPrompt.RULES_MESSAGE,
+                Map.of("role", "user", "content", question),
+                Map.of("role", "system", "content", SystemPrompt.turnContext(screen, today)));
+    }
+
+    private static String chunk(String json) {
+        return "data: " + json;
+    }
+
+    /** The body as a provider frames it: one event per {@code data:} line, a blank line between. */
+    private static InputStream sse(String... lines) {
+        return framed("\n", lines);
+    }
+
+    private static InputStream framed(String newline, String... lines) {
+        String body = String.join(newline + newline, lines) + newline + newline;
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void roundsForDifferentOfficersOpenWithTheSameBytesAndCarryTheSameTools() throws Exception {
+        String first = client.requestBody(round("2026-10-18", Map.of("loanId", 12), "Is loan 12 overdue?"),
+                manifest.openAiSchemas());
+        String second = client.requestBody(round("2026-10-19", Map.of("clientId", 7), "List her accounts"),
+                manifest.openAiSchemas());
+
+        String rules = mapper.writeValueAsString(SystemPrompt.RULES_MESSAGE);
+        String opening = first.substring(0, first.indexOf(rules) + rules.length());
+        assertThat(second).startsWith(opening);
+        assertThat(second.substring(second.indexOf("\"tools\":")))
+                .isEqualTo(first.substring(first.indexOf("\"tools\":")));
+        assertThat(second).contains("2026-10-19", "List her accounts").doesNotContain("2026-10-18");
+    }
+
+    @Test
+    void theSplicedBodyIsWhatPlainSerializationWouldHaveSent() throws Exception {
+        List<Map<String, Object>> messages = round("2026-10-18", Map.of(), "Hello");
+        Map<String, Object> expected = new LinkedHashMap<>();
+        expected.put("model", "gpt-4o-mini");
+        expected.put("messages", messages);
+        expected.put("stream", true);
+        expected.put("stream_options", Map.of("include_usage", true));
+        expected.put("temperature", 0.2);
+        expected.put("tools", manifest.openAiSchemas());
+
+        assertThat(mapper.readTree(client.requestBody(messages, manifest.openAiSchemas())))
+                .isEqualTo(mapper.valueToTree(expected));
+    }
+
+    @Test
+    void anEngineThatRejectsStreamOptionsIsNotSentThem() throws Exception {
+        OpenAiCompatibleLlmClient azure = new OpenAiCompatibleLlmClient("http://127.0.0.1:9", "unused",
+                "gpt-4o-mini", Metrics.NOOP, false, true);
+
+        JsonNode body = mapper.readTree(azure.requestBody(round("2026-10-18", Map.of(), "Hello"), List.of()));
+
+        assertThat(body.has("stream_options")).isFalse();
+        assertThat(body.path("stream").asBoolean()).isTrue();
+    }
+
+    @Test
+    void aTemplateThatTakesOneSystemMessageGetsTheWholePromptUpFront() throws Exception {
+        OpenAiCompatibleLlmClient vllm = new OpenAiCompatibleLlmClient("http://127.0.0.1:9", "unused",
+                "qwen3", Metrics.NOOP, true, false);
+
+        JsonNode messages = mapper.readTree(vllm.requestBody(round("2026-10-18", Map.of("loanId", 12),
+                "Is loan 12 overdue?"), List.of())).path("messages");
+
+        assertThat(messages).hasSize(2);
+        assertThat(messages.get(0).path("role").asText()).isEqualTo("system");
+        assertThat(messages.get(0).path("content").asText())
+                .isEqualTo(SystemPrompt.build(Map.of("loanId", 12), "2026-10-18"));
+        assertThat(messages.get(1).path("content").asText()).isEqualTo("Is loan 12 overdue?");
+    }
+
+    @Test
+    void aDifferentToolsListIsEncodedAfreshRatherThanServedFromTheLastRound() throws Exception {
+        client.requestBody(round("2026-10-18", Map.of(), "Hello"), manifest.openAiSchemas());
+        String narrowed = client.requestBody(round("2026-10-18", Map.of(), "Hello"),
+                List.of(manifest.find("mifos_loan_details").orElseThrow().toOpenAiSchema()));
+
+        assertThat(mapper.readTree(narrowed).path("tools")).hasSize(1);
+    }
+
+    @Test
+    void theTokenBillIncludingCachedTokensIsReadFromTheFinalChunk() throws Exception {
+        InputStream lines = sse(
+                chunk("{\"choices\":[{\"index\":0,\"delta\":{\"content\":\"Hello\"}}]}"),
+                chunk("{\"choices\":[{\"index\":0,\"delta\":{},\"finish_reason\":\"stop\"}]}"),
+                chunk("{\"choices\":[],\"usage\":{\"prompt_tokens\":2100,\"completion_tokens\":12,"
+                        + "\"prompt_tokens_details\":{\"cached_tokens\":1920}}}"),
+                "data: [DONE]");
+        AtomicInteger firstDeltas = new AtomicInteger();
+
+        LlmResult result = client.consumeStream(lines, (token) -> {}, () -> false, firstDeltas::incrementAndGet);
+
+        assertThat(result.text()).isEqualTo("Hello");
+        assertThat(result.usage()).isEqualTo(new LlmUsage(2100, 1920, 12));
+        assertThat(firstDeltas).hasValue(1);
+    }
+
+    @Test
+    void aProviderThatReportsNoUsageLeavesTheBillEmpty() throws Exception {
+        LlmResult result = client.consumeStream(sse(
+                chunk("{\"choices\":[{\"index\":0,\"delta\":{\"content\":\"Hi\"}}]}"), "data: [DONE]"),
+                (token) -> {}, () -> false);
+
+        assertThat(result.usage()).isSameAs(LlmUsage.NONE);
+    }
+
+    @Test
+    void toolCallFragmentsAssembleWhateverOrderTheirFieldsArriveIn() throws Exception {
+        List<String> tokens = new ArrayList<>();
+        LlmResult result = client.consumeStream(framed("\r\n",
+                chunk("{\"choices\":[{\"delta\":{\"role\":\"assistant\",\"content\":null,\"tool_calls\":["
+                        + "{\"function\":{\"name\":\"mifos_loan_details\",\"arguments\":\"\"},"
+                        + "\"id\":\"call_1\",\"type\":\"function\",\"index\":0}]}}]}"),
+                chunk("{\"choices\":[{\"delta\":{\"tool_calls\":[{\"function\":{\"arguments\":\"{\\\"loanId\"},"
+                        + "\"index\":0}]}}]}"),
+                chunk("{\"choices\":[{\"delta\":{\"tool_calls\":[{\"index\":0,\"function\":{\"arguments\":"
+                        + "\"\\\":12}\"}}]}}]}"),
+                "data: [DONE]"), tokens::add, () -> false);
+
+        assertThat(result.text()).isEmpty();
+        assertThat(tokens).isEmpty();
+        assertThat(result.toolCalls()).containsExactly(
+                new LlmToolCall("call_1", "mifos_loan_details", Map.of("loanId", 12)));
+    }
+
+    @Test
+    void multiByteTextSurvivesTheByteLevelReader() throws Exception {
+        List<String> tokens = new ArrayList<>();
+        LlmResult result = client.consumeStream(sse(
+                ": keep-alive",
+                chunk("{\"choices\":[{\"delta\":{\"content\":\"Préstamo \"}}]}"),
+                chunk("{\"choices\":[{\"delta\":{\"content\":\"№12 ✓\"}}]}"),
+                "data: [DONE]"), tokens::add, () -> false);
+
+        assertThat(tokens).containsExactly("Préstamo ", "№12 ✓");
+        assertThat(result.text()).isEqualTo("Préstamo №12 ✓");
+    }
+
+    @Test
+    void theAsyncPathAssemblesAStreamThatArrivesInArbitraryPieces() throws Exception {
+        byte[] body = String.join("\n\n",
+                chunk("{\"choices\":[{\"delta\":{\"content\":\"Préstamo \"}}]}"),
+                chunk("{\"choices\":[{\"delta\":{\"content\":\"aprobado\"}}]}"),
+                "data: [DONE]").getBytes(StandardCharsets.UTF_8);
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/chat/completions", (exchange) -> {
+            exchange.getRequestBody().readAllBytes();
+            exchange.sendResponseHeaders(200, 0);
+            try (OutputStream out = exchange.getResponseBody()) {
+                // Seven-byte pieces split lines, JSON and the two-byte é alike.
+                for (int i = 0; i < body.length; i += 7) {
+                    out.write(body, i, Math.min(7, body.length - i));
+                    out.flush();
+                }
+            }
+        });
+        server.start();
+        try {
+            OpenAiCompatibleLlmClient remote = new OpenAiCompatibleLlmClient(
+                    "http://127.0.0.1:" + server.getAddress().getPort(), "unused", "gpt-4o-mini");
+            List<String> tokens = new java.util.concurrent.CopyOnWriteArrayList<>();
+
+            LlmResult result = remote.completeAsync(round("2026-10-18", Map.of(), "Hola"), List.of(), tokens::add,
+                    () -> false).get(10, TimeUnit.SECONDS);
+
+            assertThat(tokens).containsExactly("Préstamo ", "aprobado");
+            assertThat(result.text()).isEqualTo("Préstamo aprobado");
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    void theAsyncPathReportsARateLimitAsTheBlockingPathDoes() throws Exception {
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/chat/completions", (exchange) -> {
+            exchange.getRequestBody().readAllBytes();
+            exchange.sendResponseHeaders(429, -1);
+            exchange.close();
+        });
+        server.start();
+        try {
+            OpenAiCompatibleLlmClient remote = new OpenAiCompatibleLlmClient(
+                    "http://127.0.0.1:" + server.getAddress().getPort(), "unused", "gpt-4o-mini");
+
+            assertThatThrownBy(() -> remote.completeAsync(round("2026-10-18", Map.of(), "Hola"), List.of(),
+                    (token) -> {}, () -> false).get(10, TimeUnit.SECONDS))
+                    .isInstanceOf(ExecutionException.class)
+                    .cause().isInstanceOfSatisfying(LlmException.class, (e) -> assertThat(e.isRateLimited()).isTrue());
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    void everyRequestIsTimedWithAnOutcomeThatTellsARateLimitFromAnOutage() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/chat/completions", (exchange) -> {
+            exchange.getRequestBody().readAllBytes();
+            exchange.sendResponseHeaders(calls.incrementAndGet() % 2 == 1 ? 429 : 503, -1);
+            exchange.close();
+        });
+        server.start();
+        List<String> recorded = new CopyOnWriteArrayList<>();
+        Metrics metrics = new Metrics() {
+            @Override
+            public void record(String name, long nanos, String... tags) {
+                recorded.add(name + " " + String.join(" ", tags));
+            }
+        };
+        try {
+            OpenAiCompatibleLlmClient remote = new OpenAiCompatibleLlmClient(
+                    "http://127.0.0.1:" + server.getAddress().getPort(), "unused", "gpt-4o-mini", metrics);
+            List<Map<String, Object>> messages = round("2026-10-18", Map.of(), "Hola");
+
+            assertThatThrownBy(() -> remote.complete(messages, List.of(), (token) -> {}, () -> false))
+                    .isInstanceOf(LlmException.class);
+            assertThatThrownBy(() -> remote.complete(messages, List.of(), (token) -> {}, () -> false))
+                    .isInstanceOf(LlmException.class);
+            assertThatThrownBy(() -> remote.completeAsync(messages, List.of(), (token) -> {}, () -> false)
+                    .get(10, TimeUnit.SECONDS)).isInstanceOf(ExecutionException.class);
+        } finally {
+            server.stop(0);
+        }
+        OpenAiCompatibleLlmClient unreachable =
+                new OpenAiCompatibleLlmClient("http://127.0.0.1:9", "unused", "gpt-4o-mini", metrics);
+        assertThatThrownBy(() -> unreachable.completeAsync(round("2026-10-18", Map.of(), "Hola"), List.of(),
+                (token) -> {}, () -> false).get(10, TimeUnit.SECONDS)).isInstanceOf(ExecutionException.class);
+
+        assertThat(recorded).containsExactly(
+                "copilot.llm.requests model gpt-4o-mini outcome rate_limited",
+                "copilot.llm.requests model gpt-4o-mini outcome unavailable",
+                "copilot.llm.requests model gpt-4o-mini outcome rate_limited",
+                "copilot.llm.requests model gpt-4o-mini outcome unavailable");
+    }
+}
@@ -0,0 +1,85 @@
+/**
+ * Copyright since 2026 Mifos Initiative
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file, You can obtain one at
+ * http://mozilla.org/MPL/2.0/.
+ */
+package org.mifos.community.copilot.core.llm;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.mifos.community.copilot.bench.Fixtures;
+import org.mifos.community.copilot.core.agent.SystemPrompt;
+import org.mifos.community.copilot.core.tools.ToolManifest;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encoding one chat-completions request for a conversation a few rounds in: rules, turn
+ * context, a question, a tool call and its 8 KB result. {@code plainRound} is every part
+ * rebuilt and serialized from scratch, as each round used to do.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OpenAiRequestBenchmark {
+
+    private final OpenAiCompatibleLlmClient client =
+            new OpenAiCompatibleLlmClient("http://127.0.0.1:9", "unused", "gpt-4o-mini");
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final Map<String, Object> screen = Map.of("screen", "loan-account", "loanId", 12);
+    private ToolManifest manifest;
+    private List<Map<String, Object>> history;
+
+    @Setup
+    public void load() {
+        manifest = ToolManifest.load(getClass().getResourceAsStream("/tools.yaml"));
+        history = List.of(
+                Map.of("role", "user", "content", "Is this loan overdue?"),
+                Map.of("role", "assistant", "content", "", "tool_calls", List.of(Map.of("id", "call_a1",
+                        "type", "function", "function", Map.of("name", "mifos_loan_details",
+                                "arguments", "{\"loanId\":12}")))),
+                Map.of("role", "tool", "tool_call_id", "call_a1", "content", Fixtures.text("loan-details.json")));
+    }
+
+    @Benchmark
+    public String splicedRound() throws Exception {
+        List<Map<String, Object>> messages = new ArrayList<>(history.size() + 2);
+        messages.add(SystemPrompt.RULES_MESSAGE);
+        messages.add(Map.of("role", "system", "content", SystemPrompt.turnContext(screen, "2026-10-18")));
+        messages.addAll(history);
+        return client.requestBody(messages, manifest.openAiSchemas());
+    }
+
+    @Benchmark
+    public String plainRound() throws Exception {
+        List<Map<String, Object>> messages = new ArrayList<>(history.size() + 1);
+        messages.add(Map.of("role", "system", "content", SystemPrompt.build(screen, "2026-10-18")));
+        messages.addAll(history);
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("model", "gpt-4o-mini");
+        body.put("messages", messages);
+        body.put("stream", true);
+        body.put("temperature", 0.2);
+        body.put("tools", manifest.all().stream().map((tool) -> tool.toOpenAiSchema()).toList());
+        return mapper.writeValueAsString(body);
+    }
+}
@@ -0,0 +1,59 @@
+/**
+ * Copyright since 2026 Mifos Initiative
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file, You can obtain one at
+ * http://mozilla.org/MPL/2.0/.
+ */
+package org.mifos.community.copilot.core.llm;
+
+import org.mifos.community.copilot.bench.Fixtures;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Turning a recorded OpenAI stream into an {@link LlmResult}: one prose answer delivered word by
+ * word, and one batch of three tool calls whose arguments arrive in six-character fragments.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OpenAiStreamBenchmark {
+
+    private final OpenAiCompatibleLlmClient client =
+            new OpenAiCompatibleLlmClient("http://127.0.0.1:9", "unused", "gpt-4o-mini");
+    private byte[] answer;
+    private byte[] toolCalls;
+
+    @Setup
+    public void load() {
+        answer = Fixtures.text("sse-answer.txt").getBytes(StandardCharsets.UTF_8);
+        toolCalls = Fixtures.text("sse-tool-calls.txt").getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public LlmResult consumeAnswerStream(Blackhole sink) throws LlmException {
+        return client.consumeStream(new ByteArrayInputStream(answer), sink::consume, () -> false);
+    }
+
+    @Benchmark
+    public LlmResult consumeToolCallStream(Blackhole sink) throws LlmException {
+        return client.consumeStream(new ByteArrayInputStream(toolCalls), sink::consume, () -> false);
+    }
+}
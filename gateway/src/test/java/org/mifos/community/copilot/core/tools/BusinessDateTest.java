@@ -19,7 +19,9 @@ import java.io.OutputStream;
 import java.net.ServerSocket;
 import java.net.Socket;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.LocalDate;
+import java.util.List;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -174,4 +176,39 @@ class BusinessDateTest {
                 .isEqualTo("2026-08-19");
         assertThat(executor.businessDate(officer)).isEqualTo(SERVER_DAY_ISO);
     }
+
+    @Test
+    void pastItsTtlTheDateIsStillServedWhileOneBackgroundReadReplacesIt() throws InterruptedException {
+        FineractRestToolExecutor executor = new FineractRestToolExecutor(baseUrl, ResponseCache.disabled(),
+                FineractTransport.defaults(), Duration.ZERO);
+        assertThat(executor.businessDate(officer)).isEqualTo(SERVER_DAY_ISO);
+        body = "{\"date\":[2026,8,22]}"; // The close of business has run.
+
+        // Due a refresh on every call, yet none of them waits for it.
+        assertThat(executor.businessDate(officer)).isEqualTo(SERVER_DAY_ISO);
+        assertThat(awaitDate(executor, "2026-08-22")).isEqualTo("2026-08-22");
+    }
+
+    @Test
+    void aHostClockGuessIsReplacedOnTheNextTurnRatherThanKeptForTheTtl() throws InterruptedException {
+        status = 500;
+        body = "nope";
+        dateHeader = null;
+        FineractRestToolExecutor executor = new FineractRestToolExecutor(baseUrl);
+        assertThat(executor.businessDate(officer)).isNotEqualTo(SERVER_DAY_ISO);
+        status = 200;
+        body = "{\"date\":[2026,8,21]}"; // Fineract is back.
+
+        assertThat(awaitDate(executor, SERVER_DAY_ISO)).isEqualTo(SERVER_DAY_ISO);
+    }
+
+    /** The date once the background read has landed, or what is still served after a few seconds. */
+    private String awaitDate(FineractRestToolExecutor executor, String expected) throws InterruptedException {
+        String served = executor.businessDate(officer);
+        for (int i = 0; i < 100 && !served.equals(expected); i++) {
+            Thread.sleep(50);
+            served = executor.businessDate(officer);
+        }
+        return served;
+    }
 }
@@ -19,10 +19,13 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.net.InetSocketAddress;
 import java.nio.charset.StandardCharsets;
-import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
@@ -59,10 +62,13 @@ class EnrichmentTest {
 
     private HttpServer server;
     private String baseUrl;
-    private final List<String> requestedPaths = new ArrayList<>();
+    private final List<String> requestedPaths = new CopyOnWriteArrayList<>();
     private final Map<String, Integer> statusOverrides = new LinkedHashMap<>();
     /** Body served for an overridden status, so a 403 can carry a reason or carry none. */
     private String errorBody;
+    /** When set, the client lookup answers only once the product lookup has arrived. */
+    private CountDownLatch productRequested;
+    private volatile boolean clientSawProductInFlight;
 
     private final CallContext officer = new CallContext("Basic abc", "default", "corr-1");
 
@@ -70,6 +76,8 @@ class EnrichmentTest {
     void startStubFineract() throws IOException {
         server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
         server.createContext("/", this::respond);
+        // Concurrent like a real Fineract, so side-by-side lookups can actually overlap.
+        server.setExecutor(Executors.newCachedThreadPool());
         server.start();
         baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
     }
@@ -82,6 +90,15 @@ class EnrichmentTest {
     private void respond(HttpExchange exchange) throws IOException {
         String path = exchange.getRequestURI().getPath();
         requestedPaths.add(path);
+        if (productRequested != null && path.contains("loanproducts")) {
+            productRequested.countDown();
+        } else if (productRequested != null && path.contains("clients")) {
+            try {
+                clientSawProductInFlight = productRequested.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
         Integer override = statusOverrides.get(path);
         String body = path.contains("loanproducts") ? PRODUCT_JSON : path.contains("clients") ? CLIENT_JSON : LOAN_JSON;
         int status = override != null ? override : 200;
@@ -189,7 +206,27 @@ class EnrichmentTest {
                 .containsEntry("Client account", "000000007")
                 .containsEntry("Product", "Agriculture Term Loan")
                 .containsEntry(Display.CURRENCY, "KES");
-        assertThat(enrichmentCalls()).containsExactly("/clients/7", "/loanproducts/3");
+        // Issued side by side, so they may reach the server in either order.
+        assertThat(enrichmentCalls()).containsExactlyInAnyOrder("/clients/7", "/loanproducts/3");
+    }
+
+    @Test
+    void theLookupsRunSideBySideYetTheRowsKeepTheManifestOrder() {
+        // The client answers only after the product lookup is already in flight, so the
+        // product finishes first. Read one after another, the client would wait alone.
+        productRequested = new CountDownLatch(1);
+        Map<String, String> clientFields = new LinkedHashMap<>();
+        clientFields.put("Client", "displayName");
+        Map<String, String> productFields = new LinkedHashMap<>();
+        productFields.put("Product", "name");
+
+        Map<String, String> rows = new FineractRestToolExecutor(baseUrl).enrich(
+                loanApprove(new ToolDefinition.Enrich("/clients/{clientId}", null, clientFields),
+                        new ToolDefinition.Enrich("/loanproducts/{productId}", "currency.code", productFields)),
+                Map.of("clientId", 7, "productId", 3), officer);
+
+        assertThat(clientSawProductInFlight).isTrue();
+        assertThat(rows.keySet().stream().filter((k) -> !Display.isReserved(k))).containsExactly("Client", "Product");
     }
 
     /** Paths hit for the card itself, excluding the tenant's business-date lookup. */
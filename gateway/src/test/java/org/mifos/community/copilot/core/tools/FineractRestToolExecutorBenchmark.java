@@ -0,0 +1,122 @@
+/**
+ * Copyright since 2026 Mifos Initiative
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file, You can obtain one at
+ * http://mozilla.org/MPL/2.0/.
+ */
+package org.mifos.community.copilot.core.tools;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import org.mifos.community.copilot.bench.Fixtures;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The executor's CPU work around a Fineract call: filling a write's body template and masking
+ * PII in what comes back. Lives beside the executor for package-private access.
+ *
+ * <p>The {@code Tree} benchmarks are the approach the streaming {@link ResultShaper} replaced,
+ * kept here as its baseline: parse the whole body to a tree, check every PII field on every
+ * object, write it all back out, and only then cut it to size.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FineractRestToolExecutorBenchmark {
+
+    private static final String TODAY = "2026-10-18";
+    private static final ObjectMapper JSON = new ObjectMapper();
+    private static final List<String> PII = List.of("mobileNo", "dateOfBirth");
+    /** What a tool result is capped at before the model sees it. */
+    private static final int RESULT_CHARS = 8_000;
+
+    private final FineractRestToolExecutor executor = new FineractRestToolExecutor("http://127.0.0.1:9");
+    private BodyTemplate loanCreateTemplate;
+    private String clientsPage;
+
+    /** Every field of the loan application filled in. */
+    private final Map<String, Object> fullArgs = Map.of("clientId", 7, "productId", 3, "principal", 120000,
+            "numberOfRepayments", 24, "expectedDisbursementDate", "today", "submittedOnDate", "2026-10-18");
+    /** Optional dates left out, so the unfilled fields have to be stripped. */
+    private final Map<String, Object> sparseArgs = Map.of("clientId", 7, "productId", 3, "principal", 120000,
+            "numberOfRepayments", 24);
+
+    @Setup
+    public void load() {
+        ToolManifest manifest = ToolManifest.load(getClass().getResourceAsStream("/tools.yaml"));
+        loanCreateTemplate = manifest.find("mifos_loan_create").orElseThrow().rest().compiledBody();
+        clientsPage = Fixtures.text("clients-page.json");
+    }
+
+    @Benchmark
+    public String buildBodyAllArguments() {
+        return executor.buildBody(loanCreateTemplate, fullArgs, TODAY);
+    }
+
+    @Benchmark
+    public String buildBodyStrippingOptionalFields() {
+        return executor.buildBody(loanCreateTemplate, sparseArgs, TODAY);
+    }
+
+    /** A 120-client search page, around 70 KB, with two PII fields on every client and family member. */
+    @Benchmark
+    public String redactClientsPage() {
+        return executor.redact(clientsPage, PII);
+    }
+
+    @Benchmark
+    public String redactClientsPageTree() throws IOException {
+        return redactTree(clientsPage, PII);
+    }
+
+    /** The same page as the model is shown it: masked and cut to the result cap. */
+    @Benchmark
+    public String shapeClientsPage() {
+        return ResultShaper.shape(clientsPage, null, PII, RESULT_CHARS);
+    }
+
+    @Benchmark
+    public String shapeClientsPageTree() throws IOException {
+        String redacted = redactTree(clientsPage, PII);
+        return redacted.length() > RESULT_CHARS ? redacted.substring(0, RESULT_CHARS) + " …(truncated)" : redacted;
+    }
+
+    private static String redactTree(String json, List<String> fields) throws IOException {
+        JsonNode root = JSON.readTree(json);
+        redactNode(root, fields);
+        return JSON.writeValueAsString(root);
+    }
+
+    private static void redactNode(JsonNode node, List<String> fields) {
+        if (node instanceof ObjectNode object) {
+            for (String field : fields) {
+                if (object.has(field)) {
+                    object.put(field, ResultShaper.MASK);
+                }
+            }
+            object.forEach((child) -> redactNode(child, fields));
+        } else if (node.isArray()) {
+            node.forEach((child) -> redactNode(child, fields));
+        }
+    }
+}
@@ -94,4 +94,16 @@ class FineractRestToolExecutorTest {
 
         assertThat(body.get("approvedOnDate").asText()).isEqualTo("09 August 2026");
     }
+
+    @Test
+    void omittedOptionalFieldsLeaveValidJsonWhereverTheySat() throws Exception {
+        String template = "{\"a\":\"${a}\", \"locale\":\"en\",\"b\":\"${b}\",\"c\":\"${c}\"}";
+
+        assertThat(executor.buildBody(template, Map.of(), TODAY)).isEqualTo("{\"locale\":\"en\"}");
+        assertThat(executor.buildBody(template, Map.of("b", 5), TODAY)).isEqualTo("{\"locale\":\"en\",\"b\":5}");
+        assertThat(executor.buildBody(template, Map.of("a", "x", "c", true), TODAY))
+                .isEqualTo("{\"a\":\"x\", \"locale\":\"en\",\"c\":true}");
+        assertThat(mapper.readTree(executor.buildBody("{\"a\":\"${a}\",\"b\":\"${b}\"}", Map.of(), TODAY)))
+                .isEmpty();
+    }
 }
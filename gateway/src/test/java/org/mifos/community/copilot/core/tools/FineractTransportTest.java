@@ -0,0 +1,166 @@
+/**
+ * Copyright since 2026 Mifos Initiative
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file, You can obtain one at
+ * http://mozilla.org/MPL/2.0/.
+ */
+package org.mifos.community.copilot.core.tools;
+
+import com.sun.net.httpserver.HttpServer;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mifos.community.copilot.core.metrics.Metrics;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * One Fineract tenant that stops answering must not take the gateway down for the others, and
+ * a branch asking for the same thing at once should cost Fineract one read.
+ */
+class FineractTransportTest {
+
+    private HttpServer server;
+    private String baseUrl;
+    /** Holds every call for the tenant "stuck" until released. */
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final AtomicInteger stuckInFlight = new AtomicInteger();
+    private final AtomicInteger stuckPeak = new AtomicInteger();
+    private final AtomicInteger hits = new AtomicInteger();
+    private final AtomicInteger coalesced = new AtomicInteger();
+
+    @BeforeEach
+    void startStub() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/", (exchange) -> {
+            hits.incrementAndGet();
+            if ("stuck".equals(exchange.getRequestHeaders().getFirst("Fineract-Platform-TenantId"))) {
+                stuckPeak.accumulateAndGet(stuckInFlight.incrementAndGet(), Math::max);
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                stuckInFlight.decrementAndGet();
+            }
+            byte[] body = "{}".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.start();
+        baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    @AfterEach
+    void stopStub() {
+        release.countDown();
+        server.stop(0);
+    }
+
+    @Test
+    void aStuckTenantWaitsForItsOwnSlotsWhileOthersCarryOn() throws Exception {
+        try (FineractTransport transport = transport(2, Duration.ofSeconds(10))) {
+            List<CompletableFuture<HttpResponse<String>>> stuck = new ArrayList<>();
+            for (int i = 0; i < 5; i++) {
+                stuck.add(transport.send(get(transport, "stuck"), "stuck", FineractTransport.Operation.READ));
+            }
+
+            HttpResponse<String> other = transport.send(get(transport, "other"), "other",
+                    FineractTransport.Operation.READ).get(5, TimeUnit.SECONDS);
+            assertThat(other.statusCode()).isEqualTo(200);
+            assertThat(stuck).noneMatch(CompletableFuture::isDone);
+
+            release.countDown();
+            for (CompletableFuture<HttpResponse<String>> call : stuck) {
+                assertThat(call.get(5, TimeUnit.SECONDS).statusCode()).isEqualTo(200);
+            }
+            assertThat(stuckPeak.get()).isEqualTo(2);
+        }
+    }
+
+    @Test
+    void aCallStillWaitingForASlotAtItsDeadlineTimesOut() throws Exception {
+        try (FineractTransport transport = transport(1, Duration.ofMillis(300))) {
+            // Its own request deadline is the write's, so it keeps the slot past the read's.
+            transport.send(get(transport, "stuck", FineractTransport.Operation.WRITE), "stuck",
+                    FineractTransport.Operation.WRITE);
+
+            CompletableFuture<HttpResponse<String>> waiting =
+                    transport.send(get(transport, "stuck"), "stuck", FineractTransport.Operation.READ);
+            assertThatThrownBy(() -> waiting.get(5, TimeUnit.SECONDS))
+                    .isInstanceOf(ExecutionException.class).hasCauseInstanceOf(TimeoutException.class);
+            assertThat(stuckPeak.get()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    void identicalReadsInFlightShareOneRequestPerCredential() throws Exception {
+        try (FineractTransport transport = transport(0, Duration.ofSeconds(10))) {
+            List<CompletableFuture<HttpResponse<String>>> calls = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                calls.add(transport.sendShared(get(transport, "stuck"), "stuck", "officer-a",
+                        FineractTransport.Operation.BUSINESS_DATE));
+            }
+            calls.add(transport.sendShared(get(transport, "stuck"), "stuck", "officer-b",
+                    FineractTransport.Operation.BUSINESS_DATE));
+            calls.get(0).cancel(true); // One caller giving up leaves the others their answer.
+
+            release.countDown();
+            for (CompletableFuture<HttpResponse<String>> call : calls.subList(1, calls.size())) {
+                assertThat(call.get(5, TimeUnit.SECONDS).statusCode()).isEqualTo(200);
+            }
+            assertThat(hits.get()).isEqualTo(2);
+            assertThat(coalesced.get()).isEqualTo(9);
+
+            transport.sendShared(get(transport, "stuck"), "stuck", "officer-a", FineractTransport.Operation.READ)
+                    .get(5, TimeUnit.SECONDS);
+            assertThat(hits.get()).isEqualTo(3); // Answered calls are not reused.
+        }
+    }
+
+    private FineractTransport transport(int perTenant, Duration read) {
+        FineractTransport.Timeouts timeouts = new FineractTransport.Timeouts(Duration.ofSeconds(5), read,
+                Duration.ofSeconds(10), Duration.ofSeconds(10), Duration.ofSeconds(10));
+        Metrics metrics = new Metrics() {
+            @Override
+            public void increment(String name, String... tags) {
+                if (name.equals("copilot.fineract.coalesced")) {
+                    coalesced.incrementAndGet();
+                }
+            }
+        };
+        return new FineractTransport(HttpClient.Version.HTTP_1_1, 4, perTenant, timeouts, metrics);
+    }
+
+    private HttpRequest get(FineractTransport transport, String tenant) {
+        return get(transport, tenant, FineractTransport.Operation.READ);
+    }
+
+    private HttpRequest get(FineractTransport transport, String tenant, FineractTransport.Operation operation) {
+        return transport.request(URI.create(baseUrl + "/fineract-provider/api/v1/loans/1"), operation)
+                .header("Fineract-Platform-TenantId", tenant).GET().build();
+    }
+}
@@ -0,0 +1,153 @@
+/**
+ * Copyright since 2026 Mifos Initiative
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file, You can obtain one at
+ * http://mozilla.org/MPL/2.0/.
+ */
+package org.mifos.community.copilot.core.tools;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mifos.community.copilot.core.auth.CallContext;
+import org.mifos.community.copilot.core.metrics.Metrics;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Reusing read results. The point is fewer Fineract round-trips; the constraint is that a
+ * cached answer must never be one the asking officer could not have read themselves, and
+ * never outlive a write the copilot itself just made.
+ */
+class ResponseCacheTest {
+
+    private HttpServer server;
+    private String baseUrl;
+    private final List<String> requested = new CopyOnWriteArrayList<>();
+
+    private final CallContext officer = new CallContext("Basic abc", "default", "corr-1");
+    private final CallContext colleague = new CallContext("Basic xyz", "default", "corr-2");
+
+    private ResponseCache cache;
+    private FineractRestToolExecutor executor;
+
+    @BeforeEach
+    void startStubFineract() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", this::respond);
+        server.start();
+        baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+        cache = new ResponseCache(100, Metrics.NOOP);
+        executor = new FineractRestToolExecutor(baseUrl, cache);
+    }
+
+    @AfterEach
+    void stopStubFineract() {
+        server.stop(0);
+    }
+
+    private void respond(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        if (!path.contains("businessdate")) {
+            requested.add(exchange.getRequestMethod() + " " + path);
+        }
+        String body = "POST".equals(exchange.getRequestMethod())
+                ? "{\"officeId\":1,\"clientId\":7,\"loanId\":12,\"resourceId\":12}"
+                : "{\"id\":12,\"status\":\"Submitted and pending approval\"}";
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, bytes.length);
+        try (InputStream ignored = exchange.getRequestBody()) {
+            exchange.getResponseBody().write(bytes);
+        }
+        exchange.close();
+    }
+
+    private static ToolDefinition read(String name, String path, int cacheSeconds) {
+        return new ToolDefinition(name, "A read", false, null, List.of(),
+                new ToolDefinition.RestMapping("GET", path, null), List.of(), List.of(), cacheSeconds);
+    }
+
+    private static final ToolDefinition LOAN = read("mifos_loan_details", "/loans/{loanId}", 30);
+    private static final ToolDefinition ACCOUNTS = read("mifos_client_accounts", "/clients/{clientId}/accounts", 30);
+    private static final ToolDefinition APPROVE = new ToolDefinition("mifos_loan_approve", "Approve", true, null,
+            List.of(), new ToolDefinition.RestMapping("POST", "/loans/{loanId}?command=approve", "{}"), List.of(),
+            List.of());
+
+    @Test
+    void aRepeatedReadIsServedWithoutAskingFineractAgain() throws Exception {
+        String first = executor.execute(LOAN, Map.of("loanId", 12), officer, null);
+        String second = executor.execute(LOAN, Map.of("loanId", 12), officer, null);
+
+        assertThat(second).isEqualTo(first);
+        assertThat(requested).containsExactly("GET /loans/12");
+        assertThat(cache.hits()).isEqualTo(1);
+        assertThat(cache.misses()).isEqualTo(1);
+    }
+
+    @Test
+    void aColleagueNeverReceivesAnotherOfficersCopy() throws Exception {
+        // Same URL, different credential: Fineract decides what the colleague may read.
+        executor.execute(LOAN, Map.of("loanId", 12), officer, null);
+        executor.execute(LOAN, Map.of("loanId", 12), colleague, null);
+
+        assertThat(requested).containsExactly("GET /loans/12", "GET /loans/12");
+    }
+
+    @Test
+    void aConfirmedWriteDropsEveryCopyOfTheRecordsItTouched() throws Exception {
+        executor.execute(LOAN, Map.of("loanId", 12), colleague, null);
+        executor.execute(ACCOUNTS, Map.of("clientId", 7), officer, null);
+
+        // The approval names only the loan; Fineract's answer also names the client.
+        executor.execute(APPROVE, Map.of("loanId", 12), officer, "cop-1");
+        executor.execute(LOAN, Map.of("loanId", 12), colleague, null);
+        executor.execute(ACCOUNTS, Map.of("clientId", 7), officer, null);
+
+        assertThat(requested).containsExactly("GET /loans/12", "GET /clients/7/accounts",
+                "POST /loans/12", "GET /loans/12", "GET /clients/7/accounts");
+    }
+
+    @Test
+    void aToolThatDeclaresNoLifetimeAlwaysAsksFineract() throws Exception {
+        ToolDefinition uncached = read("mifos_client_search", "/search", 0);
+
+        executor.execute(uncached, Map.of(), officer, null);
+        executor.execute(uncached, Map.of(), officer, null);
+
+        assertThat(requested).hasSize(2);
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    void everyToolCallIsTimedByToolAndByWhereItsAnswerCameFrom() throws Exception {
+        List<String> recorded = new CopyOnWriteArrayList<>();
+        FineractRestToolExecutor timed = new FineractRestToolExecutor(baseUrl, cache, FineractTransport.defaults(),
+                Duration.ofMinutes(5), new Metrics() {
+                    @Override
+                    public void record(String name, long nanos, String... tags) {
+                        recorded.add(name + " " + String.join(" ", tags));
+                    }
+                });
+
+        timed.execute(LOAN, Map.of("loanId", 12), officer, null);
+        timed.executeAsync(LOAN, Map.of("loanId", 12), officer, null).join();
+
+        assertThat(recorded).containsExactly(
+                "copilot.tool.requests tool mifos_loan_details status 200",
+                "copilot.tool.requests tool mifos_loan_details status cached");
+    }
+}
@@ -0,0 +1,140 @@
+/**
+ * Copyright since 2026 Mifos Initiative
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file, You can obtain one at
+ * http://mozilla.org/MPL/2.0/.
+ */
+package org.mifos.community.copilot.core.tools;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * What the model is shown of a result: only the projected fields, PII masked, and within the
+ * size cap as JSON that still parses, saying what it left out.
+ */
+class ResultShaperTest {
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    private static final String LOAN = """
+            {"id":42,"accountNo":"000000042","status":{"id":300,"code":"loanStatusType.active","value":"Active"},
+             "clientName":"Ana","mobileNo":"+255700000000","timeline":{"submittedOnDate":[2026,1,5]},
+             "repaymentSchedule":{"totalOutstanding":900,"periods":[
+               {"period":1,"dueDate":[2026,2,5],"principalDue":100,"fromDate":[2026,1,5],"daysInPeriod":31},
+               {"period":2,"dueDate":[2026,3,5],"principalDue":100,"fromDate":[2026,2,5],"daysInPeriod":28},
+               {"period":3,"dueDate":[2026,4,5],"principalDue":100,"fromDate":[2026,3,5],"daysInPeriod":31}]}}""";
+
+    @Test
+    void keepsOnlyWhatTheProjectionNames() throws Exception {
+        Projection projection = Projection.compile(List.of("/id", "/status/value",
+                "/repaymentSchedule/periods/dueDate", "/repaymentSchedule/periods/principalDue"));
+
+        JsonNode shaped = JSON.readTree(ResultShaper.shape(LOAN, projection, List.of(), 8_000));
+        assertThat(shaped.toString()).isEqualTo("{\"id\":42,\"status\":{\"value\":\"Active\"},\"repaymentSchedule\":"
+                + "{\"periods\":[{\"dueDate\":[2026,2,5],\"principalDue\":100},{\"dueDate\":[2026,3,5],"
+                + "\"principalDue\":100},{\"dueDate\":[2026,4,5],\"principalDue\":100}]}}");
+    }
+
+    @Test
+    void aSliceKeepsThoseElementsAndSaysHowManyItLeftOut() throws Exception {
+        Projection projection = Projection.compile(List.of("/repaymentSchedule/periods[-1:]/period"));
+
+        JsonNode periods = JSON.readTree(ResultShaper.shape(LOAN, projection, List.of(), 8_000))
+                .at("/repaymentSchedule/periods");
+        assertThat(periods.toString()).isEqualTo("[{\"period\":3},\"…(2 more omitted)\"]");
+    }
+
+    @Test
+    void projectedFieldsAreStillRedacted() throws Exception {
+        Projection projection = Projection.compile(List.of("/id", "/mobileNo", "/*/submittedOnDate"));
+
+        JsonNode shaped = JSON.readTree(ResultShaper.shape(LOAN, projection, List.of("mobileNo"), 8_000));
+        assertThat(shaped.path("mobileNo").asText()).isEqualTo(ResultShaper.MASK);
+        assertThat(shaped.at("/timeline/submittedOnDate").toString()).isEqualTo("[2026,1,5]");
+        assertThat(shaped.has("clientName")).isFalse();
+    }
+
+    @Test
+    void overTheCapTrailingElementsGoAndTheJsonStillParses() throws Exception {
+        String shaped = ResultShaper.shape(clientPage(), null, List.of(), 2_000);
+        assertThat(shaped.length()).isLessThanOrEqualTo(2_000);
+        JsonNode items = JSON.readTree(shaped).path("pageItems");
+        assertThat(items.get(0).path("activationDate").toString()).isEqualTo("[2026,1,5]");
+        assertThat(items.get(items.size() - 1).asText()).matches("…\\(\\d+ more omitted\\)");
+        assertThat(items.size() - 1 + Integer.parseInt(items.get(items.size() - 1).asText().replaceAll("\\D", "")))
+                .isEqualTo(400);
+    }
+
+    @Test
+    void aDateIsKeptWholeOrLeftOutAtAnyCap() throws Exception {
+        String page = clientPage();
+        for (int cap = 1_990; cap <= 2_060; cap++) {
+            String shaped = ResultShaper.shape(page, null, List.of(), cap);
+            assertThat(shaped.length()).as("cap %d", cap).isLessThanOrEqualTo(cap);
+            JsonNode items = JSON.readTree(shaped).path("pageItems");
+            for (int i = 0; i < items.size() - 1; i++) {
+                JsonNode item = items.get(i);
+                assertThat(item.has("id")).as("cap %d, item %d: %s", cap, i, item).isTrue();
+                if (item.has("activationDate")) {
+                    assertThat(item.path("activationDate").toString()).as("cap %d", cap).isEqualTo("[2026,1,5]");
+                }
+            }
+        }
+    }
+
+    @Test
+    void aMaskedFieldHidesItsWholeValueAtAnyDepth() throws Exception {
+        String body = "{\"pageItems\":[{\"id\":1,\"mobileNo\":\"+255700000000\",\"familyMembers\":[{\"mobileNo\":"
+                + "\"+255711111111\"}],\"dateOfBirth\":[1990,4,1]}]}";
+
+        JsonNode shaped = JSON.readTree(ResultShaper.shape(body, null, List.of("mobileNo", "dateOfBirth"), 8_000));
+        assertThat(shaped.toString()).isEqualTo("{\"pageItems\":[{\"id\":1,\"mobileNo\":\"•••\",\"familyMembers\":"
+                + "[{\"mobileNo\":\"•••\"}],\"dateOfBirth\":\"•••\"}]}");
+    }
+
+    @Test
+    void anObjectWithTooManyFieldsForTheCapSaysHowManyItLeftOut() throws Exception {
+        StringBuilder error = new StringBuilder("{\"developerMessage\":\"" + "x".repeat(3_000) + "\"");
+        for (int i = 0; i < 200; i++) {
+            error.append(",\"field").append(i).append("\":\"value ").append(i).append('"');
+        }
+        error.append('}');
+
+        String shaped = ResultShaper.shape(error.toString(), null, List.of(), 2_000);
+        assertThat(shaped.length()).isLessThanOrEqualTo(2_000);
+        JsonNode node = JSON.readTree(shaped);
+        assertThat(node.path("developerMessage").asText()).endsWith("…(truncated)");
+        assertThat(node.path("…").asText()).matches("\\d+ more fields omitted");
+    }
+
+    @Test
+    void aBodyThatIsNotJsonIsCutAsText() {
+        assertThat(ResultShaper.shape("x".repeat(50), null, List.of("mobileNo"), 10))
+                .isEqualTo("xxxxxxxxxx …(truncated)");
+    }
+
+    @Test
+    void aMalformedPathFailsWhenTheManifestLoads() {
+        assertThatThrownBy(() -> Projection.compile(List.of("/periods[1:x]"))).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> Projection.compile(List.of("/periods[0:3]/a", "/periods[0:5]/b")))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static String clientPage() {
+        StringBuilder page = new StringBuilder("{\"totalFilteredRecords\":400,\"pageItems\":[");
+        for (int i = 0; i < 400; i++) {
+            page.append(i == 0 ? "" : ",").append("{\"id\":").append(i)
+                    .append(",\"displayName\":\"Client ").append(i).append("\",\"activationDate\":[2026,1,5]}");
+        }
+        return page.append("]}").toString();
+    }
+}
@@ -0,0 +1,96 @@
+/**
+ * Copyright since 2026 Mifos Initiative
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public License, v. 2.0.
+ * If a copy of the MPL was not distributed with this file, You can obtain one at
+ * http://mozilla.org/MPL/2.0/.
+ */
+package org.mifos.community.copilot.gateway.web;
+
+import org.junit.jupiter.api.Test;
+import org.mifos.community.copilot.core.metrics.Metrics;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/** Turn admission: the cap holds, waiting turns go in arrival order, and overflow is refused. */
+class TurnGateTest {
+
+    @Test
+    void turnsOverTheCapWaitAndThenRunInArrivalOrder() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(4);
+        List<String> ran = new CopyOnWriteArrayList<>();
+        try (TurnGate gate = new TurnGate(Executors.newVirtualThreadPerTaskExecutor(), 1, 10, Metrics.NOOP)) {
+            gate.submit(() -> {
+                await(release);
+                ran.add("first");
+                done.countDown();
+            });
+            for (String name : List.of("second", "third", "fourth")) {
+                gate.submit(() -> {
+                    ran.add(name);
+                    done.countDown();
+                });
+            }
+
+            assertThat(gate.active()).isEqualTo(1);
+            assertThat(gate.queued()).isEqualTo(3);
+            release.countDown();
+            assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+        }
+        assertThat(ran).containsExactly("first", "second", "third", "fourth");
+    }
+
+    @Test
+    void aFullQueueRefusesTheTurnInsteadOfHoldingIt() {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger rejected = new AtomicInteger();
+        Metrics metrics = new Metrics() {
+            @Override
+            public void increment(String name, String... tags) {
+                rejected.incrementAndGet();
+            }
+        };
+        try (TurnGate gate = new TurnGate(Executors.newVirtualThreadPerTaskExecutor(), 1, 1, metrics)) {
+            assertThat(gate.submit(() -> await(release))).isTrue();
+            assertThat(gate.submit(() -> {})).isTrue();
+            assertThat(gate.submit(() -> {})).isFalse();
+            assertThat(rejected).hasValue(1);
+            release.countDown();
+        }
+    }
+
+    @Test
+    void neverMoreTurnsInFlightThanTheCap() throws Exception {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(200);
+        try (TurnGate gate = new TurnGate(Executors.newVirtualThreadPerTaskExecutor(), 8, 1000, Metrics.NOOP)) {
+            for (int i = 0; i < 200; i++) {
+                gate.submit(() -> {
+                    peak.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    Thread.yield();
+                    running.decrementAndGet();
+                    done.countDown();
+                });
+            }
+            assertThat(done.await(10, TimeUnit.SECONDS)).isTrue();
+        }
+        assertThat(peak.get()).isBetween(1, 8);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}